@@ -1,5 +1,14 @@
 package com.javaevolution.jdk11.api;
 
+import com.javaevolution.jdk11.collection.PerfectHashIntMap;
+import com.javaevolution.jdk11.collection.PerfectHashMap;
+import com.javaevolution.jdk11.collection.PersistentMap;
+import com.javaevolution.jdk11.collection.PersistentSet;
+import com.javaevolution.jdk11.collection.PersistentVector;
+import com.javaevolution.jdk11.stream.Progressions;
+import com.javaevolution.jdk11.stream.Progressions.IntStep;
+import com.javaevolution.jdk11.stream.SortedStreams;
+
 import java.util.*;
 import java.util.stream.*;
 
@@ -98,6 +107,64 @@ public class CollectionAndStreamDemo {
             Set<String> immutableSet = Set.copyOf(new HashSet<>(Arrays.asList("X", "Y")));
             Map<String, Integer> immutableMap = Map.copyOf(new HashMap<>());
         }
+        
+        public void perfectHashMapDemo() {
+            // 大型静态查找表: 构建一次,之后只读
+            Map<String, Integer> source = new HashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                source.put("sku-" + i, i);
+            }
+            
+            // Map.copyOf: 2 倍容量的交替数组 + 线性探测
+            // PerfectHashMap.copyOf: 最小完美哈希,键值各一个长度为 n 的扁平数组,每次查找只看一个位置
+            PerfectHashMap<String, Integer> skus = PerfectHashMap.copyOf(source);
+            System.out.println(skus.get("sku-42") + " " + skus.get("sku-x")); // 42 null
+            
+            // 也可以用 Builder 逐个添加; 与 Map.of 一样不允许重复键和 null
+            PerfectHashMap<String, Integer> versions = PerfectHashMap.<String, Integer>builder()
+                .put("Java", 11)
+                .put("Python", 3)
+                .build();
+            System.out.println(versions.equals(Map.of("Java", 11, "Python", 3))); // true
+            
+            // 原始类型键: 不装箱,查找只比较一次 int
+            PerfectHashIntMap<String> ports = PerfectHashIntMap.<String>builder()
+                .put(80, "http")
+                .put(443, "https")
+                .put(8080, "http-alt")
+                .build();
+            System.out.println(ports.get(443)); // https
+        }
+        
+        public void persistentCollectionsDemo() {
+            // copyOf 派生修改版: 每次复制全部 n 个条目
+            Map<String, String> config = Map.of("timeout", "30s", "retries", "3");
+            Map<String, String> copied = new HashMap<>(config);
+            copied.put("timeout", "60s");
+            Map<String, String> next = Map.copyOf(copied);
+            
+            // 持久化集合: with / without 只复制一条 O(log n) 路径,其余与旧版本共享
+            PersistentMap<String, String> v1 = PersistentMap.copyOf(config);
+            PersistentMap<String, String> v2 = v1.with("timeout", "60s").without("retries");
+            System.out.println(v1.get("timeout") + " " + v2.get("timeout")); // 30s 60s (旧版本不变)
+            System.out.println(v2.equals(Map.of("timeout", "60s")));     // true
+            
+            // 批量加载用 Builder: 原地修改,build() 时冻结
+            PersistentSet<Integer> ids = PersistentSet.<Integer>builder()
+                .addAll(List.of(1, 2, 3))
+                .add(4)
+                .build();
+            System.out.println(ids.with(5).size() + " " + ids.size()); // 5 4
+            
+            // 向量: 按下标修改、追加、删除末尾都是 O(log32 n)
+            PersistentVector<String> names = PersistentVector.copyOf(List.of("A", "B", "C"));
+            PersistentVector<String> renamed = names.with(1, "X").plus("D");
+            System.out.println(names + " " + renamed); // [A, B, C] [A, X, C, D]
+            
+            // 可直接做并行流的数据源
+            long count = renamed.parallelStream().filter(n -> !n.equals("X")).count();
+            System.out.println(count); // 3
+        }
     }
 
     /**
@@ -123,6 +190,16 @@ public class CollectionAndStreamDemo {
                 .collect(Collectors.toList());
             
             System.out.println(lessThan5); // [1, 2, 3, 4]
+            
+            // 数据源已排序时,切点可以二分定位,不必逐个测试谓词: O(log n) 而不是 O(n)
+            int[] sortedArray = {1, 2, 3, 4, 5, 6, 7, 8};
+            int[] below5 = SortedStreams.takeWhile(sortedArray, n -> n < 5).toArray();
+            System.out.println(Arrays.toString(below5)); // [1, 2, 3, 4]
+            
+            // 按时间戳排序的日志: 直接取一个时间窗口
+            long[] timestamps = {1000, 1500, 2000, 2500, 3000, 3500};
+            long inWindow = SortedStreams.range(timestamps, 1500, 3000).count();
+            System.out.println(inWindow); // 3
         }
         
         // dropWhile - 丢弃元素,直到条件不满足
@@ -142,6 +219,17 @@ public class CollectionAndStreamDemo {
                 .collect(Collectors.toList());
             
             System.out.println(data); // [Data1, Data2]
+            
+            // 有序的 NavigableSet / 随机访问 List 同样可以跳过前缀
+            NavigableSet<Integer> versions = new TreeSet<>(List.of(8, 11, 17, 21));
+            List<Integer> lts = SortedStreams.dropWhileBelow(versions, 11)
+                .collect(Collectors.toList());
+            System.out.println(lts); // [11, 17, 21]
+            
+            List<Integer> sortedList = List.of(1, 2, 3, 4, 5, 6, 7, 8);
+            List<Integer> from5 = SortedStreams.dropWhile(sortedList, null, n -> n < 5)
+                .collect(Collectors.toList());
+            System.out.println(from5); // [5, 6, 7, 8]
         }
         
         // iterate 重载 - 带条件的无限流
@@ -164,6 +252,23 @@ public class CollectionAndStreamDemo {
                           arr -> new int[]{arr[1], arr[0] + arr[1]})
                 .map(arr -> arr[0])
                 .forEach(System.out::println);
+            
+            // iterate 的每一项依赖上一项,并行时只能按批缓冲后分发;
+            // 等差/等比数列有闭式,可以按下标直接切分,得到 SIZED 的原始类型流
+            long evens = Progressions.arithmetic(0, 2, 1_000_000)  // 0, 2, 4, ... < 1_000_000
+                .parallel()
+                .asLongStream()
+                .sum();
+            System.out.println(evens); // 249999500000
+            
+            Progressions.geometric(1, 2, 100)  // 1, 2, 4, ..., 64
+                .forEach(System.out::println);
+            
+            // 保留 iterate(seed, hasNext, next) 的写法: next 用 IntStep 描述时可切分
+            int count = (int) Progressions.iterateInt(0, n -> n < 10, IntStep.plus(1))
+                .parallel()
+                .count();
+            System.out.println(count); // 10
         }
         
         // ofNullable - 处理可能为 null 的单个元素
@@ -331,6 +436,8 @@ public class CollectionAndStreamDemo {
         CollectionFactories cf = new CollectionFactories();
         cf.listOf();
         cf.mapOf();
+        cf.perfectHashMapDemo();
+        cf.persistentCollectionsDemo();
         
         StreamEnhancements se = new StreamEnhancements();
         se.takeWhileDemo();
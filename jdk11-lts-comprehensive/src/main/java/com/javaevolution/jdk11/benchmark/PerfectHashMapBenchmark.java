@@ -0,0 +1,118 @@
+package com.javaevolution.jdk11.benchmark;
+
+import com.javaevolution.jdk11.collection.PerfectHashIntMap;
+import com.javaevolution.jdk11.collection.PerfectHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH 基准测试: 百万条目静态查找表的随机查找,HashMap / Map.copyOf vs 完美哈希
+ * 对应 CollectionAndStreamDemo.CollectionFactories 的 mapOf / copyOf;
+ * 每次调用查找 lookups 个键,其中约一半不在表中
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class PerfectHashMapBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"100000"})
+    private int lookups;
+
+    private Map<String, Integer> hashMap;
+    private Map<String, Integer> copyOf;
+    private PerfectHashMap<String, Integer> perfect;
+    private Map<Integer, Integer> boxedIntMap;
+    private PerfectHashIntMap<Integer> perfectInt;
+
+    private String[] probes;
+    private int[] intProbes;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        hashMap = new HashMap<>();
+        Map<Integer, Integer> ints = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            hashMap.put("sku-" + random.nextLong(), i);
+            ints.put(random.nextInt(), i);
+        }
+        copyOf = Map.copyOf(hashMap);
+        perfect = PerfectHashMap.copyOf(hashMap);
+        boxedIntMap = Map.copyOf(ints);
+        perfectInt = PerfectHashIntMap.copyOf(ints);
+
+        String[] keys = hashMap.keySet().toArray(new String[0]);
+        int[] intKeys = ints.keySet().stream().mapToInt(Integer::intValue).toArray();
+        probes = new String[lookups];
+        intProbes = new int[lookups];
+        for (int i = 0; i < lookups; i++) {
+            boolean hit = random.nextBoolean();
+            // 新建字符串,避免 equals 在同一引用上短路
+            probes[i] = hit ? new String(keys[random.nextInt(keys.length)]) : "sku-" + random.nextLong();
+            intProbes[i] = hit ? intKeys[random.nextInt(intKeys.length)] : random.nextInt();
+        }
+    }
+
+    @Benchmark
+    public void hashMapGet(Blackhole bh) {
+        for (String probe : probes) {
+            bh.consume(hashMap.get(probe));
+        }
+    }
+
+    @Benchmark
+    public void mapCopyOfGet(Blackhole bh) {
+        for (String probe : probes) {
+            bh.consume(copyOf.get(probe));
+        }
+    }
+
+    @Benchmark
+    public void perfectHashGet(Blackhole bh) {
+        for (String probe : probes) {
+            bh.consume(perfect.get(probe));
+        }
+    }
+
+    @Benchmark
+    public void boxedIntGet(Blackhole bh) {
+        for (int probe : intProbes) {
+            bh.consume(boxedIntMap.get(probe));
+        }
+    }
+
+    @Benchmark
+    public void perfectHashIntGet(Blackhole bh) {
+        for (int probe : intProbes) {
+            bh.consume(perfectInt.get(probe));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public PerfectHashMap<String, Integer> perfectHashBuild() {
+        return PerfectHashMap.copyOf(hashMap);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(PerfectHashMapBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,104 @@
+package com.javaevolution.jdk11.benchmark;
+
+import com.javaevolution.jdk11.collection.PersistentMap;
+import com.javaevolution.jdk11.collection.PersistentVector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH 基准测试: 从不可变快照派生"改了一个条目"的新快照
+ * 对应 CollectionAndStreamDemo.CollectionFactories.copyOf: 复制 + 修改 + copyOf 是 O(n),
+ * PersistentMap.with / PersistentVector.with 只复制一条路径; bulkLoad* 对比批量构建
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistentCollectionsBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Map<String, Integer> mapSnapshot;
+    private PersistentMap<String, Integer> persistentMap;
+    private List<Integer> listSnapshot;
+    private PersistentVector<Integer> persistentVector;
+    private Map<String, Integer> source;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        source = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            source.put("key-" + i, i);
+        }
+        mapSnapshot = Map.copyOf(source);
+        persistentMap = PersistentMap.copyOf(source);
+        listSnapshot = List.copyOf(IntStream.range(0, size).boxed().collect(Collectors.toList()));
+        persistentVector = PersistentVector.copyOf(listSnapshot);
+    }
+
+    private int nextIndex() {
+        counter = (counter + 7919) % size;
+        return counter;
+    }
+
+    @Benchmark
+    public Map<String, Integer> copyOfMapUpdate() {
+        Map<String, Integer> copy = new HashMap<>(mapSnapshot);
+        copy.put("key-" + nextIndex(), -1);
+        return Map.copyOf(copy);
+    }
+
+    @Benchmark
+    public PersistentMap<String, Integer> persistentMapUpdate() {
+        return persistentMap.with("key-" + nextIndex(), -1);
+    }
+
+    @Benchmark
+    public List<Integer> copyOfListUpdate() {
+        List<Integer> copy = new ArrayList<>(listSnapshot);
+        copy.set(nextIndex(), -1);
+        return List.copyOf(copy);
+    }
+
+    @Benchmark
+    public PersistentVector<Integer> persistentVectorUpdate() {
+        return persistentVector.with(nextIndex(), -1);
+    }
+
+    @Benchmark
+    public Map<String, Integer> bulkLoadCopyOf() {
+        return Map.copyOf(source);
+    }
+
+    @Benchmark
+    public PersistentMap<String, Integer> bulkLoadBuilder() {
+        return PersistentMap.<String, Integer>builder().putAll(source).build();
+    }
+
+    @Benchmark
+    public long persistentMapParallelSum() {
+        return persistentMap.entrySet().parallelStream().mapToLong(Map.Entry::getValue).sum();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(PersistentCollectionsBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.javaevolution.jdk11.benchmark;
+
+import com.javaevolution.jdk11.stream.Progressions;
+import com.javaevolution.jdk11.stream.Progressions.LongStep;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * JMH 基准测试: 并行 LongStream.iterate vs 可切分的数列源
+ * 对应 CollectionAndStreamDemo.StreamEnhancements.iterateDemo;
+ * 每个元素做一次中等开销的计算,使并行收益主要取决于数据源能否均匀切分
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressionBenchmark {
+
+    @Param({"10000000"})
+    private long bound;
+
+    private static long work(long n) {
+        long h = n * 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < 8; i++) {
+            h ^= h >>> 31;
+            h *= 0xBF58476D1CE4E5B9L;
+        }
+        return h;
+    }
+
+    @Benchmark
+    public long iterateSequential() {
+        return LongStream.iterate(0, n -> n < bound, n -> n + 3).map(ProgressionBenchmark::work).sum();
+    }
+
+    @Benchmark
+    public long iterateParallel() {
+        return LongStream.iterate(0, n -> n < bound, n -> n + 3).parallel().map(ProgressionBenchmark::work).sum();
+    }
+
+    @Benchmark
+    public long arithmeticParallel() {
+        return Progressions.arithmetic(0L, 3L, bound).parallel().map(ProgressionBenchmark::work).sum();
+    }
+
+    @Benchmark
+    public long iterateStepParallel() {
+        long limit = bound;
+        return Progressions.iterateLong(0, n -> n < limit, LongStep.plus(3))
+            .parallel()
+            .map(ProgressionBenchmark::work)
+            .sum();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(ProgressionBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.javaevolution.jdk11.benchmark;
+
+import com.javaevolution.jdk11.stream.SortedStreams;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH 基准测试: 按时间戳排序的日志取最近一段,dropWhile / filter vs 二分定位切点
+ * 对应 CollectionAndStreamDemo.StreamEnhancements 的 takeWhileDemo / dropWhileDemo;
+ * 窗口是最后 0.1% 的记录,逐个测试谓词的写法要扫过前面 99.9%;
+ * 终端操作统一用 sum(): SIZED 流上的 count() 直接返回 estimateSize(),不会遍历窗口
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortedSliceBenchmark {
+
+    @Param({"10000000"})
+    private int size;
+
+    private long[] timestamps;
+    private long windowStart;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        timestamps = new long[size];
+        long t = 1_700_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            t += random.nextInt(1, 20);
+            timestamps[i] = t;
+        }
+        windowStart = timestamps[size - size / 1000];
+    }
+
+    @Benchmark
+    public long dropWhileScan() {
+        return Arrays.stream(timestamps).dropWhile(ts -> ts < windowStart).sum();
+    }
+
+    @Benchmark
+    public long filterScan() {
+        return Arrays.stream(timestamps).filter(ts -> ts >= windowStart).sum();
+    }
+
+    @Benchmark
+    public long sortedDropWhile() {
+        return SortedStreams.dropWhile(timestamps, ts -> ts < windowStart).sum();
+    }
+
+    @Benchmark
+    public long sortedRange() {
+        return SortedStreams.range(timestamps, windowStart, Long.MAX_VALUE).sum();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(SortedSliceBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
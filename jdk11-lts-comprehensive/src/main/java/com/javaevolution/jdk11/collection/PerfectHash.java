@@ -0,0 +1,187 @@
+package com.javaevolution.jdk11.collection;
+
+import java.util.Arrays;
+
+/**
+ * 最小完美哈希 (hash-and-displace): 把 n 个互不相同的 64 位哈希一一映射到 [0, n)
+ *
+ * 构建:
+ * 1. 按哈希把键分进约 n / 4 个桶
+ * 2. 从最大的桶开始,为每个桶寻找一个位移 d,使桶内所有键的 slot(h, d) 都落在空位上
+ * 3. 只有一个键的桶最后处理,直接记录一个空位的下标,不用再试
+ * 查找只需读一次位移表再算一次哈希,没有探测循环; 调用方仍需比较该位置上的键,
+ * 以排除不在集合中的键
+ *
+ * 位移表每个桶一个 int,平均每个键约 1 字节
+ */
+final class PerfectHash {
+
+    /** 平均每个桶的键数; 越大位移表越小,构建越慢 */
+    private static final int BUCKET_SIZE = 4;
+    /** 单个桶尝试的位移数上限,超过后换全局种子重建 */
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    /**
+     * 构建时发现两个下标的哈希相同; 由调用方决定报告为重复键还是哈希冲突
+     */
+    interface DuplicateHash {
+        IllegalArgumentException report(int first, int second);
+    }
+
+    private final int size;
+    private final long seed;
+    /** 0: 空桶; 正数: 位移 d; 负数: -slot - 1,单键桶直接给出位置 */
+    private final int[] displacements;
+
+    private PerfectHash(int size, long seed, int[] displacements) {
+        this.size = size;
+        this.seed = seed;
+        this.displacements = displacements;
+    }
+
+    /**
+     * hashes[i] 的位置即键 i 在扁平数组中的下标
+     */
+    static PerfectHash build(long[] hashes, DuplicateHash onDuplicate) {
+        int n = hashes.length;
+        int bucketCount = Math.max(1, (n + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        for (long seed = 0x9E3779B97F4A7C15L; ; seed = mix(seed)) {
+            int[] displacements = tryBuild(hashes, bucketCount, seed, onDuplicate);
+            if (displacements != null) {
+                return new PerfectHash(n, seed, displacements);
+            }
+        }
+    }
+
+    /**
+     * 哈希在 [0, n) 中的位置; 不在构建集合中的哈希也会得到某个位置
+     */
+    int slot(long hash) {
+        long h = mix(hash ^ seed);
+        int d = displacements[range(h, displacements.length)];
+        return d < 0 ? -d - 1 : range(mix(h + d * 0xC2B2AE3D27D4EB4FL), size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int[] tryBuild(long[] hashes, int bucketCount, long seed, DuplicateHash onDuplicate) {
+        int n = hashes.length;
+        // 按桶做计数排序: members[start[b] .. start[b + 1]) 是桶 b 中键的下标
+        long[] mixed = new long[n];
+        int[] start = new int[bucketCount + 1];
+        for (int i = 0; i < n; i++) {
+            mixed[i] = mix(hashes[i] ^ seed);
+            start[range(mixed[i], bucketCount) + 1]++;
+        }
+        int maxBucket = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            maxBucket = Math.max(maxBucket, start[b + 1]);
+            start[b + 1] += start[b];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(start, bucketCount);
+        for (int i = 0; i < n; i++) {
+            members[fill[range(mixed[i], bucketCount)]++] = i;
+        }
+
+        // 桶按大小降序: 大桶在空位多时更容易放下
+        int[] bySize = new int[maxBucket + 2];
+        for (int b = 0; b < bucketCount; b++) {
+            bySize[maxBucket - (start[b + 1] - start[b]) + 1]++;
+        }
+        for (int s = 0; s <= maxBucket; s++) {
+            bySize[s + 1] += bySize[s];
+        }
+        int[] order = new int[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[bySize[maxBucket - (start[b + 1] - start[b])]++] = b;
+        }
+
+        int[] displacements = new int[bucketCount];
+        long[] taken = new long[(n + 63) >>> 6];
+        int[] slots = new int[maxBucket];
+        int next = 0;
+        for (; next < bucketCount; next++) {
+            int b = order[next];
+            int from = start[b];
+            int count = start[b + 1] - from;
+            if (count <= 1) {
+                break;
+            }
+            checkDistinct(hashes, members, from, count, onDuplicate);
+            int d = 1;
+            while (!fits(mixed, members, from, count, d, n, taken, slots)) {
+                if (++d > MAX_DISPLACEMENT) {
+                    return null;
+                }
+            }
+            for (int k = 0; k < count; k++) {
+                taken[slots[k] >>> 6] |= 1L << slots[k];
+            }
+            displacements[b] = d;
+        }
+        // 剩下的单键桶按顺序填入空位
+        int free = 0;
+        for (; next < bucketCount; next++) {
+            int b = order[next];
+            if (start[b + 1] == start[b]) {
+                break;
+            }
+            while ((taken[free >>> 6] & (1L << free)) != 0) {
+                free++;
+            }
+            taken[free >>> 6] |= 1L << free;
+            displacements[b] = -free - 1;
+        }
+        return displacements;
+    }
+
+    private static boolean fits(long[] mixed, int[] members, int from, int count, int d, int n,
+                                long[] taken, int[] slots) {
+        for (int k = 0; k < count; k++) {
+            int slot = range(mix(mixed[members[from + k]] + d * 0xC2B2AE3D27D4EB4FL), n);
+            if ((taken[slot >>> 6] & (1L << slot)) != 0) {
+                return false;
+            }
+            for (int j = 0; j < k; j++) {
+                if (slots[j] == slot) {
+                    return false;
+                }
+            }
+            slots[k] = slot;
+        }
+        return true;
+    }
+
+    /**
+     * 同一桶内哈希相同的键无论位移多少都会落在同一位置,提前报告
+     */
+    private static void checkDistinct(long[] hashes, int[] members, int from, int count,
+                                      DuplicateHash onDuplicate) {
+        for (int k = 1; k < count; k++) {
+            for (int j = 0; j < k; j++) {
+                if (hashes[members[from + j]] == hashes[members[from + k]]) {
+                    throw onDuplicate.report(members[from + j], members[from + k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 把 64 位哈希的高 32 位均匀映射到 [0, n),用乘法代替取模
+     */
+    private static int range(long hash, int n) {
+        return (int) (((hash >>> 32) * n) >>> 32);
+    }
+
+    /**
+     * SplitMix64 的终结函数
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,183 @@
+package com.javaevolution.jdk11.collection;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 基于最小完美哈希的不可变 long → V 映射,PerfectHashMap 的原始类型键版本
+ *
+ * 键是 long[]、值是 Object[],长度都正好是 n; 查找读一次位移表、比较一次 long,
+ * 键不装箱,也不调用 hashCode / equals。每个条目约 13 字节,
+ * 而 Map&lt;Long, V&gt; 的 Map.copyOf 约 40 字节 (含 Long 对象)
+ *
+ * 不允许 null 值; 重复键抛 IllegalArgumentException; 迭代顺序未指定
+ */
+public final class PerfectHashLongMap<V> {
+
+    private static final PerfectHashLongMap<?> EMPTY = new PerfectHashLongMap<>(null, new long[0], new Object[0]);
+
+    private final PerfectHash hash;
+    private final long[] keys;
+    private final Object[] values;
+
+    private PerfectHashLongMap(PerfectHash hash, long[] keys, Object[] values) {
+        this.hash = hash;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @FunctionalInterface
+    public interface LongObjConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<>(16);
+    }
+
+    public static <V> Builder<V> builder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    /**
+     * 从装箱的 Map 冻结
+     */
+    public static <V> PerfectHashLongMap<V> copyOf(Map<Long, ? extends V> map) {
+        Builder<V> builder = builder(map.size());
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static final class Builder<V> {
+        private long[] keys;
+        private Object[] values;
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+
+        public Builder<V> put(long key, V value) {
+            Objects.requireNonNull(value);
+            if (size == keys.length) {
+                int capacity = keys.length + (keys.length >> 1) + 1;
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        /**
+         * 重复键抛 IllegalArgumentException
+         */
+        @SuppressWarnings("unchecked")
+        public PerfectHashLongMap<V> build() {
+            if (size == 0) {
+                return (PerfectHashLongMap<V>) EMPTY;
+            }
+            long[] hashes = new long[size];
+            for (int i = 0; i < size; i++) {
+                hashes[i] = keys[i];
+            }
+            PerfectHash hash = PerfectHash.build(hashes,
+                (first, second) -> new IllegalArgumentException("duplicate key: " + keys[first]));
+            long[] slotKeys = new long[size];
+            Object[] slotValues = new Object[size];
+            for (int i = 0; i < size; i++) {
+                int slot = hash.slot(keys[i]);
+                slotKeys[slot] = keys[i];
+                slotValues[slot] = values[i];
+            }
+            return new PerfectHashLongMap<>(hash, slotKeys, slotValues);
+        }
+    }
+
+    /**
+     * 键不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (keys.length == 0) {
+            return null;
+        }
+        int slot = hash.slot(key);
+        return keys[slot] == key ? (V) values[slot] : null;
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        V v = get(key);
+        return v != null ? v : defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        return keys.length != 0 && keys[hash.slot(key)] == key;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public long[] keys() {
+        return keys.clone();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjConsumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            action.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    /**
+     * 装箱为有序 Map,便于打印和比较
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, V> toMap() {
+        Map<Long, V> map = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], (V) values[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PerfectHashLongMap)) {
+            return false;
+        }
+        PerfectHashLongMap<?> other = (PerfectHashLongMap<?>) o;
+        if (keys.length != other.keys.length) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (!values[i].equals(other.get(keys[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < keys.length; i++) {
+            h += Long.hashCode(keys[i]) ^ values[i].hashCode();
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,285 @@
+package com.javaevolution.jdk11.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于最小完美哈希的不可变 Map,面向构建一次、查找很多次的大型静态表
+ *
+ * 与 Map.of / Map.copyOf 的区别:
+ * - Map.copyOf 的 MapN 把键值交替存放在 2 倍容量的数组里,查找线性探测
+ * - 这里键和值各一个长度为 n 的扁平数组,加上每 4 个键一个 int 的位移表,
+ *   每个条目约 9 字节 (压缩指针),约为 MapN 的一半、HashMap 的四分之一
+ * - 查找: 一次 hashCode、一次位移表读取、一次 equals,没有探测循环
+ *
+ * hashCode 相同的不同键 (如 "Aa" 与 "BB") 共用一个位置,存成一个小的冲突组顺序比较;
+ * 百万个字符串键中大约只有一百多个这样的组
+ *
+ * 与 Map.of 一致: 不允许 null 键和 null 值,重复键抛 IllegalArgumentException,
+ * 所有修改方法抛 UnsupportedOperationException; 迭代顺序未指定
+ */
+public final class PerfectHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final PerfectHashMap<?, ?> EMPTY =
+        new PerfectHashMap<>(null, new Object[0], new Object[0], 0);
+
+    private final PerfectHash hash;
+    /** slot → 键; hashCode 冲突的位置上是 Collision */
+    private final Object[] keys;
+    /** slot → 值; Collision 位置上不用 */
+    private final Object[] values;
+    private final int size;
+
+    private transient Set<Entry<K, V>> entrySet;
+
+    private PerfectHashMap(PerfectHash hash, Object[] keys, Object[] values, int size) {
+        this.hash = hash;
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * 同一个 hashCode 下的多个键值对
+     */
+    private static final class Collision {
+        final Object[] keys;
+        final Object[] values;
+
+        Collision(Object[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>(16);
+    }
+
+    public static <K, V> Builder<K, V> builder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    /**
+     * 对应 Map.copyOf: 已经是 PerfectHashMap 时直接返回
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PerfectHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PerfectHashMap) {
+            return (PerfectHashMap<K, V>) map;
+        }
+        return PerfectHashMap.<K, V>builder(map.size()).putAll(map).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PerfectHashMap<K, V> of() {
+        return (PerfectHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * 逐个 put,build() 时一次性冻结; build 之后 Builder 仍可继续使用
+     */
+    public static final class Builder<K, V> {
+        private Object[] keys;
+        private Object[] values;
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            keys = new Object[capacity];
+            values = new Object[capacity];
+        }
+
+        public Builder<K, V> put(K key, V value) {
+            Objects.requireNonNull(key);
+            Objects.requireNonNull(value);
+            if (size == keys.length) {
+                int capacity = keys.length + (keys.length >> 1) + 1;
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public Builder<K, V> putAll(Map<? extends K, ? extends V> map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        /**
+         * 重复键抛 IllegalArgumentException
+         */
+        public PerfectHashMap<K, V> build() {
+            if (size == 0) {
+                return of();
+            }
+            // (hashCode, 下标) 打包排序,把 hashCode 相同的键排到一起
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) keys[i].hashCode() << 32) | i;
+            }
+            Arrays.sort(packed);
+            long[] distinct = new long[size];
+            int groups = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || (packed[i] >> 32) != (packed[i - 1] >> 32)) {
+                    distinct[groups++] = packed[i] >> 32;
+                }
+            }
+            // 各组的 hashCode 互不相同,不会报告重复
+            PerfectHash hash = PerfectHash.build(Arrays.copyOf(distinct, groups),
+                (first, second) -> new IllegalArgumentException("duplicate hash code after grouping"));
+
+            Object[] slotKeys = new Object[groups];
+            Object[] slotValues = new Object[groups];
+            for (int from = 0; from < size; ) {
+                int to = from + 1;
+                while (to < size && (packed[to] >> 32) == (packed[from] >> 32)) {
+                    to++;
+                }
+                int slot = hash.slot(packed[from] >> 32);
+                if (to - from == 1) {
+                    int i = (int) packed[from];
+                    slotKeys[slot] = keys[i];
+                    slotValues[slot] = values[i];
+                } else {
+                    slotKeys[slot] = collision(packed, from, to);
+                }
+                from = to;
+            }
+            return new PerfectHashMap<>(hash, slotKeys, slotValues, size);
+        }
+
+        private Collision collision(long[] packed, int from, int to) {
+            Object[] groupKeys = new Object[to - from];
+            Object[] groupValues = new Object[to - from];
+            for (int k = 0; k < groupKeys.length; k++) {
+                int i = (int) packed[from + k];
+                for (int j = 0; j < k; j++) {
+                    if (groupKeys[j].equals(keys[i])) {
+                        throw new IllegalArgumentException("duplicate key: " + keys[i]);
+                    }
+                }
+                groupKeys[k] = keys[i];
+                groupValues[k] = values[i];
+            }
+            return new Collision(groupKeys, groupValues);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (size == 0 || key == null) {
+            return null;
+        }
+        int slot = hash.slot(key.hashCode());
+        Object k = keys[slot];
+        if (k instanceof Collision) {
+            Collision c = (Collision) k;
+            for (int i = 0; i < c.keys.length; i++) {
+                if (c.keys[i].equals(key)) {
+                    return (V) c.values[i];
+                }
+            }
+            return null;
+        }
+        return key.equals(k) ? (V) values[slot] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V v = get(key);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            Object k = keys[slot];
+            if (k instanceof Collision) {
+                Collision c = (Collision) k;
+                for (int i = 0; i < c.keys.length; i++) {
+                    action.accept((K) c.keys[i], (V) c.values[i]);
+                }
+            } else {
+                action.accept((K) k, (V) values[slot]);
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> es = entrySet;
+        if (es == null) {
+            entrySet = es = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return es;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private int slot;
+        /** 当前冲突组内的下一个下标; 不在冲突组内时为 -1 */
+        private int inGroup = -1;
+        private int returned;
+
+        @Override
+        public boolean hasNext() {
+            return returned < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            returned++;
+            Object k = keys[slot];
+            if (k instanceof Collision) {
+                Collision c = (Collision) k;
+                int i = inGroup < 0 ? 0 : inGroup;
+                if (i + 1 < c.keys.length) {
+                    inGroup = i + 1;
+                } else {
+                    inGroup = -1;
+                    slot++;
+                }
+                return new SimpleImmutableEntry<>((K) c.keys[i], (V) c.values[i]);
+            }
+            int s = slot++;
+            return new SimpleImmutableEntry<>((K) k, (V) values[s]);
+        }
+    }
+}
@@ -0,0 +1,673 @@
+package com.javaevolution.jdk11.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * 持久化不可变 Map: 哈希数组映射前缀树 (HAMT,CHAMP 布局)
+ *
+ * Map.copyOf 派生"改了一个键"的新 Map 要复制全部 n 个条目;
+ * 这里 with / without 只复制从根到该键的路径 (最多 7 个节点,每个 ≤ 32 个槽),
+ * 其余子树在新旧版本之间共享,旧版本保持不变,可以被其他线程继续读
+ *
+ * 节点布局: dataMap / nodeMap 两个 32 位位图,content 前部按位序存键值对,
+ * 尾部倒序存子节点; 删除后只剩一个条目的子节点会被内联回父节点,
+ * 所以同一组键总是得到同一棵树
+ *
+ * 批量构建用 builder() / toBuilder(): Builder 持有的节点原地修改,不逐次复制路径;
+ * build() 之后这些节点随结果冻结,Builder 再修改时重新复制
+ *
+ * 与 Map.of 一致: 不允许 null 键和 null 值,所有 Map 修改方法抛 UnsupportedOperationException;
+ * 迭代顺序未指定。entrySet() 的 Spliterator 按子树切分,可直接做并行流的数据源
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    static final int BITS = 5;
+
+    private static final PersistentMap<?, ?> EMPTY =
+        new PersistentMap<>(new BitmapNode(null, 0, 0, new Object[0]), 0);
+
+    private final BitmapNode root;
+    private final int size;
+
+    private transient Set<Entry<K, V>> entrySet;
+
+    private PersistentMap(BitmapNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * 已经是 PersistentMap 时直接返回
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            return (PersistentMap<K, V>) map;
+        }
+        return PersistentMap.<K, V>builder().putAll(map).build();
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return PersistentMap.<K, V>empty().toBuilder();
+    }
+
+    /**
+     * 从当前版本开始批量修改; O(1),路径在第一次修改时才复制
+     */
+    public Builder<K, V> toBuilder() {
+        return new Builder<>(root, size);
+    }
+
+    /**
+     * 返回 key 映射到 value 的新版本; 值未变化时返回 this
+     */
+    public PersistentMap<K, V> with(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Change change = new Change();
+        BitmapNode newRoot = (BitmapNode) root.put(null, key, value, key.hashCode(), 0, change);
+        return change.changed ? new PersistentMap<>(newRoot, size + change.sizeDelta) : this;
+    }
+
+    public PersistentMap<K, V> withAll(Map<? extends K, ? extends V> map) {
+        return toBuilder().putAll(map).build();
+    }
+
+    /**
+     * 返回去掉 key 的新版本; key 不存在时返回 this
+     */
+    public PersistentMap<K, V> without(Object key) {
+        if (key == null) {
+            return this;
+        }
+        Change change = new Change();
+        BitmapNode newRoot = (BitmapNode) root.remove(null, key, key.hashCode(), 0, change);
+        return change.changed ? new PersistentMap<>(newRoot, size - 1) : this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return key == null ? null : (V) root.find(key, key.hashCode(), 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V v = get(key);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        new NodeSpliterator<K>(root, size, (k, v) -> (K) k)
+            .forEachEntry((k, v) -> action.accept((K) k, (V) v));
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> es = entrySet;
+        if (es == null) {
+            entrySet = es = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return Spliterators.iterator(spliterator());
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Spliterator<Entry<K, V>> spliterator() {
+                    return new NodeSpliterator<>(root, size, (k, v) -> new SimpleImmutableEntry<>((K) k, (V) v));
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return es;
+    }
+
+    /**
+     * PersistentSet 的元素即这里的键
+     */
+    @SuppressWarnings("unchecked")
+    Spliterator<K> keySpliterator() {
+        return new NodeSpliterator<>(root, size, (k, v) -> (K) k);
+    }
+
+    /**
+     * 可变的批量构建器,修改自己持有的节点而不复制路径
+     */
+    public static final class Builder<K, V> {
+        /** 节点的所有者标记; 只有 edit 相同的节点可以原地修改 */
+        private Object edit = new Object();
+        private BitmapNode root;
+        private int size;
+
+        private Builder(BitmapNode root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        public Builder<K, V> put(K key, V value) {
+            Objects.requireNonNull(key);
+            Objects.requireNonNull(value);
+            Change change = new Change();
+            root = (BitmapNode) root.put(edit, key, value, key.hashCode(), 0, change);
+            size += change.sizeDelta;
+            return this;
+        }
+
+        public Builder<K, V> putAll(Map<? extends K, ? extends V> map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        public Builder<K, V> remove(Object key) {
+            if (key != null) {
+                Change change = new Change();
+                root = (BitmapNode) root.remove(edit, key, key.hashCode(), 0, change);
+                size += change.sizeDelta;
+            }
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            return key == null ? null : (V) root.find(key, key.hashCode(), 0);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 冻结当前内容; 之后 Builder 仍可继续使用,不影响已返回的版本
+         */
+        public PersistentMap<K, V> build() {
+            edit = new Object();
+            return size == 0 ? empty() : new PersistentMap<>(root, size);
+        }
+    }
+
+    /**
+     * 一次 put / remove 的结果
+     */
+    static final class Change {
+        boolean changed;
+        int sizeDelta;
+    }
+
+    abstract static class Node {
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node put(Object edit, Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node remove(Object edit, Object key, int hash, int shift, Change change);
+
+        /** 直接存放的键值对个数,下标 [0, dataCount) */
+        abstract int dataCount();
+
+        /** 子节点个数,下标 [0, nodeCount) */
+        abstract int nodeCount();
+
+        abstract Object keyAt(int i);
+
+        abstract Object valueAt(int i);
+
+        abstract Node nodeAt(int i);
+
+        final boolean isSingleEntry() {
+            return dataCount() == 1 && nodeCount() == 0;
+        }
+    }
+
+    static final class BitmapNode extends Node {
+        private final Object edit;
+        private int dataMap;
+        private int nodeMap;
+        private Object[] content;
+
+        BitmapNode(Object edit, int dataMap, int nodeMap, Object[] content) {
+            this.edit = edit;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private boolean isEditable(Object edit) {
+            return edit != null && edit == this.edit;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * dataIndex(bit);
+                return key.equals(content[i]) ? content[i + 1] : null;
+            }
+            if ((nodeMap & bit) != 0) {
+                return ((Node) content[nodeIndex(bit)]).find(key, hash, shift + BITS);
+            }
+            return null;
+        }
+
+        @Override
+        Node put(Object edit, Object key, Object value, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * dataIndex(bit);
+                Object k = content[i];
+                if (k.equals(key)) {
+                    if (content[i + 1].equals(value)) {
+                        return this;
+                    }
+                    change.changed = true;
+                    return copyAndSet(edit, i + 1, value);
+                }
+                Node sub = merge(edit, k, content[i + 1], k.hashCode(), key, value, hash, shift + BITS);
+                change.changed = true;
+                change.sizeDelta = 1;
+                return copyAndMigrateToNode(edit, bit, sub);
+            }
+            if ((nodeMap & bit) != 0) {
+                int i = nodeIndex(bit);
+                Node sub = ((Node) content[i]).put(edit, key, value, hash, shift + BITS, change);
+                return change.changed ? copyAndSet(edit, i, sub) : this;
+            }
+            change.changed = true;
+            change.sizeDelta = 1;
+            return copyAndInsertData(edit, bit, key, value);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                if (!key.equals(content[2 * dataIndex(bit)])) {
+                    return this;
+                }
+                change.changed = true;
+                change.sizeDelta = -1;
+                return copyAndRemoveData(edit, bit);
+            }
+            if ((nodeMap & bit) != 0) {
+                int i = nodeIndex(bit);
+                Node sub = ((Node) content[i]).remove(edit, key, hash, shift + BITS, change);
+                if (!change.changed) {
+                    return this;
+                }
+                return sub.isSingleEntry()
+                    ? copyAndMigrateToData(edit, bit, sub.keyAt(0), sub.valueAt(0))
+                    : copyAndSet(edit, i, sub);
+            }
+            return this;
+        }
+
+        /**
+         * 两个在前 shift 位上冲突的条目下沉为一个新子节点; 哈希完全相同时为冲突节点
+         */
+        private static Node merge(Object edit, Object k1, Object v1, int h1,
+                                  Object k2, Object v2, int h2, int shift) {
+            if (h1 == h2) {
+                return new CollisionNode(edit, h1, new Object[]{k1, v1, k2, v2});
+            }
+            int m1 = (h1 >>> shift) & 31;
+            int m2 = (h2 >>> shift) & 31;
+            if (m1 != m2) {
+                Object[] content = m1 < m2 ? new Object[]{k1, v1, k2, v2} : new Object[]{k2, v2, k1, v1};
+                return new BitmapNode(edit, (1 << m1) | (1 << m2), 0, content);
+            }
+            return new BitmapNode(edit, 0, 1 << m1,
+                new Object[]{merge(edit, k1, v1, h1, k2, v2, h2, shift + BITS)});
+        }
+
+        private Node copyAndSet(Object edit, int i, Object value) {
+            if (isEditable(edit)) {
+                content[i] = value;
+                return this;
+            }
+            Object[] c = content.clone();
+            c[i] = value;
+            return new BitmapNode(edit, dataMap, nodeMap, c);
+        }
+
+        private Node copyAndInsertData(Object edit, int bit, Object key, Object value) {
+            int i = 2 * dataIndex(bit);
+            Object[] c = new Object[content.length + 2];
+            System.arraycopy(content, 0, c, 0, i);
+            c[i] = key;
+            c[i + 1] = value;
+            System.arraycopy(content, i, c, i + 2, content.length - i);
+            return update(edit, dataMap | bit, nodeMap, c);
+        }
+
+        private Node copyAndRemoveData(Object edit, int bit) {
+            int i = 2 * dataIndex(bit);
+            Object[] c = new Object[content.length - 2];
+            System.arraycopy(content, 0, c, 0, i);
+            System.arraycopy(content, i + 2, c, i, content.length - i - 2);
+            return update(edit, dataMap ^ bit, nodeMap, c);
+        }
+
+        /** 键值对 (占 2 个槽) 换成子节点 (占 1 个槽,位于尾部) */
+        private Node copyAndMigrateToNode(Object edit, int bit, Node node) {
+            int oldIndex = 2 * dataIndex(bit);
+            int newIndex = content.length - 2 - Integer.bitCount(nodeMap & (bit - 1));
+            Object[] c = new Object[content.length - 1];
+            System.arraycopy(content, 0, c, 0, oldIndex);
+            System.arraycopy(content, oldIndex + 2, c, oldIndex, newIndex - oldIndex);
+            c[newIndex] = node;
+            System.arraycopy(content, newIndex + 2, c, newIndex + 1, content.length - newIndex - 2);
+            return update(edit, dataMap ^ bit, nodeMap | bit, c);
+        }
+
+        /** 只剩一个条目的子节点内联回键值对 */
+        private Node copyAndMigrateToData(Object edit, int bit, Object key, Object value) {
+            int oldIndex = nodeIndex(bit);
+            int newIndex = 2 * dataIndex(bit);
+            Object[] c = new Object[content.length + 1];
+            System.arraycopy(content, 0, c, 0, newIndex);
+            c[newIndex] = key;
+            c[newIndex + 1] = value;
+            System.arraycopy(content, newIndex, c, newIndex + 2, oldIndex - newIndex);
+            System.arraycopy(content, oldIndex + 1, c, oldIndex + 2, content.length - oldIndex - 1);
+            return update(edit, dataMap | bit, nodeMap ^ bit, c);
+        }
+
+        private Node update(Object edit, int dataMap, int nodeMap, Object[] content) {
+            if (isEditable(edit)) {
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.content = content;
+                return this;
+            }
+            return new BitmapNode(edit, dataMap, nodeMap, content);
+        }
+
+        @Override
+        int dataCount() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        int nodeCount() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Object keyAt(int i) {
+            return content[2 * i];
+        }
+
+        @Override
+        Object valueAt(int i) {
+            return content[2 * i + 1];
+        }
+
+        @Override
+        Node nodeAt(int i) {
+            return (Node) content[content.length - 1 - i];
+        }
+    }
+
+    /**
+     * hashCode 完全相同的多个键,顺序比较
+     */
+    static final class CollisionNode extends Node {
+        private final Object edit;
+        private final int hash;
+        private Object[] entries;
+
+        CollisionNode(Object edit, int hash, Object[] entries) {
+            this.edit = edit;
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (entries[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            if (hash != this.hash) {
+                return null;
+            }
+            int i = indexOf(key);
+            return i >= 0 ? entries[i + 1] : null;
+        }
+
+        @Override
+        Node put(Object edit, Object key, Object value, int hash, int shift, Change change) {
+            if (hash != this.hash) {
+                // 前缀相同但哈希不同: 在这一层拆开
+                BitmapNode split = new BitmapNode(edit, 0, 1 << ((this.hash >>> shift) & 31), new Object[]{this});
+                return split.put(edit, key, value, hash, shift, change);
+            }
+            int i = indexOf(key);
+            Object[] e;
+            if (i >= 0) {
+                if (entries[i + 1].equals(value)) {
+                    return this;
+                }
+                e = entries.clone();
+                e[i + 1] = value;
+            } else {
+                e = Arrays.copyOf(entries, entries.length + 2);
+                e[entries.length] = key;
+                e[entries.length + 1] = value;
+                change.sizeDelta = 1;
+            }
+            change.changed = true;
+            if (edit != null && edit == this.edit) {
+                entries = e;
+                return this;
+            }
+            return new CollisionNode(edit, hash, e);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int i = hash == this.hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            Object[] e = new Object[entries.length - 2];
+            System.arraycopy(entries, 0, e, 0, i);
+            System.arraycopy(entries, i + 2, e, i, entries.length - i - 2);
+            change.changed = true;
+            change.sizeDelta = -1;
+            if (edit != null && edit == this.edit) {
+                entries = e;
+                return this;
+            }
+            return new CollisionNode(edit, hash, e);
+        }
+
+        @Override
+        int dataCount() {
+            return entries.length / 2;
+        }
+
+        @Override
+        int nodeCount() {
+            return 0;
+        }
+
+        @Override
+        Object keyAt(int i) {
+            return entries[2 * i];
+        }
+
+        @Override
+        Object valueAt(int i) {
+            return entries[2 * i + 1];
+        }
+
+        @Override
+        Node nodeAt(int i) {
+            throw new IndexOutOfBoundsException(i);
+        }
+    }
+
+    /**
+     * 覆盖一个节点的第 [lo, hi) 项 (先键值对,后子节点); 切分时先对半分项,
+     * 只剩一个子节点时下沉到该子节点再分
+     */
+    static final class NodeSpliterator<T> implements Spliterator<T> {
+        private final BiFunction<Object, Object, T> emit;
+        private Node node;
+        private int lo;
+        private int hi;
+        private long estimate;
+        private boolean exact;
+        /** 正在遍历的子节点 */
+        private NodeSpliterator<T> child;
+
+        NodeSpliterator(Node node, long size, BiFunction<Object, Object, T> emit) {
+            this(node, 0, node.dataCount() + node.nodeCount(), size, true, emit);
+        }
+
+        private NodeSpliterator(Node node, int lo, int hi, long estimate, boolean exact,
+                                BiFunction<Object, Object, T> emit) {
+            this.node = node;
+            this.lo = lo;
+            this.hi = hi;
+            this.estimate = estimate;
+            this.exact = exact;
+            this.emit = emit;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (true) {
+                if (child != null) {
+                    if (child.tryAdvance(action)) {
+                        return true;
+                    }
+                    child = null;
+                }
+                if (lo >= hi) {
+                    return false;
+                }
+                int i = lo++;
+                int data = node.dataCount();
+                if (i < data) {
+                    action.accept(emit.apply(node.keyAt(i), node.valueAt(i)));
+                    return true;
+                }
+                Node sub = node.nodeAt(i - data);
+                child = new NodeSpliterator<>(sub, 0, sub.dataCount() + sub.nodeCount(), 0, false, emit);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            forEachEntry((k, v) -> action.accept(emit.apply(k, v)));
+        }
+
+        void forEachEntry(BiConsumer<Object, Object> action) {
+            if (child != null) {
+                child.forEachEntry(action);
+                child = null;
+            }
+            int data = node.dataCount();
+            for (int i = lo; i < hi; i++) {
+                if (i < data) {
+                    action.accept(node.keyAt(i), node.valueAt(i));
+                } else {
+                    walk(node.nodeAt(i - data), action);
+                }
+            }
+            lo = hi;
+        }
+
+        private static void walk(Node node, BiConsumer<Object, Object> action) {
+            int data = node.dataCount();
+            for (int i = 0; i < data; i++) {
+                action.accept(node.keyAt(i), node.valueAt(i));
+            }
+            for (int i = 0, n = node.nodeCount(); i < n; i++) {
+                walk(node.nodeAt(i), action);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (child != null) {
+                return null;
+            }
+            while (hi - lo == 1 && lo >= node.dataCount()) {
+                node = node.nodeAt(lo - node.dataCount());
+                lo = 0;
+                hi = node.dataCount() + node.nodeCount();
+            }
+            if (hi - lo < 2) {
+                return null;
+            }
+            int mid = (lo + hi) >>> 1;
+            estimate >>>= 1;
+            exact = false;
+            NodeSpliterator<T> prefix = new NodeSpliterator<>(node, lo, mid, estimate, false, emit);
+            lo = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | IMMUTABLE | NONNULL | (exact ? SIZED : 0);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.javaevolution.jdk11.collection;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * 持久化不可变 Set,即只用键的 PersistentMap
+ *
+ * with / without 只复制一条路径,其余部分与旧版本共享;
+ * 不允许 null 元素,修改方法抛 UnsupportedOperationException,迭代顺序未指定
+ */
+public final class PersistentSet<E> extends AbstractSet<E> {
+
+    private static final PersistentSet<?> EMPTY = new PersistentSet<>(PersistentMap.empty());
+
+    private final PersistentMap<E, Boolean> map;
+
+    private PersistentSet(PersistentMap<E, Boolean> map) {
+        this.map = map;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentSet<E> empty() {
+        return (PersistentSet<E>) EMPTY;
+    }
+
+    /**
+     * 已经是 PersistentSet 时直接返回; 重复元素只保留一个
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentSet<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof PersistentSet) {
+            return (PersistentSet<E>) elements;
+        }
+        return PersistentSet.<E>builder().addAll(elements).build();
+    }
+
+    public static <E> Builder<E> builder() {
+        return PersistentSet.<E>empty().toBuilder();
+    }
+
+    public Builder<E> toBuilder() {
+        return new Builder<>(map.toBuilder());
+    }
+
+    /**
+     * 返回加入 e 的新版本; 已包含时返回 this
+     */
+    public PersistentSet<E> with(E e) {
+        PersistentMap<E, Boolean> m = map.with(e, Boolean.TRUE);
+        return m == map ? this : new PersistentSet<>(m);
+    }
+
+    /**
+     * 返回去掉 o 的新版本; 不包含时返回 this
+     */
+    public PersistentSet<E> without(Object o) {
+        PersistentMap<E, Boolean> m = map.without(o);
+        return m == map ? this : new PersistentSet<>(m);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return map.keySpliterator();
+    }
+
+    public static final class Builder<E> {
+        private final PersistentMap.Builder<E, Boolean> map;
+
+        private Builder(PersistentMap.Builder<E, Boolean> map) {
+            this.map = map;
+        }
+
+        public Builder<E> add(E e) {
+            map.put(Objects.requireNonNull(e), Boolean.TRUE);
+            return this;
+        }
+
+        public Builder<E> addAll(Collection<? extends E> elements) {
+            elements.forEach(this::add);
+            return this;
+        }
+
+        public Builder<E> remove(Object o) {
+            map.remove(o);
+            return this;
+        }
+
+        public boolean contains(Object o) {
+            return map.get(o) != null;
+        }
+
+        public int size() {
+            return map.size();
+        }
+
+        public PersistentSet<E> build() {
+            PersistentMap<E, Boolean> m = map.build();
+            return m.isEmpty() ? empty() : new PersistentSet<>(m);
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.javaevolution.jdk11.collection;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * 持久化不可变 List: 32 路基数平衡树 + 尾块 (RRB 向量的平衡部分)
+ *
+ * 元素按下标的 5 位一组逐层定位,所有叶子都是满的 32 元素数组,最后不满的一块单独放在尾块里:
+ * - get / with(i, e): O(log32 n),修改只复制根到叶子的一条路径
+ * - plus / minusLast: 通常只复制尾块,每 32 次才把尾块挂进树
+ * 新旧版本共享未修改的子树; List.copyOf 派生一个修改过的列表则要复制全部 n 个元素
+ *
+ * 批量构建用 builder() / toBuilder(),与 PersistentMap.Builder 一样原地修改自己持有的节点
+ * 不允许 null 元素,List 的修改方法抛 UnsupportedOperationException;
+ * spliterator() 按 32 对齐的下标区间切分,每次取一整块叶子,可直接做并行流的数据源
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Node EMPTY_NODE = new Node(null, new Object[WIDTH]);
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    /** 根节点所在层的位移; 树只有一层叶子时为 5 */
+    private final int shift;
+    private final Node root;
+    /** 最后 1..32 个元素,长度正好是元素数 */
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Node root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * 内部节点或叶子; 数组固定 32 个槽
+     */
+    static final class Node {
+        final Object edit;
+        final Object[] array;
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof PersistentVector) {
+            return (PersistentVector<E>) elements;
+        }
+        return PersistentVector.<E>builder().addAll(elements).build();
+    }
+
+    public static <E> Builder<E> builder() {
+        return PersistentVector.<E>empty().toBuilder();
+    }
+
+    public Builder<E> toBuilder() {
+        return new Builder<>(this);
+    }
+
+    private static int tailOffset(int size) {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * 下标 i 所在的叶子数组 (或尾块)
+     */
+    private Object[] leafFor(int i) {
+        if (i >= tailOffset(size)) {
+            return tail;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(i >>> level) & MASK];
+        }
+        return node.array;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 返回第 index 个元素替换为 e 的新版本
+     */
+    public PersistentVector<E> with(int index, E e) {
+        Objects.checkIndex(index, size);
+        Objects.requireNonNull(e);
+        if (index >= tailOffset(size)) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = e;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(null, shift, root, index, e), tail);
+    }
+
+    /**
+     * 返回在末尾追加 e 的新版本
+     */
+    public PersistentVector<E> plus(E e) {
+        Objects.requireNonNull(e);
+        if (size - tailOffset(size) < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = e;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        Node tailNode = new Node(null, tail);
+        int newShift = shift;
+        Node newRoot;
+        if ((size >>> BITS) > (1 << shift)) {
+            // 根已满,树长高一层
+            newRoot = new Node(null, new Object[WIDTH]);
+            newRoot.array[0] = root;
+            newRoot.array[1] = newPath(null, shift, tailNode);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(null, size, shift, root, tailNode);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{e});
+    }
+
+    public PersistentVector<E> plusAll(Collection<? extends E> elements) {
+        return toBuilder().addAll(elements).build();
+    }
+
+    /**
+     * 返回去掉最后一个元素的新版本
+     */
+    public PersistentVector<E> minusLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset(size) > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // 尾块只剩一个元素: 树中最后一块叶子成为新的尾块
+        Object[] newTail = leafFor(size - 2);
+        Node newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot.array[1] == null) {
+            newRoot = (Node) newRoot.array[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    private Node popTail(int level, Node node) {
+        int i = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Node child = popTail(level - BITS, (Node) node.array[i]);
+            if (child == null && i == 0) {
+                return null;
+            }
+            Node copy = new Node(null, node.array.clone());
+            copy.array[i] = child;
+            return copy;
+        }
+        if (i == 0) {
+            return null;
+        }
+        Node copy = new Node(null, node.array.clone());
+        copy.array[i] = null;
+        return copy;
+    }
+
+    /**
+     * edit 为 null 时总是复制; 否则 edit 所有的节点原地修改
+     */
+    private static Node editable(Object edit, Node node) {
+        return edit != null && node.edit == edit ? node : new Node(edit, node.array.clone());
+    }
+
+    private static Node assoc(Object edit, int level, Node node, int i, Object e) {
+        Node copy = editable(edit, node);
+        if (level == 0) {
+            copy.array[i & MASK] = e;
+        } else {
+            int sub = (i >>> level) & MASK;
+            copy.array[sub] = assoc(edit, level - BITS, (Node) node.array[sub], i, e);
+        }
+        return copy;
+    }
+
+    /**
+     * 把满的尾块挂到树的最右侧; count 是追加前的元素数
+     */
+    private static Node pushTail(Object edit, int count, int level, Node parent, Node tailNode) {
+        Node copy = editable(edit, parent);
+        int i = ((count - 1) >>> level) & MASK;
+        Node insert;
+        if (level == BITS) {
+            insert = tailNode;
+        } else {
+            Node child = (Node) parent.array[i];
+            insert = child != null
+                ? pushTail(edit, count, level - BITS, child, tailNode)
+                : newPath(edit, level - BITS, tailNode);
+        }
+        copy.array[i] = insert;
+        return copy;
+    }
+
+    private static Node newPath(Object edit, int level, Node node) {
+        if (level == 0) {
+            return node;
+        }
+        Node path = new Node(edit, new Object[WIDTH]);
+        path.array[0] = newPath(edit, level - BITS, node);
+        return path;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        for (int base = 0; base < size; base += WIDTH) {
+            Object[] leaf = leafFor(base);
+            for (int j = 0, n = Math.min(WIDTH, size - base); j < n; j++) {
+                action.accept((E) leaf[j]);
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new VectorSpliterator(0, size);
+    }
+
+    /**
+     * 覆盖下标 [index, fence),按整块叶子遍历
+     */
+    private final class VectorSpliterator implements Spliterator<E> {
+        private int index;
+        private final int fence;
+        private Object[] leaf;
+
+        VectorSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (index >= fence) {
+                return false;
+            }
+            if (leaf == null || (index & MASK) == 0) {
+                leaf = leafFor(index);
+            }
+            action.accept((E) leaf[index & MASK]);
+            index++;
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            int i = index;
+            index = fence;
+            while (i < fence) {
+                Object[] block = leafFor(i);
+                int end = Math.min(fence, (i | MASK) + 1);
+                for (; i < end; i++) {
+                    action.accept((E) block[i & MASK]);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = ((index + fence) >>> 1) & ~MASK;
+            if (mid <= index) {
+                return null;
+            }
+            VectorSpliterator prefix = new VectorSpliterator(index, mid);
+            index = mid;
+            leaf = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    /**
+     * 可变的批量构建器: 尾块是 32 槽的可写数组,挂进树的节点归 Builder 所有、原地修改
+     */
+    public static final class Builder<E> {
+        private Object edit = new Object();
+        private int size;
+        private int shift;
+        private Node root;
+        private Object[] tail;
+
+        private Builder(PersistentVector<E> vector) {
+            size = vector.size;
+            shift = vector.shift;
+            root = vector.root;
+            tail = Arrays.copyOf(vector.tail, WIDTH);
+        }
+
+        public Builder<E> add(E e) {
+            Objects.requireNonNull(e);
+            if (size - tailOffset(size) < WIDTH) {
+                tail[size & MASK] = e;
+                size++;
+                return this;
+            }
+            Node tailNode = new Node(edit, tail);
+            tail = new Object[WIDTH];
+            tail[0] = e;
+            if ((size >>> BITS) > (1 << shift)) {
+                Node newRoot = new Node(edit, new Object[WIDTH]);
+                newRoot.array[0] = root;
+                newRoot.array[1] = newPath(edit, shift, tailNode);
+                root = newRoot;
+                shift += BITS;
+            } else {
+                root = pushTail(edit, size, shift, root, tailNode);
+            }
+            size++;
+            return this;
+        }
+
+        public Builder<E> addAll(Collection<? extends E> elements) {
+            elements.forEach(this::add);
+            return this;
+        }
+
+        public Builder<E> set(int index, E e) {
+            Objects.checkIndex(index, size);
+            Objects.requireNonNull(e);
+            if (index >= tailOffset(size)) {
+                tail[index & MASK] = e;
+            } else {
+                root = assoc(edit, shift, root, index, e);
+            }
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            Objects.checkIndex(index, size);
+            if (index >= tailOffset(size)) {
+                return (E) tail[index & MASK];
+            }
+            Node node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                node = (Node) node.array[(index >>> level) & MASK];
+            }
+            return (E) node.array[index & MASK];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 冻结当前内容; 之后 Builder 仍可继续使用,不影响已返回的版本
+         */
+        public PersistentVector<E> build() {
+            edit = new Object();
+            if (size == 0) {
+                return empty();
+            }
+            return new PersistentVector<>(size, shift, root, Arrays.copyOf(tail, size - tailOffset(size)));
+        }
+    }
+}
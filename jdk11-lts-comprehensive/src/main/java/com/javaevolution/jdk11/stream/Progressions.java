@@ -0,0 +1,614 @@
+package com.javaevolution.jdk11.stream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 可切分的数列流: Stream.iterate(seed, hasNext, next) 的并行友好替代
+ *
+ * Stream.iterate 的第 i 项依赖第 i - 1 项,Spliterator 只能按批缓冲元素后再分给其他线程;
+ * 而等差、等比数列的第 i 项有闭式 (seed + i * step、seed * ratio^i),
+ * 任意位置都能直接算出,于是可以按下标对半切分,不缓冲任何元素:
+ * - arithmetic / geometric: 给定上界,项数 O(1) 算出,得到 SIZED | SUBSIZED 的流
+ * - iterateInt / iterateLong + IntStep / LongStep: 识别出 next 是 "加常数" 或 "乘常数" 时,
+ *   只顺序检查 hasNext 找到每一批的长度,元素本身由各线程按闭式生成;
+ *   next 是普通 lambda 时退回 IntStream.iterate
+ *
+ * iterateInt / iterateLong 的整数运算与 iterate 一样按二进制补码回绕,结果与对应的 iterate 逐项相同;
+ * arithmetic 则按不回绕的数值算项数,只给出 seed 到 bound 之间的项 (见各方法说明)。
+ * double 版 geometric 是例外: 为了与逐项相乘逐位相同,各项先算出再按数组切分,项数有上限
+ */
+public final class Progressions {
+
+    /** 与 Spliterators.AbstractSpliterator 相同的批大小增长方式 */
+    private static final int BATCH_UNIT = 1 << 10;
+    private static final int MAX_BATCH = 1 << 25;
+    /** double 版 geometric 预先算出的最大项数 (8 MB) */
+    static final int MAX_GEOMETRIC_TERMS = 1 << 20;
+
+    private Progressions() {
+    }
+
+    /**
+     * seed, seed + step, seed + 2 * step, ... 中位于 bound 之前 (step 为正时小于、为负时大于) 的项,
+     * 结果 SIZED、DISTINCT,step 为正时还是 SORTED
+     *
+     * 与 IntStream.iterate(seed, n -> n < bound, n -> n + step) 不同: 下一项超出 int 范围时这里结束,
+     * 而 iterate 会回绕成负数并继续 (bound 接近 Integer.MAX_VALUE 时可能永不结束)。
+     * 例如 arithmetic(2147483555, 18, Integer.MAX_VALUE) 只有 6 项
+     */
+    public static IntStream arithmetic(int seed, int step, int bound) {
+        if (step == 0) {
+            throw new IllegalArgumentException("step must not be 0");
+        }
+        long distance = step > 0 ? (long) bound - seed : (long) seed - bound;
+        long magnitude = Math.abs((long) step);
+        long count = distance > 0 ? (distance + magnitude - 1) / magnitude : 0;
+        int sorted = step > 0 ? Spliterator.SORTED : 0;
+        return StreamSupport.intStream(
+            new IntStepSpliterator(seed, count, IntStep.plus(step), Spliterator.DISTINCT | sorted), false);
+    }
+
+    /**
+     * long 版本的 arithmetic,同样在超出 long 范围前结束而不回绕;
+     * 项数超过 Long.MAX_VALUE 时抛 IllegalArgumentException
+     */
+    public static LongStream arithmetic(long seed, long step, long bound) {
+        if (step == 0) {
+            throw new IllegalArgumentException("step must not be 0");
+        }
+        // bound 与 seed 之差可能超出 long,按无符号数计算
+        boolean nonEmpty = step > 0 ? seed < bound : seed > bound;
+        long count = 0;
+        if (nonEmpty) {
+            long distance = step > 0 ? bound - seed : seed - bound;
+            long magnitude = step == Long.MIN_VALUE ? step : Math.abs(step);
+            count = Long.divideUnsigned(distance - 1, magnitude) + 1;
+            if (count < 0) {
+                throw new IllegalArgumentException("progression has more than Long.MAX_VALUE terms");
+            }
+        }
+        int sorted = step > 0 ? Spliterator.SORTED : 0;
+        return StreamSupport.longStream(
+            new LongStepSpliterator(seed, count, LongStep.plus(step), Spliterator.DISTINCT | sorted), false);
+    }
+
+    /**
+     * 第 i 项按 seed + i * step 直接计算,不逐项累加,因此不会累积舍入误差;
+     * 这一点与 DoubleStream.iterate(seed, ..., x -> x + step) 的结果可能在末位不同
+     */
+    public static DoubleStream arithmetic(double seed, double step, double bound) {
+        if (step == 0 || !Double.isFinite(step) || !Double.isFinite(seed) || Double.isNaN(bound)) {
+            throw new IllegalArgumentException("seed and step must be finite and step non-zero");
+        }
+        double terms = Math.ceil((bound - seed) / step);
+        if (!(terms <= Long.MAX_VALUE)) {
+            throw new IllegalArgumentException("progression has more than Long.MAX_VALUE terms");
+        }
+        long count = Math.max(0, (long) terms);
+        // 商的舍入可能多算或少算一项,按闭式逐项校正
+        while (count > 0 && !before(seed + (count - 1) * step, step, bound)) {
+            count--;
+        }
+        while (before(seed + count * step, step, bound)) {
+            count++;
+        }
+        return StreamSupport.doubleStream(new DoubleArithmeticSpliterator(seed, step, 0, count), false);
+    }
+
+    private static boolean before(double value, double step, double bound) {
+        return step > 0 ? value < bound : value > bound;
+    }
+
+    /**
+     * seed, seed * ratio, seed * ratio^2, ... 中小于 bound 的项; 要求 seed &gt; 0、ratio &gt; 1,
+     * 最多 63 项
+     */
+    public static LongStream geometric(long seed, long ratio, long bound) {
+        if (seed <= 0 || ratio <= 1) {
+            throw new IllegalArgumentException("geometric progression needs seed > 0 and ratio > 1");
+        }
+        long count = 0;
+        for (long term = seed; term < bound; count++) {
+            if (term > Long.MAX_VALUE / ratio) {
+                count++;
+                break;
+            }
+            term *= ratio;
+        }
+        return StreamSupport.longStream(
+            new LongStepSpliterator(seed, count, LongStep.times(ratio), Spliterator.DISTINCT | Spliterator.SORTED),
+            false);
+    }
+
+    /**
+     * 逐项相乘得到各项,与 DoubleStream.iterate(seed, x -> x &lt; bound, x -> x * ratio) 逐位相同;
+     * 各项先算出再按数组切分,因此项数不能超过 MAX_GEOMETRIC_TERMS (2^20),
+     * 否则抛 IllegalArgumentException。ratio ≥ 2 时整个 double 范围也只有约两千项,
+     * ratio 很接近 1 时 (如 1.0000001) 应改用 arithmetic 生成指数再取 Math.pow
+     */
+    public static DoubleStream geometric(double seed, double ratio, double bound) {
+        if (!(seed > 0) || !(ratio > 1) || Double.isInfinite(ratio)) {
+            throw new IllegalArgumentException("geometric progression needs seed > 0 and finite ratio > 1");
+        }
+        // 先按对数估计项数,明显超限时不逐项计算
+        double estimate = (Math.log(Math.min(bound, Double.MAX_VALUE)) - Math.log(seed)) / Math.log(ratio);
+        if (estimate > MAX_GEOMETRIC_TERMS + 1) {
+            throw tooManyTerms();
+        }
+        double[] terms = new double[16];
+        int count = 0;
+        for (double term = seed; term < bound && !Double.isInfinite(term); term *= ratio) {
+            if (count == terms.length) {
+                if (count == MAX_GEOMETRIC_TERMS) {
+                    throw tooManyTerms();
+                }
+                terms = Arrays.copyOf(terms, Math.min(count * 2, MAX_GEOMETRIC_TERMS));
+            }
+            terms[count++] = term;
+        }
+        return Arrays.stream(terms, 0, count);
+    }
+
+    private static IllegalArgumentException tooManyTerms() {
+        return new IllegalArgumentException(
+            "geometric progression has more than " + MAX_GEOMETRIC_TERMS + " terms");
+    }
+
+    /**
+     * IntStream.iterate(seed, hasNext, next) 的可切分版本
+     * next 为 IntStep.plus / IntStep.times 时识别为等差/等比: 调用线程只检查 hasNext,
+     * 元素由处理各批的线程按闭式生成; 否则等同于 IntStream.iterate
+     * 与 iterate 一样,hasNext 第一次为 false 时结束,之后的项不再检查
+     */
+    public static IntStream iterateInt(int seed, IntPredicate hasNext, IntUnaryOperator next) {
+        if (!(next instanceof IntStep)) {
+            return IntStream.iterate(seed, hasNext, next);
+        }
+        return StreamSupport.intStream(new IntWhileSpliterator(seed, hasNext, (IntStep) next), false);
+    }
+
+    /**
+     * long 版本的 iterateInt
+     */
+    public static LongStream iterateLong(long seed, LongPredicate hasNext, LongUnaryOperator next) {
+        if (!(next instanceof LongStep)) {
+            return LongStream.iterate(seed, hasNext, next);
+        }
+        return StreamSupport.longStream(new LongWhileSpliterator(seed, hasNext, (LongStep) next), false);
+    }
+
+    /**
+     * 可识别的 int 步进: 加常数或乘常数,能在 O(log k) 内前进 k 步
+     */
+    public static final class IntStep implements IntUnaryOperator {
+        private final boolean multiply;
+        private final int operand;
+
+        private IntStep(boolean multiply, int operand) {
+            this.multiply = multiply;
+            this.operand = operand;
+        }
+
+        /** n -> n + delta */
+        public static IntStep plus(int delta) {
+            return new IntStep(false, delta);
+        }
+
+        /** n -> n * ratio */
+        public static IntStep times(int ratio) {
+            return new IntStep(true, ratio);
+        }
+
+        @Override
+        public int applyAsInt(int n) {
+            return multiply ? n * operand : n + operand;
+        }
+
+        /**
+         * 连续应用 k 次; 回绕乘法满足结合律,与逐次应用结果相同
+         */
+        int jump(int n, long k) {
+            if (!multiply) {
+                return n + (int) k * operand;
+            }
+            int power = 1;
+            for (int base = operand; k > 0; k >>>= 1, base *= base) {
+                if ((k & 1) != 0) {
+                    power *= base;
+                }
+            }
+            return n * power;
+        }
+    }
+
+    /**
+     * 可识别的 long 步进
+     */
+    public static final class LongStep implements LongUnaryOperator {
+        private final boolean multiply;
+        private final long operand;
+
+        private LongStep(boolean multiply, long operand) {
+            this.multiply = multiply;
+            this.operand = operand;
+        }
+
+        /** n -> n + delta */
+        public static LongStep plus(long delta) {
+            return new LongStep(false, delta);
+        }
+
+        /** n -> n * ratio */
+        public static LongStep times(long ratio) {
+            return new LongStep(true, ratio);
+        }
+
+        @Override
+        public long applyAsLong(long n) {
+            return multiply ? n * operand : n + operand;
+        }
+
+        long jump(long n, long k) {
+            if (!multiply) {
+                return n + k * operand;
+            }
+            long power = 1;
+            for (long base = operand; k > 0; k >>>= 1, base *= base) {
+                if ((k & 1) != 0) {
+                    power *= base;
+                }
+            }
+            return n * power;
+        }
+    }
+
+    /**
+     * 从 first 开始的 count 项; 切分时用 jump 直接算出后半段的首项
+     */
+    static final class IntStepSpliterator implements Spliterator.OfInt {
+        private int first;
+        private long count;
+        private final IntStep step;
+        private final int characteristics;
+
+        IntStepSpliterator(int first, long count, IntStep step, int extraCharacteristics) {
+            this.first = first;
+            this.count = count;
+            this.step = step;
+            this.characteristics = ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL | extraCharacteristics;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (count <= 0) {
+                return false;
+            }
+            action.accept(first);
+            first = step.applyAsInt(first);
+            count--;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int v = first;
+            for (long n = count; n > 0; n--) {
+                action.accept(v);
+                v = step.applyAsInt(v);
+            }
+            first = v;
+            count = 0;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            long half = count >>> 1;
+            if (half == 0) {
+                return null;
+            }
+            IntStepSpliterator prefix = new IntStepSpliterator(first, half, step, characteristics);
+            first = step.jump(first, half);
+            count -= half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return count;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            if (hasCharacteristics(SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    static final class LongStepSpliterator implements Spliterator.OfLong {
+        private long first;
+        private long count;
+        private final LongStep step;
+        private final int characteristics;
+
+        LongStepSpliterator(long first, long count, LongStep step, int extraCharacteristics) {
+            this.first = first;
+            this.count = count;
+            this.step = step;
+            this.characteristics = ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL | extraCharacteristics;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (count <= 0) {
+                return false;
+            }
+            action.accept(first);
+            first = step.applyAsLong(first);
+            count--;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            long v = first;
+            for (long n = count; n > 0; n--) {
+                action.accept(v);
+                v = step.applyAsLong(v);
+            }
+            first = v;
+            count = 0;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long half = count >>> 1;
+            if (half == 0) {
+                return null;
+            }
+            LongStepSpliterator prefix = new LongStepSpliterator(first, half, step, characteristics);
+            first = step.jump(first, half);
+            count -= half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return count;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            if (hasCharacteristics(SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * 第 index .. fence - 1 项,每项 seed + i * step
+     */
+    static final class DoubleArithmeticSpliterator implements Spliterator.OfDouble {
+        private final double seed;
+        private final double step;
+        private long index;
+        private final long fence;
+
+        DoubleArithmeticSpliterator(double seed, double step, long index, long fence) {
+            this.seed = seed;
+            this.step = step;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(seed + index++ * step);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            for (long i = index; i < fence; i++) {
+                action.accept(seed + i * step);
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            long mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            DoubleArithmeticSpliterator prefix = new DoubleArithmeticSpliterator(seed, step, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    /**
+     * 长度未知的 iterate: 切分时顺序检查 hasNext 确定下一批的长度,
+     * 把这一批作为 IntStepSpliterator 交出去,不缓冲元素
+     */
+    static final class IntWhileSpliterator implements Spliterator.OfInt {
+        private int next;
+        private final IntPredicate hasNext;
+        private final IntStep step;
+        private boolean finished;
+        private int batch;
+
+        IntWhileSpliterator(int seed, IntPredicate hasNext, IntStep step) {
+            this.next = seed;
+            this.hasNext = hasNext;
+            this.step = step;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (finished || !hasNext.test(next)) {
+                finished = true;
+                return false;
+            }
+            int v = next;
+            next = step.applyAsInt(v);
+            action.accept(v);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            for (int v = next; hasNext.test(v); v = step.applyAsInt(v)) {
+                action.accept(v);
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            if (finished) {
+                return null;
+            }
+            int n = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+            int v = next;
+            int found = 0;
+            while (found < n && hasNext.test(v)) {
+                v = step.applyAsInt(v);
+                found++;
+            }
+            if (found < n) {
+                // 已经遇到 hasNext 为 false 的项,剩余部分为空
+                finished = true;
+            }
+            if (found == 0) {
+                return null;
+            }
+            batch = found;
+            IntStepSpliterator prefix = new IntStepSpliterator(next, found, step, 0);
+            next = v;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return finished ? 0 : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    static final class LongWhileSpliterator implements Spliterator.OfLong {
+        private long next;
+        private final LongPredicate hasNext;
+        private final LongStep step;
+        private boolean finished;
+        private int batch;
+
+        LongWhileSpliterator(long seed, LongPredicate hasNext, LongStep step) {
+            this.next = seed;
+            this.hasNext = hasNext;
+            this.step = step;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (finished || !hasNext.test(next)) {
+                finished = true;
+                return false;
+            }
+            long v = next;
+            next = step.applyAsLong(v);
+            action.accept(v);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            for (long v = next; hasNext.test(v); v = step.applyAsLong(v)) {
+                action.accept(v);
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            if (finished) {
+                return null;
+            }
+            int n = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+            long v = next;
+            int found = 0;
+            while (found < n && hasNext.test(v)) {
+                v = step.applyAsLong(v);
+                found++;
+            }
+            if (found < n) {
+                finished = true;
+            }
+            if (found == 0) {
+                return null;
+            }
+            batch = found;
+            LongStepSpliterator prefix = new LongStepSpliterator(next, found, step, 0);
+            next = v;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return finished ? 0 : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | IMMUTABLE | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.javaevolution.jdk11.stream;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 已排序数据源上的 takeWhile / dropWhile: 用查找定位切点,而不是逐个检查
+ *
+ * Stream.takeWhile / dropWhile 不知道数据源有序,只能从头逐个测试谓词,O(n);
+ * 数据源已按升序排好、谓词在某个前缀上成立 (例如按时间排序的日志 + "时间早于 t") 时,
+ * 切点可以用倍增 (galloping) + 二分查找在 O(log k) 次谓词调用内找到,k 为切点位置,
+ * 之后直接返回切点两侧的子区间
+ *
+ * 返回的流报告 SORTED (以及 SIZED、SUBSIZED),下游的 sorted() 不再排序,
+ * 可以继续切分做并行处理
+ *
+ * 约定: 调用方保证数组/列表已按升序 (或给定比较器) 排好,谓词在前缀上为 true、之后为 false;
+ * 不满足时结果未定义。不支持随机访问的 List 退回到 Stream.takeWhile / dropWhile
+ */
+public final class SortedStreams {
+
+    private SortedStreams() {
+    }
+
+    // ---------------------------------------------------------------- 数据源
+
+    /**
+     * 已升序排列的 int 数组; 等同于 IntStream.of,但报告 SORTED
+     */
+    public static IntStream of(int[] sorted) {
+        return of(sorted, 0, sorted.length);
+    }
+
+    public static IntStream of(int[] sorted, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, sorted.length);
+        return StreamSupport.intStream(new SortedIntSpliterator(sorted, fromIndex, toIndex), false);
+    }
+
+    public static LongStream of(long[] sorted) {
+        return of(sorted, 0, sorted.length);
+    }
+
+    public static LongStream of(long[] sorted, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, sorted.length);
+        return StreamSupport.longStream(new SortedLongSpliterator(sorted, fromIndex, toIndex), false);
+    }
+
+    /**
+     * 已按 comparator 排好的随机访问列表; comparator 为 null 表示自然顺序
+     * 遍历期间列表不能被修改
+     */
+    public static <T> Stream<T> of(List<T> sorted, Comparator<? super T> comparator) {
+        return StreamSupport.stream(new SortedListSpliterator<>(sorted, 0, sorted.size(), comparator), false);
+    }
+
+    // ---------------------------------------------------------------- int[]
+
+    /**
+     * 等同于 of(sorted).takeWhile(p),切点 O(log k) 定位
+     */
+    public static IntStream takeWhile(int[] sorted, IntPredicate p) {
+        return of(sorted, 0, firstFalse(0, sorted.length, i -> p.test(sorted[i])));
+    }
+
+    /**
+     * 等同于 of(sorted).dropWhile(p)
+     */
+    public static IntStream dropWhile(int[] sorted, IntPredicate p) {
+        return of(sorted, firstFalse(0, sorted.length, i -> p.test(sorted[i])), sorted.length);
+    }
+
+    /**
+     * 取值在 [fromInclusive, toExclusive) 内的元素
+     */
+    public static IntStream range(int[] sorted, int fromInclusive, int toExclusive) {
+        int from = lowerBound(sorted, 0, sorted.length, fromInclusive);
+        return of(sorted, from, lowerBound(sorted, from, sorted.length, toExclusive));
+    }
+
+    // ---------------------------------------------------------------- long[]
+
+    public static LongStream takeWhile(long[] sorted, LongPredicate p) {
+        return of(sorted, 0, firstFalse(0, sorted.length, i -> p.test(sorted[i])));
+    }
+
+    public static LongStream dropWhile(long[] sorted, LongPredicate p) {
+        return of(sorted, firstFalse(0, sorted.length, i -> p.test(sorted[i])), sorted.length);
+    }
+
+    /**
+     * 取值在 [fromInclusive, toExclusive) 内的元素; 例如按时间戳排序的日志取一个时间窗口
+     */
+    public static LongStream range(long[] sorted, long fromInclusive, long toExclusive) {
+        int from = firstFalse(0, sorted.length, i -> sorted[i] < fromInclusive);
+        return of(sorted, from, firstFalse(from, sorted.length, i -> sorted[i] < toExclusive));
+    }
+
+    // ---------------------------------------------------------------- List
+
+    /**
+     * sorted 需已按 comparator 排好 (null 表示自然顺序); 列表不支持随机访问时退回 Stream.takeWhile
+     */
+    public static <T> Stream<T> takeWhile(List<T> sorted, Comparator<? super T> comparator,
+                                          Predicate<? super T> p) {
+        if (!(sorted instanceof RandomAccess)) {
+            return sorted.stream().takeWhile(p);
+        }
+        int cut = firstFalse(0, sorted.size(), i -> p.test(sorted.get(i)));
+        return StreamSupport.stream(new SortedListSpliterator<>(sorted, 0, cut, comparator), false);
+    }
+
+    public static <T> Stream<T> dropWhile(List<T> sorted, Comparator<? super T> comparator,
+                                          Predicate<? super T> p) {
+        if (!(sorted instanceof RandomAccess)) {
+            return sorted.stream().dropWhile(p);
+        }
+        int cut = firstFalse(0, sorted.size(), i -> p.test(sorted.get(i)));
+        return StreamSupport.stream(new SortedListSpliterator<>(sorted, cut, sorted.size(), comparator), false);
+    }
+
+    // ---------------------------------------------------------------- NavigableSet
+
+    /**
+     * 小于 bound 的元素; headSet 在树上 O(log n) 定位,TreeSet 的 Spliterator 本身报告 SORTED
+     */
+    public static <T> Stream<T> takeWhileBelow(NavigableSet<T> set, T bound) {
+        return set.headSet(bound, false).stream();
+    }
+
+    /**
+     * 不小于 bound 的元素
+     */
+    public static <T> Stream<T> dropWhileBelow(NavigableSet<T> set, T bound) {
+        return set.tailSet(bound, true).stream();
+    }
+
+    // ---------------------------------------------------------------- 查找
+
+    /**
+     * [from, to) 中第一个 holds 为 false 的下标,全部成立时返回 to
+     * 先按 1, 2, 4, ... 的步长倍增探测,再在最后一段里二分; 谓词调用 O(log k) 次
+     */
+    static int firstFalse(int from, int to, IntPredicate holds) {
+        int lo = from;
+        long probe = from;
+        for (long step = 1; probe < to && holds.test((int) probe); step <<= 1) {
+            lo = (int) probe + 1;
+            probe = from + (step << 1) - 1;
+        }
+        int hi = (int) Math.min(probe, to);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (holds.test(mid)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int lowerBound(int[] sorted, int from, int to, int key) {
+        return firstFalse(from, to, i -> sorted[i] < key);
+    }
+
+    /**
+     * 覆盖 [index, fence) 的升序 int 数组区间
+     */
+    static final class SortedIntSpliterator implements Spliterator.OfInt {
+        private final int[] array;
+        private int index;
+        private final int fence;
+
+        SortedIntSpliterator(int[] array, int index, int fence) {
+            this.array = array;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(array[index++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int[] a = array;
+            for (int i = index; i < fence; i++) {
+                action.accept(a[i]);
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int mid = (index + fence) >>> 1;
+            return mid <= index ? null : new SortedIntSpliterator(array, index, index = mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+
+    static final class SortedLongSpliterator implements Spliterator.OfLong {
+        private final long[] array;
+        private int index;
+        private final int fence;
+
+        SortedLongSpliterator(long[] array, int index, int fence) {
+            this.array = array;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(array[index++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            long[] a = array;
+            for (int i = index; i < fence; i++) {
+                action.accept(a[i]);
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int mid = (index + fence) >>> 1;
+            return mid <= index ? null : new SortedLongSpliterator(array, index, index = mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+    }
+
+    /**
+     * 覆盖随机访问列表 [index, fence) 的有序区间
+     */
+    static final class SortedListSpliterator<T> implements Spliterator<T> {
+        private final List<T> list;
+        private int index;
+        private final int fence;
+        private final Comparator<? super T> comparator;
+
+        SortedListSpliterator(List<T> list, int index, int fence, Comparator<? super T> comparator) {
+            this.list = list;
+            this.index = index;
+            this.fence = fence;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(list.get(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            for (int i = index; i < fence; i++) {
+                action.accept(list.get(i));
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + fence) >>> 1;
+            return mid <= index ? null : new SortedListSpliterator<>(list, index, index = mid, comparator);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | SIZED | SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return comparator;
+        }
+    }
+}
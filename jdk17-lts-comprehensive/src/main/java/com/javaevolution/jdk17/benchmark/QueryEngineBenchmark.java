@@ -0,0 +1,92 @@
+package com.javaevolution.jdk17.benchmark;
+
+import com.javaevolution.jdk17.query.Query;
+import com.javaevolution.jdk17.query.UserOrders;
+import com.javaevolution.jdk17.query.UserOrders.Order;
+import com.javaevolution.jdk17.query.UserOrders.User;
+import com.javaevolution.jdk17.query.UserOrders.UserOrder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * JMH 基准测试: TextBlocksDemo.sqlExample 的 JOIN + WHERE + ORDER BY + LIMIT 查询,1000 万订单
+ * streamSorted 是"手写 Stream"的常见写法 (HashMap 连接 + sorted().limit()),
+ * query / querySequential 是 Query 引擎的并行与顺序执行; groupBy* 对比 GROUP BY 聚合
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class QueryEngineBenchmark {
+
+    @Param({"10000000"})
+    private int orderCount;
+
+    @Param({"1000000"})
+    private int userCount;
+
+    private List<User> users;
+    private List<Order> orders;
+
+    @Setup
+    public void setup() {
+        users = UserOrders.users(userCount, 42);
+        orders = UserOrders.orders(orderCount, userCount, 43);
+    }
+
+    @Benchmark
+    public List<UserOrder> streamSorted() {
+        Map<Long, User> active = users.stream()
+            .filter(u -> u.status().equals("active"))
+            .collect(Collectors.toMap(User::id, Function.identity()));
+        return orders.stream()
+            .filter(o -> o.total() > 100)
+            .filter(o -> active.containsKey(o.userId()))
+            .map(o -> UserOrder.of(active.get(o.userId()), o))
+            .sorted(Comparator.comparingLong(UserOrder::createdAt).reversed())
+            .limit(10)
+            .toList();
+    }
+
+    @Benchmark
+    public List<UserOrder> query() {
+        return UserOrders.latestActiveOrders(Query.from(users), Query.from(orders), 10);
+    }
+
+    @Benchmark
+    public List<UserOrder> querySequential() {
+        return UserOrders.latestActiveOrders(Query.from(users).sequential(), Query.from(orders).sequential(), 10);
+    }
+
+    @Benchmark
+    public Map<String, DoubleSummaryStatistics> groupByStream() {
+        Map<Long, User> byId = users.stream().collect(Collectors.toMap(User::id, Function.identity()));
+        return orders.stream().collect(Collectors.groupingBy(o -> byId.get(o.userId()).status(),
+            Collectors.summarizingDouble(Order::total)));
+    }
+
+    @Benchmark
+    public List<Query.Group<String, DoubleSummaryStatistics>> groupByQuery() {
+        return UserOrders.revenueByStatus(Query.from(users), Query.from(orders));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(QueryEngineBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
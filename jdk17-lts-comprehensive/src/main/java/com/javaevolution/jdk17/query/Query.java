@@ -0,0 +1,279 @@
+package com.javaevolution.jdk17.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 基于 Stream 和 Record 的内存查询引擎
+ *
+ * 把 TextBlocksDemo.RealWorldUsage.sqlExample 中的 SQL 形状翻译成链式调用:
+ * <pre>
+ * Query.from(users).filter(u -&gt; u.status().equals("active"))             // FROM users WHERE ...
+ *     .join(Query.from(orders).filter(o -&gt; o.total() &gt; 100),            // INNER JOIN orders
+ *           User::id, Order::userId, UserOrder::of)                      //   ON u.id = o.user_id
+ *     .orderBy(Comparator.comparingLong(UserOrder::createdAt).reversed()) // ORDER BY ... DESC
+ *     .limit(10)                                                         // LIMIT 10
+ *     .toList();
+ * </pre>
+ *
+ * 查询是惰性的、可重复执行的计划,只在 toList / stream / count / forEach 时求值;
+ * 默认在公共 ForkJoinPool 上并行执行:
+ * 1. join: 哈希连接,在估计行数较小的一侧建 ConcurrentHashMap,另一侧并行探测 (mapMulti 无中间流)
+ * 2. orderBy + limit: 每个线程维护大小为 limit 的有界堆,合并后排序,不对全量数据排序
+ * 3. groupBy: Collectors.groupingBy,每个线程各自聚合后合并
+ *
+ * 与 SQL 一致,连接键为 null 的行不参与连接
+ */
+public final class Query<T> {
+
+    /**
+     * limit 超过该值时退化为 sorted().limit(),避免每个线程维护巨大的堆
+     */
+    private static final long MAX_HEAP_LIMIT = 1 << 16;
+    private static final long NO_LIMIT = -1;
+
+    private final Supplier<Stream<T>> source;
+    private final long estimatedSize;
+    private final boolean parallel;
+    private final Comparator<? super T> order;
+    private final long limit;
+
+    private Query(Supplier<Stream<T>> source, long estimatedSize, boolean parallel,
+                  Comparator<? super T> order, long limit) {
+        this.source = source;
+        this.estimatedSize = estimatedSize;
+        this.parallel = parallel;
+        this.order = order;
+        this.limit = limit;
+    }
+
+    private Query(Supplier<Stream<T>> source, long estimatedSize, boolean parallel) {
+        this(source, estimatedSize, parallel, null, NO_LIMIT);
+    }
+
+    /**
+     * 以集合为表,默认并行执行
+     */
+    public static <T> Query<T> from(Collection<T> table) {
+        Objects.requireNonNull(table);
+        return new Query<>(table::stream, table.size(), true);
+    }
+
+    public Query<T> sequential() {
+        return new Query<>(source, estimatedSize, false, order, limit);
+    }
+
+    public Query<T> parallel() {
+        return new Query<>(source, estimatedSize, true, order, limit);
+    }
+
+    // ==================== 算子 ====================
+
+    /**
+     * WHERE
+     */
+    public Query<T> filter(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        return new Query<>(() -> pipeline().filter(predicate), estimatedSize, parallel);
+    }
+
+    /**
+     * SELECT 投影
+     */
+    public <R> Query<R> map(Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return new Query<R>(() -> pipeline().map(mapper), estimatedSize, parallel);
+    }
+
+    /**
+     * INNER JOIN ... ON key(this) = otherKey(other)
+     * 较小的一侧 (按 from 时的行数估计) 作为构建侧,结果行数估计取较大的一侧
+     */
+    public <U, K, R> Query<R> join(Query<U> other,
+                                   Function<? super T, ? extends K> key,
+                                   Function<? super U, ? extends K> otherKey,
+                                   BiFunction<? super T, ? super U, ? extends R> combiner) {
+        Objects.requireNonNull(other);
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(otherKey);
+        Objects.requireNonNull(combiner);
+        long size = Math.max(estimatedSize, other.estimatedSize);
+        if (estimatedSize <= other.estimatedSize) {
+            return new Query<R>(() -> hashJoin(this, key, other, otherKey, combiner), size, parallel);
+        }
+        return new Query<R>(() -> hashJoin(other, otherKey, this, key, (u, t) -> combiner.apply(t, u)),
+            size, parallel);
+    }
+
+    /**
+     * GROUP BY key,每组用 aggregate 聚合; HAVING 即在结果上继续 filter
+     */
+    public <K, V> Query<Group<K, V>> groupBy(Function<? super T, ? extends K> key,
+                                             Collector<? super T, ?, V> aggregate) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(aggregate);
+        return new Query<>(() -> pipeline().collect(Collectors.groupingBy(key, aggregate))
+            .entrySet().stream()
+            .map(e -> new Group<K, V>(e.getKey(), e.getValue())), estimatedSize, parallel);
+    }
+
+    /**
+     * ORDER BY; 在 limit 之后调用时先执行 limit 再排序
+     */
+    public Query<T> orderBy(Comparator<? super T> comparator) {
+        Objects.requireNonNull(comparator);
+        if (limit != NO_LIMIT) {
+            return new Query<>(this::pipeline, estimatedSize, parallel, comparator, NO_LIMIT);
+        }
+        return new Query<>(source, estimatedSize, parallel, comparator, NO_LIMIT);
+    }
+
+    /**
+     * LIMIT; 没有 orderBy 时与 SQL 一样返回任意 n 行
+     */
+    public Query<T> limit(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("limit must be >= 0: " + n);
+        }
+        long newLimit = limit == NO_LIMIT ? n : Math.min(limit, n);
+        return new Query<>(source, Math.min(estimatedSize, newLimit), parallel, order, newLimit);
+    }
+
+    // ==================== 终端操作 ====================
+
+    public List<T> toList() {
+        return pipeline().toList();
+    }
+
+    public Stream<T> stream() {
+        return pipeline();
+    }
+
+    public long count() {
+        return pipeline().count();
+    }
+
+    public void forEach(Consumer<? super T> action) {
+        pipeline().forEach(action);
+    }
+
+    // ==================== 执行 ====================
+
+    private Stream<T> pipeline() {
+        Stream<T> stream = source.get();
+        stream = parallel ? stream.parallel() : stream.sequential();
+        if (order != null && limit != NO_LIMIT && limit <= MAX_HEAP_LIMIT) {
+            return topK(stream, order, (int) limit).stream();
+        }
+        if (order != null) {
+            stream = stream.sorted(order);
+            return limit != NO_LIMIT ? stream.limit(limit) : stream;
+        }
+        return limit != NO_LIMIT ? stream.unordered().limit(limit) : stream;
+    }
+
+    private static <B, P, K, R> Stream<R> hashJoin(Query<B> build, Function<? super B, ? extends K> buildKey,
+                                                   Query<P> probe, Function<? super P, ? extends K> probeKey,
+                                                   BiFunction<? super B, ? super P, ? extends R> combiner) {
+        ConcurrentHashMap<K, Object> table = new ConcurrentHashMap<>();
+        build.pipeline().forEach(row -> {
+            K k = buildKey.apply(row);
+            if (k != null) {
+                table.merge(k, row, Bucket::merge);
+            }
+        });
+        return probe.pipeline().mapMulti((row, sink) -> {
+            K k = probeKey.apply(row);
+            Object match = k == null ? null : table.get(k);
+            if (match instanceof Bucket bucket) {
+                for (Object b : bucket.rows) {
+                    @SuppressWarnings("unchecked")
+                    B buildRow = (B) b;
+                    sink.accept(combiner.apply(buildRow, row));
+                }
+            } else if (match != null) {
+                @SuppressWarnings("unchecked")
+                B buildRow = (B) match;
+                sink.accept(combiner.apply(buildRow, row));
+            }
+        });
+    }
+
+    private static <T> List<T> topK(Stream<T> stream, Comparator<? super T> order, int k) {
+        if (k == 0) {
+            return List.of();
+        }
+        List<T> result = new ArrayList<>(stream.collect(
+            () -> new BoundedHeap<T>(k, order), BoundedHeap::offer, BoundedHeap::merge).heap);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * 分组结果行
+     */
+    public record Group<K, V>(K key, V value) {}
+
+    /**
+     * 构建侧同一键的多行; 单行时直接存行本身,省去每个键一个 List
+     */
+    private static final class Bucket {
+        final List<Object> rows = new ArrayList<>(2);
+
+        /**
+         * 在 ConcurrentHashMap.merge 中调用,对同一个键是原子的
+         */
+        static Object merge(Object existing, Object row) {
+            if (existing instanceof Bucket bucket) {
+                bucket.rows.add(row);
+                return bucket;
+            }
+            Bucket bucket = new Bucket();
+            bucket.rows.add(existing);
+            bucket.rows.add(row);
+            return bucket;
+        }
+    }
+
+    /**
+     * 保留按 order 最小的 k 个元素; 堆顶是当前第 k 名,新元素只需与它比较一次
+     */
+    private static final class BoundedHeap<T> {
+
+        private final int k;
+        private final Comparator<? super T> order;
+        private final PriorityQueue<T> heap;
+
+        BoundedHeap(int k, Comparator<? super T> order) {
+            this.k = k;
+            this.order = order;
+            this.heap = new PriorityQueue<>(Math.min(k, 1024) + 1, order.reversed());
+        }
+
+        void offer(T value) {
+            if (heap.size() < k) {
+                heap.add(value);
+            } else if (order.compare(value, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(value);
+            }
+        }
+
+        void merge(BoundedHeap<T> other) {
+            other.heap.forEach(this::offer);
+        }
+    }
+}
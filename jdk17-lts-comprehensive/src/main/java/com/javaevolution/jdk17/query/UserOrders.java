@@ -0,0 +1,92 @@
+package com.javaevolution.jdk17.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * sqlExample 中的 users / orders 两张表,以及用 Query 表达的对应查询
+ */
+public final class UserOrders {
+
+    public record User(long id, String name, String status) {}
+
+    public record Order(long orderId, long userId, double total, long createdAt) {}
+
+    /**
+     * 连接结果行; 多带一列 createdAt 供 ORDER BY 使用
+     */
+    public record UserOrder(long id, String name, long orderId, double total, long createdAt) {
+
+        public static UserOrder of(User u, Order o) {
+            return new UserOrder(u.id(), u.name(), o.orderId(), o.total(), o.createdAt());
+        }
+    }
+
+    private static final String[] STATUSES = {"active", "active", "active", "inactive", "banned"};
+    private static final long EPOCH_2024 = 1_704_067_200L;
+    private static final int SECONDS_PER_YEAR = 365 * 24 * 3600;
+
+    private UserOrders() {
+    }
+
+    /**
+     * <pre>
+     * SELECT u.id, u.name, o.order_id, o.total
+     * FROM users u
+     * INNER JOIN orders o ON u.id = o.user_id
+     * WHERE u.status = 'active'
+     *   AND o.total &gt; 100
+     * ORDER BY o.created_at DESC
+     * LIMIT 10
+     * </pre>
+     */
+    public static List<UserOrder> latestActiveOrders(Query<User> users, Query<Order> orders, int limit) {
+        return users.filter(u -> u.status().equals("active"))
+            .join(orders.filter(o -> o.total() > 100), User::id, Order::userId, UserOrder::of)
+            .orderBy(Comparator.comparingLong(UserOrder::createdAt).reversed())
+            .limit(limit)
+            .toList();
+    }
+
+    /**
+     * <pre>
+     * SELECT u.status, COUNT(*), SUM(o.total), ...
+     * FROM users u INNER JOIN orders o ON u.id = o.user_id
+     * GROUP BY u.status
+     * </pre>
+     */
+    public static List<Query.Group<String, DoubleSummaryStatistics>> revenueByStatus(Query<User> users,
+                                                                                    Query<Order> orders) {
+        return users.join(orders, User::id, Order::userId, (u, o) -> new Query.Group<>(u.status(), o.total()))
+            .groupBy(Query.Group::key, Collectors.summarizingDouble(Query.Group::value))
+            .orderBy(Comparator.comparing(Query.Group::key))
+            .toList();
+    }
+
+    /**
+     * 生成测试数据: 约 60% 的用户为 active,订单金额 0 ~ 500,下单时间分布在 2024 年内
+     */
+    public static List<User> users(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User(i, "user-" + i, STATUSES[random.nextInt(STATUSES.length)]));
+        }
+        return users;
+    }
+
+    public static List<Order> orders(int count, int userCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double total = random.nextInt(50_000) / 100.0;
+            orders.add(new Order(i, random.nextInt(userCount), total,
+                EPOCH_2024 + random.nextInt(SECONDS_PER_YEAR)));
+        }
+        return orders;
+    }
+}
@@ -1,5 +1,10 @@
 package com.javaevolution.jdk17.syntax;
 
+import com.javaevolution.jdk17.query.Query;
+import com.javaevolution.jdk17.query.UserOrders;
+import com.javaevolution.jdk17.query.UserOrders.Order;
+import com.javaevolution.jdk17.query.UserOrders.User;
+
 /**
  * Text Blocks 完整演示
  * JEP 378: Text Blocks (JDK 15 - Final)
@@ -189,6 +194,12 @@ ORDER BY name
                 """;
             
             System.out.println(sql);
+            
+            // ✅ 用 Query 在内存中执行同样的查询 (哈希连接 + 并行 Top-K)
+            Query<User> users = Query.from(UserOrders.users(1_000, 1));
+            Query<Order> orders = Query.from(UserOrders.orders(10_000, 1_000, 2));
+            UserOrders.latestActiveOrders(users, orders, 10).forEach(System.out::println);
+            // UserOrder[id=..., name=user-..., orderId=..., total=..., createdAt=...] × 10
         }
         
         public void htmlExample() {
@@ -1,5 +1,7 @@
 package com.javaevolution.jdk21.api;
 
+import com.javaevolution.jdk21.stream.SequencedSpliterators;
+
 import java.util.*;
 
 /**
@@ -335,6 +337,20 @@ public class SequencedCollectionsDemo {
             List<Integer> doubleReversed = reversed.reversed();
             System.out.println("Double reversed: " + doubleReversed); // [1, 2, 3, 4, 99]
         }
+        
+        public void parallelOverSequencedViews() {
+            SequencedMap<String, Integer> map = new LinkedHashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                map.put("key-" + i, i);
+            }
+            
+            // 默认 Spliterator 基于链表迭代,并行拆分不均
+            // 快照分块后可按下标均衡拆分,reversed() 视图同样保持顺序
+            long sum = SequencedSpliterators.parallelStream(map.sequencedValues().reversed())
+                .mapToLong(Integer::longValue)
+                .sum();
+            System.out.println("Sum: " + sum);
+        }
     }
 
     public static void main(String[] args) {
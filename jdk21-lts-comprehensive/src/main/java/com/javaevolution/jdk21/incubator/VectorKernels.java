@@ -0,0 +1,373 @@
+package com.javaevolution.jdk21.incubator;
+
+import jdk.incubator.vector.*;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Vector API 数值计算内核
+ * JEP 448: Vector API (Sixth Incubator, JDK 21)
+ *
+ * 对应 StreamAPIDemo.ParallelStreamPitfalls.whenToUseParallel 中
+ * mapToDouble(Math::sqrt).sum() 这类纯数值工作负载:
+ * 用 SIMD 指令一次处理一整个向量的元素,而不是逐个元素走 Stream 管道。
+ *
+ * 运行需要: --add-modules jdk.incubator.vector
+ */
+public final class VectorKernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * 并行模式下每个分块的默认元素数
+     * 足够大以摊薄 ForkJoin 任务开销,又足够小以便负载均衡
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private VectorKernels() {
+    }
+
+    /**
+     * 区间内核: 计算 [from, to) 上的局部结果,供并行分块模式复用
+     */
+    @FunctionalInterface
+    public interface RangeKernel {
+        double apply(int from, int to);
+    }
+
+    // ==================== double[] 内核 ====================
+
+    public static double sum(double[] a) {
+        return sum(a, 0, a.length);
+    }
+
+    public static double sum(double[] a, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = from;
+        int upper = from + DOUBLES.loopBound(to - from);
+        for (; i < upper; i += DOUBLES.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, a, i));
+        }
+        double result = acc.reduceLanes(VectorOperators.ADD);
+        // 尾部不足一个向量的元素标量处理
+        for (; i < to; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    /**
+     * 等价于 Arrays.stream(a).map(Math::sqrt).sum()
+     */
+    public static double sqrtSum(double[] a) {
+        return sqrtSum(a, 0, a.length);
+    }
+
+    public static double sqrtSum(double[] a, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = from;
+        int upper = from + DOUBLES.loopBound(to - from);
+        for (; i < upper; i += DOUBLES.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, a, i).lanewise(VectorOperators.SQRT));
+        }
+        double result = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            result += Math.sqrt(a[i]);
+        }
+        return result;
+    }
+
+    public static double dot(double[] a, double[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Length mismatch: " + a.length + " vs " + b.length);
+        }
+        return dot(a, b, 0, a.length);
+    }
+
+    public static double dot(double[] a, double[] b, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = from;
+        int upper = from + DOUBLES.loopBound(to - from);
+        for (; i < upper; i += DOUBLES.length()) {
+            DoubleVector va = DoubleVector.fromArray(DOUBLES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(DOUBLES, b, i);
+            acc = va.fma(vb, acc); // acc += va * vb
+        }
+        double result = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            result += a[i] * b[i];
+        }
+        return result;
+    }
+
+    public static double min(double[] a) {
+        return min(a, 0, a.length);
+    }
+
+    public static double min(double[] a, int from, int to) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        int i = from;
+        int upper = from + DOUBLES.loopBound(to - from);
+        for (; i < upper; i += DOUBLES.length()) {
+            acc = acc.min(DoubleVector.fromArray(DOUBLES, a, i));
+        }
+        double result = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < to; i++) {
+            result = Math.min(result, a[i]);
+        }
+        return result;
+    }
+
+    public static double max(double[] a) {
+        return max(a, 0, a.length);
+    }
+
+    public static double max(double[] a, int from, int to) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+        int i = from;
+        int upper = from + DOUBLES.loopBound(to - from);
+        for (; i < upper; i += DOUBLES.length()) {
+            acc = acc.max(DoubleVector.fromArray(DOUBLES, a, i));
+        }
+        double result = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            result = Math.max(result, a[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 等价于 Arrays.stream(a).filter(x -> x > threshold).count()
+     */
+    public static long countGreaterThan(double[] a, double threshold) {
+        return countGreaterThan(a, threshold, 0, a.length);
+    }
+
+    public static long countGreaterThan(double[] a, double threshold, int from, int to) {
+        long count = 0;
+        int i = from;
+        int upper = from + DOUBLES.loopBound(to - from);
+        for (; i < upper; i += DOUBLES.length()) {
+            count += DoubleVector.fromArray(DOUBLES, a, i)
+                .compare(VectorOperators.GT, threshold)
+                .trueCount();
+        }
+        for (; i < to; i++) {
+            if (a[i] > threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ==================== int[] 内核 ====================
+
+    /**
+     * int 求和,每个向量先扩宽为 long 再累加,避免 lane 内溢出
+     */
+    public static long sum(int[] a) {
+        return sum(a, 0, a.length);
+    }
+
+    public static long sum(int[] a, int from, int to) {
+        LongVector acc = LongVector.zero(LONGS);
+        int i = from;
+        int upper = from + INTS.loopBound(to - from);
+        for (; i < upper; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, a, i);
+            acc = acc.add(v.convertShape(VectorOperators.I2L, LONGS, 0))
+                     .add(v.convertShape(VectorOperators.I2L, LONGS, 1));
+        }
+        long result = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    /**
+     * 等价于 whenToUseParallel 中的 mapToDouble(n -> Math.sqrt(n)).sum(),
+     * 但输入是 int[] 而不是 List&lt;Integer&gt;
+     */
+    public static double sqrtSum(int[] a) {
+        return sqrtSum(a, 0, a.length);
+    }
+
+    public static double sqrtSum(int[] a, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = from;
+        int upper = from + INTS.loopBound(to - from);
+        for (; i < upper; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, a, i);
+            // int -> double 扩宽: 一个 int 向量拆成两个 double 向量
+            Vector<Double> lo = v.convertShape(VectorOperators.I2D, DOUBLES, 0);
+            Vector<Double> hi = v.convertShape(VectorOperators.I2D, DOUBLES, 1);
+            acc = acc.add(lo.lanewise(VectorOperators.SQRT))
+                     .add(hi.lanewise(VectorOperators.SQRT));
+        }
+        double result = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            result += Math.sqrt(a[i]);
+        }
+        return result;
+    }
+
+    public static long dot(int[] a, int[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Length mismatch: " + a.length + " vs " + b.length);
+        }
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        int upper = INTS.loopBound(a.length);
+        for (; i < upper; i += INTS.length()) {
+            IntVector va = IntVector.fromArray(INTS, a, i);
+            IntVector vb = IntVector.fromArray(INTS, b, i);
+            for (int part = 0; part < 2; part++) {
+                LongVector la = (LongVector) va.convertShape(VectorOperators.I2L, LONGS, part);
+                LongVector lb = (LongVector) vb.convertShape(VectorOperators.I2L, LONGS, part);
+                acc = acc.add(la.mul(lb));
+            }
+        }
+        long result = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            result += (long) a[i] * b[i];
+        }
+        return result;
+    }
+
+    public static int min(int[] a) {
+        IntVector acc = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        int i = 0;
+        int upper = INTS.loopBound(a.length);
+        for (; i < upper; i += INTS.length()) {
+            acc = acc.min(IntVector.fromArray(INTS, a, i));
+        }
+        int result = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < a.length; i++) {
+            result = Math.min(result, a[i]);
+        }
+        return result;
+    }
+
+    public static int max(int[] a) {
+        IntVector acc = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        int i = 0;
+        int upper = INTS.loopBound(a.length);
+        for (; i < upper; i += INTS.length()) {
+            acc = acc.max(IntVector.fromArray(INTS, a, i));
+        }
+        int result = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < a.length; i++) {
+            result = Math.max(result, a[i]);
+        }
+        return result;
+    }
+
+    public static long countGreaterThan(int[] a, int threshold) {
+        long count = 0;
+        int i = 0;
+        int upper = INTS.loopBound(a.length);
+        for (; i < upper; i += INTS.length()) {
+            count += IntVector.fromArray(INTS, a, i)
+                .compare(VectorOperators.GT, threshold)
+                .trueCount();
+        }
+        for (; i < a.length; i++) {
+            if (a[i] > threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ==================== 并行分块模式 ====================
+
+    /**
+     * 并行分块执行: 把 [0, length) 切成对齐到向量长度的块,
+     * 每块在 ForkJoin 公共池中跑一次 SIMD 内核,最后合并局部结果
+     */
+    public static double chunked(int length, int chunkSize, RangeKernel kernel,
+                                 double identity, DoubleBinaryOperator combiner) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        // 块边界对齐到最宽的向量,保证除最后一块外没有标量尾部
+        int aligned = Math.max(INTS.length(), chunkSize - chunkSize % INTS.length());
+        // length 接近 Integer.MAX_VALUE 时 length + aligned 与 (c + 1) * aligned 会溢出:
+        // 块数按 long 计算,块末尾用 起点 + 剩余长度 表示,c * aligned 本身不超过 length
+        int chunks = (int) (((long) length + aligned - 1) / aligned);
+        return IntStream.range(0, chunks)
+            .parallel()
+            .mapToDouble(c -> {
+                int from = c * aligned;
+                return kernel.apply(from, from + Math.min(aligned, length - from));
+            })
+            .reduce(identity, combiner);
+    }
+
+    public static double parallelSum(double[] a) {
+        return chunked(a.length, DEFAULT_CHUNK_SIZE, (from, to) -> sum(a, from, to), 0.0, Double::sum);
+    }
+
+    public static double parallelSqrtSum(double[] a) {
+        return chunked(a.length, DEFAULT_CHUNK_SIZE, (from, to) -> sqrtSum(a, from, to), 0.0, Double::sum);
+    }
+
+    public static double parallelSqrtSum(int[] a) {
+        return chunked(a.length, DEFAULT_CHUNK_SIZE, (from, to) -> sqrtSum(a, from, to), 0.0, Double::sum);
+    }
+
+    public static double parallelDot(double[] a, double[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Length mismatch: " + a.length + " vs " + b.length);
+        }
+        return chunked(a.length, DEFAULT_CHUNK_SIZE, (from, to) -> dot(a, b, from, to), 0.0, Double::sum);
+    }
+
+    public static double parallelMin(double[] a) {
+        return chunked(a.length, DEFAULT_CHUNK_SIZE, (from, to) -> min(a, from, to),
+            Double.POSITIVE_INFINITY, Math::min);
+    }
+
+    public static double parallelMax(double[] a) {
+        return chunked(a.length, DEFAULT_CHUNK_SIZE, (from, to) -> max(a, from, to),
+            Double.NEGATIVE_INFINITY, Math::max);
+    }
+
+    public static long parallelCountGreaterThan(double[] a, double threshold) {
+        int chunks = (a.length + DEFAULT_CHUNK_SIZE - 1) / DEFAULT_CHUNK_SIZE;
+        return IntStream.range(0, chunks)
+            .parallel()
+            .mapToLong(c -> countGreaterThan(a, threshold,
+                c * DEFAULT_CHUNK_SIZE, Math.min(a.length, (c + 1) * DEFAULT_CHUNK_SIZE)))
+            .sum();
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Vector API Kernels ===");
+        System.out.println("Double lanes: " + DOUBLES.length() + ", Int lanes: " + INTS.length());
+
+        int[] ints = IntStream.range(0, 1_000_000).toArray();
+        double[] doubles = Arrays.stream(ints).asDoubleStream().toArray();
+
+        // Stream 版本 (whenToUseParallel 的写法)
+        double streamResult = Arrays.stream(ints).parallel().mapToDouble(Math::sqrt).sum();
+
+        // SIMD 版本
+        double vectorResult = sqrtSum(ints);
+        double parallelVectorResult = parallelSqrtSum(ints);
+
+        System.out.println("Stream sqrt sum:          " + streamResult);
+        System.out.println("Vector sqrt sum:          " + vectorResult);
+        System.out.println("Parallel vector sqrt sum: " + parallelVectorResult);
+
+        System.out.println("Sum: " + sum(ints) + " / " + parallelSum(doubles));
+        System.out.println("Dot: " + dot(doubles, doubles));
+        System.out.println("Min/Max: " + min(doubles) + " / " + max(doubles));
+        System.out.println("Count > 500000: " + countGreaterThan(doubles, 500_000));
+    }
+}
@@ -0,0 +1,116 @@
+package com.javaevolution.jdk21.incubator;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH 基准测试: Vector API 内核 vs DoubleStream
+ * 工作负载与 StreamAPIDemo.ParallelStreamPitfalls.whenToUseParallel 相同:
+ * 对 0..n-1 求 sqrt 之和
+ *
+ * 运行: java --add-modules jdk.incubator.vector -cp ... VectorKernelsBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorKernelsBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private int[] ints;
+    private double[] doubles;
+    private List<Integer> boxed;
+
+    @Setup
+    public void setup() {
+        ints = IntStream.range(0, size).toArray();
+        doubles = Arrays.stream(ints).asDoubleStream().toArray();
+        boxed = IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    // ---------- sqrt sum: 原始写法 ----------
+
+    @Benchmark
+    public double boxedParallelStream() {
+        return boxed.parallelStream().mapToDouble(n -> Math.sqrt(n)).sum();
+    }
+
+    @Benchmark
+    public double sqrtSumStreamSequential() {
+        return Arrays.stream(doubles).map(Math::sqrt).sum();
+    }
+
+    @Benchmark
+    public double sqrtSumStreamParallel() {
+        return Arrays.stream(doubles).parallel().map(Math::sqrt).sum();
+    }
+
+    // ---------- sqrt sum: Vector API ----------
+
+    @Benchmark
+    public double sqrtSumVectorSequential() {
+        return VectorKernels.sqrtSum(doubles);
+    }
+
+    @Benchmark
+    public double sqrtSumVectorParallel() {
+        return VectorKernels.parallelSqrtSum(doubles);
+    }
+
+    @Benchmark
+    public double sqrtSumVectorFromInts() {
+        return VectorKernels.sqrtSum(ints);
+    }
+
+    // ---------- 其他内核 ----------
+
+    @Benchmark
+    public double dotStream() {
+        return IntStream.range(0, size).mapToDouble(i -> doubles[i] * doubles[i]).sum();
+    }
+
+    @Benchmark
+    public double dotVector() {
+        return VectorKernels.dot(doubles, doubles);
+    }
+
+    @Benchmark
+    public double maxStream() {
+        return Arrays.stream(doubles).max().getAsDouble();
+    }
+
+    @Benchmark
+    public double maxVector() {
+        return VectorKernels.max(doubles);
+    }
+
+    @Benchmark
+    public long countStream() {
+        return Arrays.stream(doubles).filter(d -> d > size / 2.0).count();
+    }
+
+    @Benchmark
+    public long countVector() {
+        return VectorKernels.countGreaterThan(doubles, size / 2.0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(VectorKernelsBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
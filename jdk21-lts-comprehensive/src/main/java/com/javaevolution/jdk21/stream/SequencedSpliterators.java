@@ -0,0 +1,196 @@
+package com.javaevolution.jdk21.stream;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 顺序集合的均衡可拆分 Spliterator
+ *
+ * LinkedHashSet、LinkedHashMap 的键/值视图、ArrayDeque 以及它们的 reversed() 视图,
+ * 默认 Spliterator 要么基于迭代器 (每次只拆出一小批),要么无法报告 SUBSIZED,
+ * 并行流实际上几乎是单线程执行。
+ *
+ * 这里的做法: 先按遍历顺序把元素快照到定长块 (Object[][]) 中,
+ * 之后就可以像数组一样按下标二分拆分,并精确报告 SIZED | SUBSIZED。
+ * - 快照是一次 O(n) 顺序遍历,只复制引用; 后续每元素的计算才是并行的主体
+ * - 分块存储避免为百万级集合分配单个超大数组
+ * - reversed() 视图自身就是 SequencedCollection,快照时天然按反向顺序
+ *
+ * 流是快照语义: 创建后对源集合的修改不可见 (IMMUTABLE)
+ */
+public final class SequencedSpliterators {
+
+    private static final int BLOCK_SHIFT = 12;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private SequencedSpliterators() {
+    }
+
+    /**
+     * 适用于任意 SequencedCollection: List、Deque、LinkedHashSet、TreeSet、
+     * 以及 sequencedKeySet() / sequencedValues() / sequencedEntrySet() / reversed() 视图
+     */
+    public static <T> Spliterator<T> balanced(SequencedCollection<T> source) {
+        int characteristics = Spliterator.ORDERED | Spliterator.SIZED
+            | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+        Comparator<? super T> comparator = null;
+        if (source instanceof Set) {
+            characteristics |= Spliterator.DISTINCT;
+        }
+        if (source instanceof SortedSet<T> sorted) {
+            characteristics |= Spliterator.SORTED;
+            comparator = sorted.comparator();
+        }
+        Object[][] blocks = snapshot(source);
+        return new BlockSpliterator<>(blocks, 0, source.size(), characteristics, comparator);
+    }
+
+    public static <T> Stream<T> stream(SequencedCollection<T> source) {
+        return StreamSupport.stream(balanced(source), false);
+    }
+
+    public static <T> Stream<T> parallelStream(SequencedCollection<T> source) {
+        return StreamSupport.stream(balanced(source), true);
+    }
+
+    /**
+     * SequencedMap 的键,按遍历顺序
+     */
+    public static <K> Stream<K> parallelKeys(SequencedMap<K, ?> map) {
+        return parallelStream(map.sequencedKeySet());
+    }
+
+    public static <V> Stream<V> parallelValues(SequencedMap<?, V> map) {
+        return parallelStream(map.sequencedValues());
+    }
+
+    public static <K, V> Stream<Map.Entry<K, V>> parallelEntries(SequencedMap<K, V> map) {
+        return parallelStream(map.sequencedEntrySet());
+    }
+
+    private static Object[][] snapshot(Collection<?> source) {
+        int size = source.size();
+        int blockCount = (size + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        Object[][] blocks = new Object[blockCount][];
+        int i = 0;
+        for (Object element : source) {
+            if (i == size) {
+                // 快照期间集合被并发增长
+                throw new ConcurrentModificationException();
+            }
+            int block = i >>> BLOCK_SHIFT;
+            if (blocks[block] == null) {
+                blocks[block] = new Object[Math.min(BLOCK_SIZE, size - (block << BLOCK_SHIFT))];
+            }
+            blocks[block][i & BLOCK_MASK] = element;
+            i++;
+        }
+        if (i != size) {
+            throw new ConcurrentModificationException();
+        }
+        return blocks;
+    }
+
+    /**
+     * 基于分块快照的 Spliterator,覆盖全局下标区间 [index, fence)
+     */
+    static final class BlockSpliterator<T> implements Spliterator<T> {
+        private final Object[][] blocks;
+        private int index;
+        private final int fence;
+        private final int characteristics;
+        private final Comparator<? super T> comparator;
+
+        BlockSpliterator(Object[][] blocks, int index, int fence,
+                         int characteristics, Comparator<? super T> comparator) {
+            this.blocks = blocks;
+            this.index = index;
+            this.fence = fence;
+            this.characteristics = characteristics;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int lo = index;
+            int mid = (lo + fence) >>> 1;
+            // 区间跨多个块时,把切点对齐到块边界,让每个子任务顺序访问完整的块
+            if (fence - lo > 2 * BLOCK_SIZE) {
+                mid &= ~BLOCK_MASK;
+            }
+            if (mid <= lo) {
+                return null;
+            }
+            index = mid;
+            return new BlockSpliterator<>(blocks, lo, mid, characteristics, comparator);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= fence) {
+                return false;
+            }
+            int i = index++;
+            action.accept((T) blocks[i >>> BLOCK_SHIFT][i & BLOCK_MASK]);
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super T> action) {
+            int i = index;
+            index = fence;
+            while (i < fence) {
+                Object[] block = blocks[i >>> BLOCK_SHIFT];
+                int end = Math.min(fence - (i & ~BLOCK_MASK), block.length);
+                for (int j = i & BLOCK_MASK; j < end; j++) {
+                    action.accept((T) block[j]);
+                }
+                i = (i & ~BLOCK_MASK) + end;
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            if ((characteristics & Spliterator.SORTED) == 0) {
+                throw new IllegalStateException();
+            }
+            return comparator;
+        }
+    }
+
+    public static void main(String[] args) {
+        SequencedSet<Integer> set = new LinkedHashSet<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            set.add(i);
+        }
+
+        // 默认 Spliterator: 迭代器分批,拆分不均
+        double slow = set.parallelStream().mapToDouble(Math::sqrt).sum();
+
+        // 快照分块: 均衡二分
+        double fast = parallelStream(set).mapToDouble(Math::sqrt).sum();
+        System.out.println(slow + " / " + fast);
+
+        // reversed() 视图同样适用,且保持反向顺序
+        List<Integer> firstOfReversed = parallelStream(set.reversed()).limit(3).toList();
+        System.out.println("Reversed head: " + firstOfReversed); // [999999, 999998, 999997]
+
+        Deque<String> deque = new ArrayDeque<>(List.of("a", "b", "c"));
+        System.out.println(parallelStream(deque.reversed()).toList()); // [c, b, a]
+    }
+}
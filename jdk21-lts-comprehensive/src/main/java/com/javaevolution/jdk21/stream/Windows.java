@@ -0,0 +1,646 @@
+package com.javaevolution.jdk21.stream;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * 流的窗口算子: 固定窗口 (tumbling)、滑动窗口 (sliding)、会话窗口 (session, 按时间间隔切分)
+ *
+ * 滚动统计的常见写法是把每个窗口复制成 List 再求和/求最值,每个元素 O(窗口大小)。
+ * 这里每个元素摊还 O(1),且不为窗口分配集合:
+ * - sum: 双栈聚合 (two-stack),窗口 = 前栈后缀和 + 后栈累计和; 不做减法,double 不会累积漂移
+ *        (long 的减法是精确的,直接用"加新减旧")
+ * - min / max: 单调双端队列,队首即窗口最值,每个元素最多入队、出队各一次
+ * - 任意可结合运算: sliding(source, size, step, lift, combine) 同样用双栈,combine 不要求可交换
+ * - 固定窗口 / 会话窗口: 直接用 Collector 的累加器逐个累加,窗口结束时 finisher 一次
+ *
+ * 滑动窗口只输出满窗口 (源不足 size 个元素时为空流); 固定窗口与会话窗口会输出最后不完整的窗口。
+ * 窗口依赖相邻元素,结果流按源的遇到顺序顺序求值,不参与并行拆分。
+ */
+public final class Windows {
+
+    private Windows() {
+    }
+
+    // ==================== 对象流 ====================
+
+    /**
+     * 每 size 个元素一个窗口
+     */
+    public static <T> Stream<List<T>> tumbling(Stream<T> source, int size) {
+        return tumbling(source, size, Collectors.toList());
+    }
+
+    /**
+     * 每 size 个元素一个窗口,窗口内用 collector 聚合
+     */
+    public static <T, A, R> Stream<R> tumbling(Stream<T> source, int size, Collector<? super T, A, R> collector) {
+        requirePositive(size, "size");
+        Objects.requireNonNull(collector);
+        return windowed(source, new CollectingWindow<T, A, R>(collector) {
+            @Override
+            boolean isFull() {
+                return count == size;
+            }
+        });
+    }
+
+    /**
+     * 时间戳与上一个元素相差超过 gap 时开始新会话; 源须按时间戳非递减排列
+     */
+    public static <T> Stream<List<T>> sessions(Stream<T> source, ToLongFunction<? super T> timestamp, long gap) {
+        return sessions(source, timestamp, gap, Collectors.toList());
+    }
+
+    public static <T, A, R> Stream<R> sessions(Stream<T> source, ToLongFunction<? super T> timestamp, long gap,
+                                               Collector<? super T, A, R> collector) {
+        Objects.requireNonNull(timestamp);
+        Objects.requireNonNull(collector);
+        if (gap < 0) {
+            throw new IllegalArgumentException("gap must be >= 0: " + gap);
+        }
+        return windowed(source, new CollectingWindow<T, A, R>(collector) {
+            private long last;
+
+            @Override
+            boolean startsNewWindow(T element) {
+                long previous = last;
+                last = timestamp.applyAsLong(element);
+                return count > 0 && last - previous > gap;
+            }
+        });
+    }
+
+    /**
+     * 大小为 size、每 step 个元素前进一次的滑动窗口,窗口值为 lift 后按遇到顺序 combine 的结果
+     * combine 须满足结合律 (如 Math::max、BigDecimal::add、字符串拼接); step &gt; size 时为跳跃窗口
+     */
+    public static <T, A> Stream<A> sliding(Stream<T> source, int size, int step,
+                                           Function<? super T, ? extends A> lift, BinaryOperator<A> combine) {
+        requirePositive(size, "size");
+        requirePositive(step, "step");
+        Objects.requireNonNull(lift);
+        Objects.requireNonNull(combine);
+        return windowed(source, new TwoStackWindow<T, A>(size, step, lift, combine));
+    }
+
+    // ==================== DoubleStream ====================
+
+    /**
+     * 每个满窗口的和
+     */
+    public static DoubleStream slidingSum(DoubleStream source, int size) {
+        requirePositive(size, "size");
+        return windowed(source, new DoubleSumWindow(size));
+    }
+
+    public static DoubleStream slidingAverage(DoubleStream source, int size) {
+        return slidingSum(source, size).map(sum -> sum / size);
+    }
+
+    /**
+     * NaN 按 Double.compare 的顺序处理 (大于一切数值)
+     */
+    public static DoubleStream slidingMin(DoubleStream source, int size) {
+        requirePositive(size, "size");
+        return windowed(source, new DoubleExtremumWindow(size, false));
+    }
+
+    public static DoubleStream slidingMax(DoubleStream source, int size) {
+        requirePositive(size, "size");
+        return windowed(source, new DoubleExtremumWindow(size, true));
+    }
+
+    /**
+     * 每 size 个元素的统计 (count/sum/min/max/average),最后一个窗口可能不满
+     */
+    public static Stream<DoubleSummaryStatistics> tumbling(DoubleStream source, int size) {
+        requirePositive(size, "size");
+        Spliterator.OfDouble upstream = source.sequential().spliterator();
+        Spliterator<DoubleSummaryStatistics> spliterator = new Spliterators.AbstractSpliterator<>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super DoubleSummaryStatistics> action) {
+                // 统计对象本身就是 DoubleConsumer,直接作为 upstream 的消费者,元素不装箱
+                DoubleSummaryStatistics window = new DoubleSummaryStatistics();
+                while (window.getCount() < size && upstream.tryAdvance(window)) {
+                    // 逐个累加到窗口满或源耗尽
+                }
+                if (window.getCount() == 0) {
+                    return false;
+                }
+                action.accept(window);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(source::close);
+    }
+
+    // ==================== LongStream (IntStream 可先 asLongStream()) ====================
+
+    public static LongStream slidingSum(LongStream source, int size) {
+        requirePositive(size, "size");
+        return windowed(source, new LongSumWindow(size));
+    }
+
+    public static LongStream slidingMin(LongStream source, int size) {
+        requirePositive(size, "size");
+        return windowed(source, new LongExtremumWindow(size, false));
+    }
+
+    public static LongStream slidingMax(LongStream source, int size) {
+        requirePositive(size, "size");
+        return windowed(source, new LongExtremumWindow(size, true));
+    }
+
+    public static Stream<LongSummaryStatistics> tumbling(LongStream source, int size) {
+        requirePositive(size, "size");
+        Spliterator.OfLong upstream = source.sequential().spliterator();
+        Spliterator<LongSummaryStatistics> spliterator = new Spliterators.AbstractSpliterator<>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super LongSummaryStatistics> action) {
+                LongSummaryStatistics window = new LongSummaryStatistics();
+                while (window.getCount() < size && upstream.tryAdvance(window)) {
+                    // 同 DoubleStream 版本
+                }
+                if (window.getCount() == 0) {
+                    return false;
+                }
+                action.accept(window);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(source::close);
+    }
+
+    private static void requirePositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be > 0: " + value);
+        }
+    }
+
+    // ==================== 窗口状态 ====================
+
+    /**
+     * 对象窗口: push 返回 true 表示有窗口完成; 源耗尽后 finish 返回 true 表示还有最后一个窗口
+     */
+    private interface Window<T, R> {
+        boolean push(T element);
+
+        boolean finish();
+
+        R take();
+    }
+
+    /**
+     * 原始类型滑动窗口: push 返回 true 表示窗口已满,value() 为当前窗口的值
+     */
+    private interface DoubleWindow {
+        boolean push(double value);
+
+        double value();
+    }
+
+    private interface LongWindow {
+        boolean push(long value);
+
+        long value();
+    }
+
+    /**
+     * 用 Collector 累加一个窗口; 子类决定窗口边界: 元素加入前 (会话间隔) 或加入后 (数量已满)
+     */
+    private abstract static class CollectingWindow<T, A, R> implements Window<T, R> {
+        private final Collector<? super T, A, R> collector;
+        private A container;
+        private R result;
+        int count;
+
+        CollectingWindow(Collector<? super T, A, R> collector) {
+            this.collector = collector;
+        }
+
+        boolean startsNewWindow(T element) {
+            return false;
+        }
+
+        boolean isFull() {
+            return false;
+        }
+
+        @Override
+        public boolean push(T element) {
+            boolean completed = startsNewWindow(element);
+            if (completed) {
+                close();
+            }
+            if (container == null) {
+                container = collector.supplier().get();
+            }
+            collector.accumulator().accept(container, element);
+            count++;
+            if (isFull()) {
+                close();
+                return true;
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean finish() {
+            if (count == 0) {
+                return false;
+            }
+            close();
+            return true;
+        }
+
+        @Override
+        public R take() {
+            R r = result;
+            result = null;
+            return r;
+        }
+
+        private void close() {
+            result = collector.finisher().apply(container);
+            container = null;
+            count = 0;
+        }
+    }
+
+    /**
+     * 双栈滑动聚合,两个栈共用一个环形缓冲区:
+     * 从 head 起的 frontSize 个位置是前栈 (最旧的元素),存"该位置到前栈末尾"的后缀聚合;
+     * 其后是后栈,只存原值,外加一个从旧到新的累计聚合 back。
+     * 淘汰最旧元素时前栈为空,则把后栈整体翻转成后缀聚合 (每个元素一生只翻转一次)。
+     */
+    private static final class TwoStackWindow<T, A> implements Window<T, A> {
+        private final int size;
+        private final int step;
+        private final Function<? super T, ? extends A> lift;
+        private final BinaryOperator<A> combine;
+        private final Object[] values;
+        private final Object[] suffix;
+        private int head;
+        private int count;
+        private int frontSize;
+        private A back;
+        private long seen;
+
+        TwoStackWindow(int size, int step, Function<? super T, ? extends A> lift, BinaryOperator<A> combine) {
+            this.size = size;
+            this.step = step;
+            this.lift = lift;
+            this.combine = combine;
+            this.values = new Object[size];
+            this.suffix = new Object[size];
+        }
+
+        @Override
+        public boolean push(T element) {
+            A value = lift.apply(element);
+            if (count == size) {
+                evict();
+            }
+            values[(head + count) % size] = value;
+            back = count == frontSize ? value : combine.apply(back, value);
+            count++;
+            seen++;
+            // 第 k 个窗口覆盖 [k·step, k·step + size)
+            return count == size && (seen - size) % step == 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void evict() {
+            if (frontSize == 0) {
+                A acc = null;
+                for (int i = count - 1; i >= 0; i--) {
+                    int p = (head + i) % size;
+                    A value = (A) values[p];
+                    acc = i == count - 1 ? value : combine.apply(value, acc);
+                    suffix[p] = acc;
+                }
+                frontSize = count;
+                back = null;
+            }
+            values[head] = null;
+            suffix[head] = null;
+            head = (head + 1) % size;
+            frontSize--;
+            count--;
+        }
+
+        @Override
+        public boolean finish() {
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public A take() {
+            if (frontSize == 0) {
+                return back;
+            }
+            A front = (A) suffix[head];
+            return frontSize == count ? front : combine.apply(front, back);
+        }
+    }
+
+    /**
+     * double 求和的双栈版本: 前栈后缀和 + 后栈累计和,无减法
+     */
+    private static final class DoubleSumWindow implements DoubleWindow {
+        private final int size;
+        private final double[] values;
+        private final double[] suffix;
+        private int head;
+        private int count;
+        private int frontSize;
+        private double back;
+
+        DoubleSumWindow(int size) {
+            this.size = size;
+            this.values = new double[size];
+            this.suffix = new double[size];
+        }
+
+        @Override
+        public boolean push(double value) {
+            if (count == size) {
+                if (frontSize == 0) {
+                    double acc = 0;
+                    for (int i = count - 1; i >= 0; i--) {
+                        int p = (head + i) % size;
+                        acc += values[p];
+                        suffix[p] = acc;
+                    }
+                    frontSize = count;
+                    back = 0;
+                }
+                head = head + 1 == size ? 0 : head + 1;
+                frontSize--;
+                count--;
+            }
+            int tail = head + count;
+            values[tail >= size ? tail - size : tail] = value;
+            back += value;
+            count++;
+            return count == size;
+        }
+
+        @Override
+        public double value() {
+            return frontSize == 0 ? back : suffix[head] + back;
+        }
+    }
+
+    /**
+     * long 求和: 减法精确,直接加新减旧
+     */
+    private static final class LongSumWindow implements LongWindow {
+        private final long[] values;
+        private int position;
+        private long count;
+        private long sum;
+
+        LongSumWindow(int size) {
+            this.values = new long[size];
+        }
+
+        @Override
+        public boolean push(long value) {
+            sum += value - values[position];
+            values[position] = value;
+            position = position + 1 == values.length ? 0 : position + 1;
+            return ++count >= values.length;
+        }
+
+        @Override
+        public long value() {
+            return sum;
+        }
+    }
+
+    /**
+     * 单调双端队列: 队列中的值从队首到队尾单调 (求 max 时递减,求 min 时递增),
+     * 新元素入队前弹出队尾所有不优于它的元素; 队首下标滑出窗口时出队
+     */
+    private static final class DoubleExtremumWindow implements DoubleWindow {
+        private final int size;
+        private final boolean max;
+        private final double[] values;
+        private final long[] indices;
+        private int first;
+        private int length;
+        private long index;
+
+        DoubleExtremumWindow(int size, boolean max) {
+            this.size = size;
+            this.max = max;
+            this.values = new double[size];
+            this.indices = new long[size];
+        }
+
+        @Override
+        public boolean push(double value) {
+            if (length > 0 && indices[first] <= index - size) {
+                first = first + 1 == size ? 0 : first + 1;
+                length--;
+            }
+            while (length > 0) {
+                int last = (first + length - 1) % size;
+                int c = Double.compare(values[last], value);
+                if (max ? c > 0 : c < 0) {
+                    break;
+                }
+                length--;
+            }
+            int slot = (first + length) % size;
+            values[slot] = value;
+            indices[slot] = index;
+            length++;
+            return ++index >= size;
+        }
+
+        @Override
+        public double value() {
+            return values[first];
+        }
+    }
+
+    private static final class LongExtremumWindow implements LongWindow {
+        private final int size;
+        private final boolean max;
+        private final long[] values;
+        private final long[] indices;
+        private int first;
+        private int length;
+        private long index;
+
+        LongExtremumWindow(int size, boolean max) {
+            this.size = size;
+            this.max = max;
+            this.values = new long[size];
+            this.indices = new long[size];
+        }
+
+        @Override
+        public boolean push(long value) {
+            if (length > 0 && indices[first] <= index - size) {
+                first = first + 1 == size ? 0 : first + 1;
+                length--;
+            }
+            while (length > 0) {
+                long last = values[(first + length - 1) % size];
+                if (max ? last > value : last < value) {
+                    break;
+                }
+                length--;
+            }
+            int slot = (first + length) % size;
+            values[slot] = value;
+            indices[slot] = index;
+            length++;
+            return ++index >= size;
+        }
+
+        @Override
+        public long value() {
+            return values[first];
+        }
+    }
+
+    // ==================== Spliterator 适配 ====================
+
+    private static <T, R> Stream<R> windowed(Stream<T> source, Window<T, R> window) {
+        Spliterator<T> upstream = source.sequential().spliterator();
+        Spliterator<R> spliterator = new Spliterators.AbstractSpliterator<R>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            private boolean completed;
+            private boolean exhausted;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super R> action) {
+                while (!exhausted) {
+                    if (!upstream.tryAdvance(e -> completed = window.push(e))) {
+                        exhausted = true;
+                        if (window.finish()) {
+                            action.accept(window.take());
+                            return true;
+                        }
+                        return false;
+                    }
+                    if (completed) {
+                        action.accept(window.take());
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super R> action) {
+                if (exhausted) {
+                    return;
+                }
+                upstream.forEachRemaining(e -> {
+                    if (window.push(e)) {
+                        action.accept(window.take());
+                    }
+                });
+                exhausted = true;
+                if (window.finish()) {
+                    action.accept(window.take());
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(source::close);
+    }
+
+    private static DoubleStream windowed(DoubleStream source, DoubleWindow window) {
+        Spliterator.OfDouble upstream = source.sequential().spliterator();
+        Spliterator.OfDouble spliterator = new Spliterators.AbstractDoubleSpliterator(
+            Long.MAX_VALUE, Spliterator.ORDERED) {
+            private boolean completed;
+
+            @Override
+            public boolean tryAdvance(DoubleConsumer action) {
+                while (upstream.tryAdvance((double v) -> completed = window.push(v))) {
+                    if (completed) {
+                        action.accept(window.value());
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void forEachRemaining(DoubleConsumer action) {
+                upstream.forEachRemaining((double v) -> {
+                    if (window.push(v)) {
+                        action.accept(window.value());
+                    }
+                });
+            }
+        };
+        return StreamSupport.doubleStream(spliterator, false).onClose(source::close);
+    }
+
+    private static LongStream windowed(LongStream source, LongWindow window) {
+        Spliterator.OfLong upstream = source.sequential().spliterator();
+        Spliterator.OfLong spliterator = new Spliterators.AbstractLongSpliterator(
+            Long.MAX_VALUE, Spliterator.ORDERED) {
+            private boolean completed;
+
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                while (upstream.tryAdvance((long v) -> completed = window.push(v))) {
+                    if (completed) {
+                        action.accept(window.value());
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void forEachRemaining(LongConsumer action) {
+                upstream.forEachRemaining((long v) -> {
+                    if (window.push(v)) {
+                        action.accept(window.value());
+                    }
+                });
+            }
+        };
+        return StreamSupport.longStream(spliterator, false).onClose(source::close);
+    }
+
+    public static void main(String[] args) {
+        List<Integer> data = IntStream.rangeClosed(1, 10).boxed().toList();
+
+        System.out.println(tumbling(data.stream(), 4).toList());
+        // [[1, 2, 3, 4], [5, 6, 7, 8], [9, 10]]
+
+        System.out.println(tumbling(data.stream(), 4, Collectors.summingInt(Integer::intValue)).toList());
+        // [10, 26, 19]
+
+        // 大小 3、步长 2 的滑动窗口,窗口内拼接 (不可交换的运算也按顺序合并)
+        System.out.println(sliding(data.stream(), 3, 2, String::valueOf, String::concat).toList());
+        // [123, 345, 567, 789]
+
+        double[] prices = {10, 11, 9, 12, 15, 14, 8};
+        System.out.println(Arrays.toString(slidingAverage(Arrays.stream(prices), 3).toArray()));
+        // [10.0, 10.666666666666666, 12.0, 13.666666666666666, 12.333333333333334]
+        System.out.println(Arrays.toString(slidingMax(Arrays.stream(prices), 3).toArray()));
+        // [11.0, 12.0, 15.0, 15.0, 15.0]
+        System.out.println(Arrays.toString(slidingMin(IntStream.of(5, 3, 4, 1, 2).asLongStream(), 2).toArray()));
+        // [3, 3, 1, 1]
+
+        // 会话窗口: 相邻事件间隔超过 30 秒即切分
+        long[] clicks = {0, 10, 25, 100, 110, 300};
+        System.out.println(sessions(Arrays.stream(clicks).boxed(), Long::longValue, 30).toList());
+        // [[0, 10, 25], [100, 110], [300]]
+    }
+}
@@ -0,0 +1,88 @@
+package com.javaevolution.jdk21.stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JMH 基准测试: 滚动平均 / 滚动最大值
+ * listCopy* 是"每个窗口复制成 List 再计算"的写法,每个元素 O(window);
+ * windows* 是 Windows 的双栈 / 单调队列实现,每个元素摊还 O(1)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WindowsBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"10", "1000"})
+    private int window;
+
+    private double[] prices;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        prices = new double[size];
+        double price = 100;
+        for (int i = 0; i < size; i++) {
+            price += random.nextDouble(-1, 1);
+            prices[i] = price;
+        }
+    }
+
+    @Benchmark
+    public double listCopyAverage() {
+        return IntStream.rangeClosed(0, size - window)
+            .mapToObj(this::copyWindow)
+            .mapToDouble(w -> w.stream().mapToDouble(Double::doubleValue).average().orElse(0))
+            .sum();
+    }
+
+    @Benchmark
+    public double windowsAverage() {
+        return Windows.slidingAverage(Arrays.stream(prices), window).sum();
+    }
+
+    @Benchmark
+    public double listCopyMax() {
+        return IntStream.rangeClosed(0, size - window)
+            .mapToObj(this::copyWindow)
+            .mapToDouble(w -> w.stream().mapToDouble(Double::doubleValue).max().orElse(0))
+            .sum();
+    }
+
+    @Benchmark
+    public double windowsMax() {
+        return Windows.slidingMax(Arrays.stream(prices), window).sum();
+    }
+
+    private List<Double> copyWindow(int start) {
+        List<Double> copy = new ArrayList<>(window);
+        for (int i = start; i < start + window; i++) {
+            copy.add(prices[i]);
+        }
+        return copy;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(WindowsBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
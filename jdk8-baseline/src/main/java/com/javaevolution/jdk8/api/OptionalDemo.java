@@ -1,5 +1,7 @@
 package com.javaevolution.jdk8.api;
 
+import com.javaevolution.jdk8.function.PropertyPath;
+
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -82,6 +84,10 @@ public class OptionalDemo {
     }
 
     public static class AdvancedUsage {
+        // 编译一次、反复使用的空安全路径: User → address → zipCode → code
+        private static final PropertyPath<User, String> ZIP_CODE =
+            PropertyPath.of(User.class, String.class, "address", "zipCode", "code");
+        
         // 级联调用演示
         public void cascadingOptional() {
             User user = new User("Alice", 
@@ -102,6 +108,13 @@ public class OptionalDemo {
                 .orElse("Unknown");
             
             System.out.println(zipCode2); // 100000
+            
+            // 编译后的属性路径: 逐跳调用同名 getter 并拆开 Optional,结果与上面的链一致
+            String zipCode3 = ZIP_CODE.getOrDefault(user, "Unknown");
+            System.out.println(zipCode3); // 100000
+            
+            User homeless = new User("Bob", null);
+            System.out.println(ZIP_CODE.getOrDefault(homeless, "Unknown")); // Unknown
         }
         
         // 结合 Stream API
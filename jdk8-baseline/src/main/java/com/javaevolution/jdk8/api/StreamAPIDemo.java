@@ -1,6 +1,28 @@
 package com.javaevolution.jdk8.api;
 
+import com.javaevolution.jdk8.collection.IntArrayList;
+import com.javaevolution.jdk8.collection.IntBitmap;
+import com.javaevolution.jdk8.collection.IntCountMap;
+import com.javaevolution.jdk8.collection.IntObjectMap;
+import com.javaevolution.jdk8.collection.PrimitiveCollectors;
+import com.javaevolution.jdk8.io.MappedLines;
+import com.javaevolution.jdk8.stream.AdaptivePipeline;
+import com.javaevolution.jdk8.stream.DoubleStatistics;
+import com.javaevolution.jdk8.stream.DoubleSums;
+import com.javaevolution.jdk8.stream.ExternalSort;
+import com.javaevolution.jdk8.stream.MeteredPipeline;
+import com.javaevolution.jdk8.stream.ParallelSearch;
+import com.javaevolution.jdk8.stream.RadixSort;
+import com.javaevolution.jdk8.stream.StatisticsCollectors;
+import com.javaevolution.jdk8.stream.TopK;
+import com.javaevolution.jdk8.stream.sketch.SketchCollectors;
+import com.javaevolution.jdk8.stream.text.TextStreams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.*;
 
@@ -57,6 +79,19 @@ public class StreamAPIDemo {
                 .collect(Collectors.toList());
             
             System.out.println("Unique chars: " + chars);
+
+            // ✅ 不经过正则、不为每个字符创建 String: 直接流式读取码点
+            String uniqueCodePoints = words.stream()
+                .flatMapToInt(TextStreams::codePoints)
+                .distinct()
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString();
+            System.out.println("Unique code points: " + uniqueCodePoints); // HeloWrd
+
+            // 相邻字符对 (bigram) 编码为 long,统计时不需要 substring
+            long lo = TextStreams.ngrams("lo", 2).findFirst().getAsLong();
+            long loCount = TextStreams.ngrams("Hello World", 2).filter(key -> key == lo).count();
+            System.out.println("Bigram 'lo': " + loCount); // 1
         }
         
         public void distinctSortedLimitSkip() {
@@ -70,6 +105,50 @@ public class StreamAPIDemo {
                 .collect(Collectors.toList());
             
             System.out.println("Result: " + result); // [3, 5, 8]
+
+            // 只需前 skip + limit 个时: 有界堆 O(n log k),不用排序全部元素
+            List<Integer> result2 = numbers.stream()
+                .distinct()
+                .collect(TopK.smallest(2 + 3))
+                .subList(2, 5);
+            System.out.println("Result: " + result2); // [3, 5, 8]
+
+            // 数据量超过堆内存时: 外部归并排序,有序段写入临时文件后惰性多路归并
+            ExternalSort<Integer> sorter = ExternalSort
+                .builder(Comparator.<Integer>naturalOrder(), ExternalSort.Codec.INT)
+                .memoryBudget(64L << 20)
+                .build();
+            try (Stream<Integer> sorted = sorter.sort(numbers.stream().distinct())) {
+                List<Integer> result3 = sorted.skip(2).limit(3).collect(Collectors.toList());
+                System.out.println("Result: " + result3); // [3, 5, 8]
+            }
+
+            // 原始类型大数组: 基数排序,超过阈值自动启用,并行流走并行版本
+            int[] sortedInts = RadixSort.sorted(numbers.stream().mapToInt(Integer::intValue).distinct())
+                .skip(2)
+                .limit(3)
+                .toArray();
+            System.out.println("Result: " + Arrays.toString(sortedInts)); // [3, 5, 8]
+
+            // 按原始类型键稳定排序对象,替代 sorted(Comparator.comparingInt(...))
+            List<String> byLength = RadixSort.sortedByInt(Stream.of("ccc", "a", "bb", "d"), String::length)
+                .collect(Collectors.toList());
+            System.out.println(byLength); // [a, d, bb, ccc]
+
+            // int 去重不装箱: 已见集合是位图而不是 HashSet<Integer>,并行时仍保持首次出现的顺序
+            int[] firstSeen = PrimitiveCollectors.distinct(numbers.stream().mapToInt(Integer::intValue))
+                .toArray();
+            System.out.println(Arrays.toString(firstSeen)); // [5, 2, 8, 9, 1, 3]
+
+            // 已知值域 (id、年龄、端口): 位图本身有序,distinct + sorted 一步完成
+            int[] ports = PrimitiveCollectors.sortedDistinct(
+                    IntStream.of(8080, 443, 80, 8080, 443).parallel(), 0, 65535)
+                .toArray();
+            System.out.println(Arrays.toString(ports)); // [80, 443, 8080]
+
+            // 成员判断: 替代 collect(Collectors.toSet()).contains(x)
+            IntBitmap seen = numbers.stream().collect(PrimitiveCollectors.toIntBitmap());
+            System.out.println(seen.contains(8) + " " + seen.contains(7)); // true false
         }
         
         public void peekDemo() {
@@ -79,6 +158,16 @@ public class StreamAPIDemo {
                 .map(String::toUpperCase)
                 .peek(s -> System.out.println("Uppercase: " + s))
                 .collect(Collectors.toList());
+
+            // ✅ 生产环境: 按阶段计量元素数、选择率、耗时与分配 (每 100 个元素抽样一次)
+            MeteredPipeline<Integer> metered = MeteredPipeline.of(
+                IntStream.range(0, 100_000).boxed().parallel(), 100);
+            List<String> labels = metered
+                .filter("even", n -> n % 2 == 0)
+                .map("label", n -> "#" + n)
+                .limit("limit", 1_000)
+                .collect(Collectors.toList());
+            System.out.print(metered.report());
         }
     }
 
@@ -113,6 +202,13 @@ public class StreamAPIDemo {
             Map<Integer, List<String>> grouped = words.stream()
                 .collect(Collectors.groupingBy(String::length));
             System.out.println(grouped); // {2=[go], 4=[java, java], 6=[python]}
+
+            // ✅ int 键分组: 键不装箱,并行流共享同一张并发表
+            IntObjectMap<List<String>> byLength = words.parallelStream()
+                .collect(PrimitiveCollectors.groupingByInt(String::length));
+            IntCountMap lengthCounts = words.parallelStream()
+                .collect(PrimitiveCollectors.countingByInt(String::length));
+            System.out.println(byLength + " " + lengthCounts); // {2=[go], 4=[java, java], 6=[python]} {2=1, 4=2, 6=1}
             
             // 6. partitioningBy
             Map<Boolean, List<String>> partitioned = words.stream()
@@ -127,6 +223,18 @@ public class StreamAPIDemo {
             IntSummaryStatistics stats = words.stream()
                 .collect(Collectors.summarizingInt(String::length));
             System.out.println("Max length: " + stats.getMax()); // 6
+
+            // 9. 单次遍历多指标: count/sum/min/max/mean/variance/分位数
+            DoubleStatistics all = words.stream()
+                .collect(StatisticsCollectors.summarizing(String::length, 0.5, 0.9));
+            System.out.println("Variance: " + all.getVariance() + ", p50: " + all.getQuantile(0.5));
+
+            // 10. 抽样而不是全部收集: 内存只与 k 有关,并行分片的样本可直接合并
+            List<Integer> sample = IntStream.range(0, 1_000_000).boxed().parallel()
+                .collect(SketchCollectors.reservoirSample(5));
+            List<String> weighted = words.stream()
+                .collect(SketchCollectors.weightedSample(2, String::length)); // 越长越可能入选
+            System.out.println("Sample: " + sample + ", weighted: " + weighted);
         }
         
         public void reduceDemo() {
@@ -147,6 +255,13 @@ public class StreamAPIDemo {
                 .reduce(0, 
                     Integer::sum,           // accumulator
                     Integer::sum);          // combiner
+
+            // double 的 reduce(0, Double::sum) 在并行时结果不可复现,且没有误差补偿
+            double[] prices = {0.1, 0.2, 0.3, 1e16, -1e16};
+            double sequential = Arrays.stream(prices).reduce(0, Double::sum);          // 0.0: 0.6 被 1e16 吞掉
+            double parallel = Arrays.stream(prices).parallel().reduce(0, Double::sum); // 取决于拆分方式
+            double reproducible = DoubleSums.parallelSum(prices);                      // 0.6: 固定分块 + Neumaier 补偿
+            System.out.println(sequential + " / " + parallel + " / " + reproducible);
             
             // 复杂 reduce: 连接字符串
             String concatenated = Stream.of("a", "b", "c", "d")
@@ -182,6 +297,17 @@ public class StreamAPIDemo {
             boolean noNegative = numbers.stream()
                 .noneMatch(n -> n < 0);
             System.out.println("No negative: " + noNegative); // true
+            
+            // ✅ 昂贵谓词: 命中后其它分片立即停止,支持截止时间,并报告实际求值次数
+            List<Integer> candidates = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+            ParallelSearch.Result<Integer> found = ParallelSearch.of(candidates)
+                .timeout(100, TimeUnit.MILLISECONDS)
+                .findFirst(n -> n > 1000 && isPrime(n));
+            System.out.println(found); // Result{FOUND, value=1009, index=1009, evaluated=..., elapsed=...ms}
+        }
+        
+        private boolean isPrime(int n) {
+            return n > 1 && IntStream.rangeClosed(2, (int) Math.sqrt(n)).noneMatch(d -> n % d == 0);
         }
         
         public void forEachDemo() {
@@ -236,6 +362,12 @@ public class StreamAPIDemo {
             
             // ✅ 适合: 顺序流
             int sum = smallList.stream().mapToInt(i -> i).sum();
+
+            // ✅ 批量大小不固定时: 运行时按 元素数 × 每元素开销 自动选择
+            AdaptivePipeline<Integer, Integer> adaptive = AdaptivePipeline.of(
+                (Stream<Integer> s) -> s.mapToInt(i -> i).sum());
+            int sum2 = adaptive.apply(smallList);
+            System.out.println(adaptive.lastDecision()); // SEQUENTIAL
         }
         
         // 最佳实践: 何时使用并行流
@@ -253,6 +385,16 @@ public class StreamAPIDemo {
             double result = largeList.parallelStream()
                 .mapToDouble(n -> Math.sqrt(n))
                 .sum();
+
+            // ✅ 更好: 原始类型列表,避免每个元素一个 Integer 对象
+            IntArrayList intList = PrimitiveCollectors.toIntList(IntStream.range(0, 1000000));
+            double result2 = intList.parallelStream()
+                .mapToDouble(Math::sqrt)
+                .sum();
+
+            // ⚠️ 并行 double 求和的结果随拆分方式变化 (浮点加法不满足结合律)
+            // ✅ 需要逐位可复现时: 精确累加,与并行度、拆分方式无关
+            double result3 = DoubleSums.exactSum(intList.parallelStream().mapToDouble(Math::sqrt));
         }
     }
 
@@ -290,6 +432,25 @@ public class StreamAPIDemo {
                 .add("c")
                 .build();
         }
+
+        public void createFileStreams() throws IOException {
+            Path log = Files.createTempFile("app", ".log");
+            // 映射只能等 GC 释放 (JDK 8 没有公开的 unmap),映射存活时 Windows 上删不掉,留到 JVM 退出再删
+            log.toFile().deleteOnExit();
+            Files.write(log, Arrays.asList("INFO start", "ERROR disk full", "INFO done"));
+
+            // 8. Files.lines: 基于 BufferedReader 迭代器,并行拆分效果差
+            try (Stream<String> lines = Files.lines(log)) {
+                long errors = lines.filter(line -> line.startsWith("ERROR")).count();
+            }
+
+            // ✅ 大文件并行扫描: 内存映射 + 按换行符均衡拆分,行在消费时才解码
+            long errors = MappedLines.open(log).lines()
+                .parallel()
+                .filter(line -> line.startsWith("ERROR"))
+                .count();
+            System.out.println("Errors: " + errors); // 1
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,83 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.stream.DoubleSums;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH 基准测试: DoubleStream.sum() vs 可复现求和的吞吐
+ * 精度对比见 SummationAccuracyCheck
+ *
+ * 十亿行规模: -p size=1000000000 并给 JVM 至少 10g 堆 (-jvmArgsAppend -Xmx10g)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoubleSumBenchmark {
+
+    @Param({"10000000", "100000000"})
+    private int size;
+
+    private double[] amounts;
+
+    @Setup
+    public void setup() {
+        amounts = SummationAccuracyCheck.ledger(size, new Random(42));
+    }
+
+    @Benchmark
+    public double naiveLoop() {
+        double s = 0;
+        for (double amount : amounts) {
+            s += amount;
+        }
+        return s;
+    }
+
+    @Benchmark
+    public double streamSum() {
+        return Arrays.stream(amounts).sum();
+    }
+
+    @Benchmark
+    public double streamSumParallel() {
+        return Arrays.stream(amounts).parallel().sum();
+    }
+
+    @Benchmark
+    public double blockNeumaier() {
+        return DoubleSums.sum(amounts);
+    }
+
+    @Benchmark
+    public double blockNeumaierParallel() {
+        return DoubleSums.parallelSum(amounts);
+    }
+
+    @Benchmark
+    public double exact() {
+        return DoubleSums.exactSum(Arrays.stream(amounts));
+    }
+
+    @Benchmark
+    public double exactParallel() {
+        return DoubleSums.exactSum(Arrays.stream(amounts).parallel());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(DoubleSumBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
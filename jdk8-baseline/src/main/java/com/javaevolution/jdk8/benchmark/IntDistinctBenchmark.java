@@ -0,0 +1,89 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.collection.IntBitmap;
+import com.javaevolution.jdk8.collection.PrimitiveCollectors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH 基准测试: IntStream.distinct() / toSet() vs 位图去重
+ * 对应 StreamAPIDemo.IntermediateOperations.distinctSortedLimitSkip 中的 distinct();
+ * range 是取值范围: 小值域 (类似 id、端口) 走共享稠密位集,大值域走压缩位图
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntDistinctBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"65536", "1000000000"})
+    private int range;
+
+    private int[] values;
+
+    @Setup
+    public void setup() {
+        values = new SplittableRandom(42).ints(size, 0, range).toArray();
+    }
+
+    @Benchmark
+    public long streamDistinct() {
+        return IntStream.of(values).distinct().count();
+    }
+
+    @Benchmark
+    public long bitmapDistinct() {
+        return PrimitiveCollectors.distinct(IntStream.of(values)).count();
+    }
+
+    @Benchmark
+    public long parallelStreamDistinct() {
+        return IntStream.of(values).parallel().distinct().count();
+    }
+
+    @Benchmark
+    public long parallelBitmapDistinct() {
+        return PrimitiveCollectors.distinct(IntStream.of(values).parallel()).count();
+    }
+
+    @Benchmark
+    public int[] streamDistinctSorted() {
+        return IntStream.of(values).parallel().distinct().sorted().toArray();
+    }
+
+    @Benchmark
+    public int[] bitmapSortedDistinct() {
+        return PrimitiveCollectors.sortedDistinct(IntStream.of(values).parallel(), 0, range - 1).toArray();
+    }
+
+    @Benchmark
+    public Set<Integer> boxedToSet() {
+        return IntStream.of(values).parallel().boxed().collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public IntBitmap boxedToIntBitmap() {
+        return IntStream.of(values).parallel().boxed().collect(PrimitiveCollectors.toIntBitmap(0, range - 1));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(IntDistinctBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
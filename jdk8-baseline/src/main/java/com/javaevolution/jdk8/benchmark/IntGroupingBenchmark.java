@@ -0,0 +1,80 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.collection.IntCountMap;
+import com.javaevolution.jdk8.collection.IntObjectMap;
+import com.javaevolution.jdk8.collection.PrimitiveCollectors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH 基准测试: groupingBy(String::length) vs groupingByInt / countingByInt
+ * 对应 StreamAPIDemo.TerminalOperations.collectDemo 的分组写法;
+ * keys 控制不同键的数量 (键少 = 热点竞争,键多 = 并行合并 HashMap 的开销大)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntGroupingBenchmark {
+
+    @Param({"2000000"})
+    private int size;
+
+    @Param({"16", "100000"})
+    private int keys;
+
+    private List<Integer> values;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(random.nextInt(keys));
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupingByCounting() {
+        return values.parallelStream().collect(Collectors.groupingBy(v -> v, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupingByConcurrentCounting() {
+        return values.parallelStream().collect(Collectors.groupingByConcurrent(v -> v, Collectors.counting()));
+    }
+
+    @Benchmark
+    public IntCountMap countingByInt() {
+        return values.parallelStream().collect(PrimitiveCollectors.countingByInt(v -> v));
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> groupingByToList() {
+        return values.parallelStream().collect(Collectors.groupingBy(v -> v));
+    }
+
+    @Benchmark
+    public IntObjectMap<List<Integer>> groupingByIntToList() {
+        return values.parallelStream().collect(PrimitiveCollectors.groupingByInt(v -> v));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(IntGroupingBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.stream.ParallelSearch;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH 基准测试: 昂贵谓词下的并行短路查找
+ * 对应 StreamAPIDemo.TerminalOperations.findMatchDemo;
+ * target 是唯一命中元素的位置,命中越靠前,并行流"找到后其它叶子仍跑完分片"的浪费越明显
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({"20000"})
+    private int size;
+
+    /** 命中位置占总长度的比例 */
+    @Param({"0.01", "0.5"})
+    private double target;
+
+    /** 每次谓词调用消耗的 CPU 单位 */
+    @Param({"2000"})
+    private long cost;
+
+    private List<Integer> values;
+    private int match;
+
+    @Setup
+    public void setup() {
+        values = IntStream.range(0, size).boxed().collect(Collectors.toList());
+        match = (int) (size * target);
+    }
+
+    private boolean expensive(int value) {
+        Blackhole.consumeCPU(cost);
+        return value == match;
+    }
+
+    @Benchmark
+    public boolean streamAnyMatch() {
+        return values.parallelStream().anyMatch(this::expensive);
+    }
+
+    @Benchmark
+    public boolean searchFindAny() {
+        return ParallelSearch.of(values).findAny(this::expensive).isPresent();
+    }
+
+    @Benchmark
+    public Optional<Integer> streamFindFirst() {
+        return values.parallelStream().filter(this::expensive).findFirst();
+    }
+
+    @Benchmark
+    public Optional<Integer> searchFindFirst() {
+        return ParallelSearch.of(values).findFirst(this::expensive).toOptional();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(ParallelSearchBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.concurrency.IsolatedForkJoinPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JMH 基准测试: 混合负载下的延迟隔离
+ *
+ * 后台线程持续运行重量级并行聚合 (StreamAPIDemo 中的 sqrt 求和),
+ * 被测操作是公共池上的一次小型 CompletableFuture.supplyAsync 调用 (模拟异步服务调用)。
+ * - common:   聚合也跑在公共池,服务调用要和聚合子任务抢 worker
+ * - isolated: 聚合跑在独立的 IsolatedForkJoinPool,公共池保持空闲
+ *
+ * SampleTime 模式输出 p50/p99/p99.9 延迟分布
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PoolIsolationBenchmark {
+
+    @Param({"common", "isolated"})
+    private String mode;
+
+    private volatile boolean running;
+    private Thread loadThread;
+    private IsolatedForkJoinPool analytics;
+
+    @Setup(Level.Trial)
+    public void startLoad() {
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        analytics = new IsolatedForkJoinPool("analytics", parallelism);
+        running = true;
+        loadThread = new Thread(() -> {
+            while (running) {
+                if ("isolated".equals(mode)) {
+                    analytics.invoke(PoolIsolationBenchmark::heavyAggregation);
+                } else {
+                    heavyAggregation();
+                }
+            }
+        }, "load-generator");
+        loadThread.setDaemon(true);
+        loadThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopLoad() throws InterruptedException {
+        running = false;
+        loadThread.join();
+        System.out.println(analytics.metrics());
+        analytics.close();
+    }
+
+    static double heavyAggregation() {
+        return IntStream.range(0, 5_000_000)
+            .parallel()
+            .mapToDouble(Math::sqrt)
+            .sum();
+    }
+
+    @Benchmark
+    public Integer serviceCallLatency() {
+        return CompletableFuture.supplyAsync(() -> Integer.valueOf(42)).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(PoolIsolationBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.collection.IntArrayList;
+import com.javaevolution.jdk8.collection.PrimitiveCollectors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH 基准测试: List&lt;Integer&gt; vs IntArrayList
+ * 对应 StreamAPIDemo.ParallelStreamPitfalls.whenToUseParallel 中的
+ * IntStream.range(0, 1000000).boxed().collect(Collectors.toList())
+ *
+ * 吞吐量: 运行 main 即可
+ * 分配率: 加上 -prof gc 查看 gc.alloc.rate.norm (每次操作分配的字节数)
+ * 常驻内存: 运行 footprint() 对比两种列表保留的堆大小
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveListBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private List<Integer> boxedList;
+    private IntArrayList intList;
+
+    @Setup
+    public void setup() {
+        boxedList = IntStream.range(0, size).boxed().collect(Collectors.toList());
+        intList = PrimitiveCollectors.toIntList(IntStream.range(0, size));
+    }
+
+    // ---------- 构建 ----------
+
+    @Benchmark
+    public List<Integer> buildBoxed() {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public IntArrayList buildPrimitive() {
+        return PrimitiveCollectors.toIntList(IntStream.range(0, size));
+    }
+
+    @Benchmark
+    public List<Integer> buildBoxedParallel() {
+        return IntStream.range(0, size).parallel().boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public IntArrayList buildPrimitiveParallel() {
+        return PrimitiveCollectors.toIntList(IntStream.range(0, size).parallel());
+    }
+
+    // ---------- 遍历 (whenToUseParallel 的计算) ----------
+
+    @Benchmark
+    public double sqrtSumBoxed() {
+        return boxedList.stream().mapToDouble(n -> Math.sqrt(n)).sum();
+    }
+
+    @Benchmark
+    public double sqrtSumPrimitive() {
+        return intList.stream().mapToDouble(Math::sqrt).sum();
+    }
+
+    @Benchmark
+    public double sqrtSumBoxedParallel() {
+        return boxedList.parallelStream().mapToDouble(n -> Math.sqrt(n)).sum();
+    }
+
+    @Benchmark
+    public double sqrtSumPrimitiveParallel() {
+        return intList.parallelStream().mapToDouble(Math::sqrt).sum();
+    }
+
+    /**
+     * 粗略测量常驻堆大小: 构建前后各做一次 GC,取已用内存之差
+     */
+    static long footprint(Supplier<Object> factory) {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+        Object retained = factory.get();
+        System.gc();
+        long after = rt.totalMemory() - rt.freeMemory();
+        // 保证 retained 在测量结束前可达
+        if (retained.hashCode() == System.nanoTime()) {
+            System.out.println(retained);
+        }
+        return after - before;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int n = 1_000_000;
+        long boxed = footprint(() -> IntStream.range(0, n).boxed().collect(Collectors.toList()));
+        long primitive = footprint(() -> {
+            IntArrayList list = PrimitiveCollectors.toIntList(IntStream.range(0, n));
+            list.trimToSize();
+            return list;
+        });
+        System.out.printf("Footprint of %,d elements: List<Integer> ~%,d bytes (%.1f B/elem), "
+                + "IntArrayList ~%,d bytes (%.1f B/elem)%n",
+            n, boxed, (double) boxed / n, primitive, (double) primitive / n);
+
+        Options opt = new OptionsBuilder()
+            .include(PrimitiveListBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,166 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.function.PropertyPath;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH 基准测试: 手写 null 检查 vs Optional 链 vs PropertyPath
+ * 对应 OptionalDemo.AdvancedUsage.cascadingOptional; 每种写法各有一个关闭逃逸分析的版本
+ * (方法名后缀 NoEA,-XX:-DoEscapeAnalysis),对比 Optional 链的中间对象是否被消除
+ *
+ * propertyPath 与 optionalChain 调用同样的 Optional getter,只比较链本身的开销;
+ * propertyPathFields 用 field 显式绕过 getter,与 nullChecks 对应
+ *
+ * 分配量用 -prof gc 查看 (gc.alloc.rate.norm,单位 B/op)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyPathBenchmark {
+
+    static final class User {
+        private final Address address;
+
+        User(Address address) {
+            this.address = address;
+        }
+
+        Optional<Address> getAddress() {
+            return Optional.ofNullable(address);
+        }
+    }
+
+    static final class Address {
+        private final ZipCode zipCode;
+
+        Address(ZipCode zipCode) {
+            this.zipCode = zipCode;
+        }
+
+        Optional<ZipCode> getZipCode() {
+            return Optional.ofNullable(zipCode);
+        }
+    }
+
+    static final class ZipCode {
+        private final String code;
+
+        ZipCode(String code) {
+            this.code = code;
+        }
+
+        String getCode() {
+            return code;
+        }
+    }
+
+    private static final PropertyPath<User, String> ZIP_CODE =
+        PropertyPath.of(User.class, String.class, "address", "zipCode", "code");
+    private static final PropertyPath<User, String> ZIP_CODE_FIELDS =
+        PropertyPath.from(User.class).field("address").field("zipCode").get("code", String.class).compile();
+
+    @Param({"10000"})
+    private int size;
+
+    private User[] users;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        users = new User[size];
+        for (int i = 0; i < size; i++) {
+            // 约 1/4 缺地址、1/4 缺邮编
+            int r = random.nextInt(4);
+            Address address = r == 0 ? null
+                : new Address(r == 1 ? null : new ZipCode(String.valueOf(100000 + i)));
+            users[i] = new User(address);
+        }
+    }
+
+    @Benchmark
+    public int nullChecks() {
+        int h = 0;
+        for (User user : users) {
+            String code = "Unknown";
+            if (user != null && user.address != null && user.address.zipCode != null) {
+                code = user.address.zipCode.getCode();
+            }
+            h += code.length();
+        }
+        return h;
+    }
+
+    @Benchmark
+    public int optionalChain() {
+        int h = 0;
+        for (User user : users) {
+            String code = Optional.ofNullable(user)
+                .flatMap(User::getAddress)
+                .flatMap(Address::getZipCode)
+                .map(ZipCode::getCode)
+                .orElse("Unknown");
+            h += code.length();
+        }
+        return h;
+    }
+
+    @Benchmark
+    public int propertyPath() {
+        int h = 0;
+        for (User user : users) {
+            h += ZIP_CODE.getOrDefault(user, "Unknown").length();
+        }
+        return h;
+    }
+
+    @Benchmark
+    public int propertyPathFields() {
+        int h = 0;
+        for (User user : users) {
+            h += ZIP_CODE_FIELDS.getOrDefault(user, "Unknown").length();
+        }
+        return h;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+    public int nullChecksNoEA() {
+        return nullChecks();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+    public int optionalChainNoEA() {
+        return optionalChain();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+    public int propertyPathNoEA() {
+        return propertyPath();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+    public int propertyPathFieldsNoEA() {
+        return propertyPathFields();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(PropertyPathBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
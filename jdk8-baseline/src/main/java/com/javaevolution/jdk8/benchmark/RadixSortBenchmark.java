@@ -0,0 +1,130 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.stream.RadixSort;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH 基准测试: Arrays.sort / Arrays.parallelSort vs RadixSort
+ * 对应 StreamAPIDemo.IntermediateOperations.distinctSortedLimitSkip 中的 sorted();
+ * 每次调用先 clone 原数组 (各方法开销相同),1 亿元素时 long/double 需要约 3GB 堆
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class RadixSortBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class IntData {
+        @Param({"1000000", "100000000"})
+        private int size;
+
+        private int[] values;
+
+        @Setup
+        public void setup() {
+            values = new SplittableRandom(42).ints(size).toArray();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LongData {
+        @Param({"1000000", "100000000"})
+        private int size;
+
+        private long[] values;
+
+        @Setup
+        public void setup() {
+            values = new SplittableRandom(42).longs(size).toArray();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DoubleData {
+        @Param({"1000000", "100000000"})
+        private int size;
+
+        private double[] values;
+
+        @Setup
+        public void setup() {
+            SplittableRandom random = new SplittableRandom(42);
+            values = new double[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = random.nextDouble(-1e6, 1e6);
+            }
+        }
+    }
+
+    // ---------- int ----------
+
+    @Benchmark
+    public int[] intArraysParallelSort(IntData data) {
+        int[] a = data.values.clone();
+        Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] intRadixSort(IntData data) {
+        int[] a = data.values.clone();
+        RadixSort.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] intRadixParallelSort(IntData data) {
+        int[] a = data.values.clone();
+        RadixSort.parallelSort(a);
+        return a;
+    }
+
+    // ---------- long ----------
+
+    @Benchmark
+    public long[] longArraysParallelSort(LongData data) {
+        long[] a = data.values.clone();
+        Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] longRadixParallelSort(LongData data) {
+        long[] a = data.values.clone();
+        RadixSort.parallelSort(a);
+        return a;
+    }
+
+    // ---------- double ----------
+
+    @Benchmark
+    public double[] doubleArraysParallelSort(DoubleData data) {
+        double[] a = data.values.clone();
+        Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public double[] doubleRadixParallelSort(DoubleData data) {
+        double[] a = data.values.clone();
+        RadixSort.parallelSort(a);
+        return a;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(RadixSortBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,138 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.stream.sketch.CountMinSketch;
+import com.javaevolution.jdk8.stream.sketch.SketchCollectors;
+import com.javaevolution.jdk8.stream.sketch.SpaceSaving;
+import com.javaevolution.jdk8.stream.sketch.TDigest;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 近似收集器精度校验: 在大规模生成数据上与精确收集器逐项对比
+ *
+ * 数据: N 条事件,用户 ID 服从近似 Zipf 分布 (少量热点 + 长尾),延迟服从对数正态分布
+ * 对比项:
+ * - HyperLogLog        vs distinct().count()
+ * - Space-Saving Top-K vs groupingBy(counting()) 排序后的 Top-K
+ * - Count-Min          vs groupingBy(counting()) 的点查询
+ * - t-digest 分位数    vs 排序后按下标取值
+ * - 蓄水池抽样的均值   vs 全量均值
+ *
+ * 任一项超出配置的误差界时以非 0 状态码退出
+ *
+ * 运行: java ... SketchAccuracyCheck [事件数,默认 5000000]
+ */
+public class SketchAccuracyCheck {
+
+    static final class Event {
+        final long userId;
+        final double latencyMillis;
+
+        Event(long userId, double latencyMillis) {
+            this.userId = userId;
+            this.latencyMillis = latencyMillis;
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Random random = new Random(42);
+        List<Event> events = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            // u^4 把均匀分布压向 0,形成头部热点
+            long user = (long) (Math.pow(random.nextDouble(), 4) * n);
+            double latency = Math.exp(3 + 0.8 * random.nextGaussian());
+            events.add(new Event(user, latency));
+        }
+        boolean ok = true;
+
+        // ---------- distinct count ----------
+        double hllError = 0.01;
+        long exactDistinct = events.parallelStream().map(e -> e.userId).distinct().count();
+        long approxDistinct = events.parallelStream()
+            .map(e -> e.userId)
+            .collect(SketchCollectors.approxDistinctCount(hllError));
+        double distinctError = Math.abs(approxDistinct - exactDistinct) / (double) exactDistinct;
+        // 3 倍标准误差以内视为通过
+        ok &= report("HyperLogLog distinct", exactDistinct, approxDistinct, distinctError, 3 * hllError);
+
+        // ---------- heavy hitters ----------
+        Map<Long, Long> exactCounts = events.parallelStream()
+            .collect(Collectors.groupingByConcurrent(e -> e.userId, Collectors.counting()));
+        List<Long> exactTop = exactCounts.entrySet().stream()
+            .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+            .limit(10)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+
+        Function<Event, Long> byUser = e -> e.userId;
+        List<SpaceSaving.Counter<Long>> approxTop = events.parallelStream()
+            .collect(SketchCollectors.heavyHitters(byUser, 10, 1000));
+        Set<Long> approxTopKeys = new HashSet<>();
+        long maxOverestimate = 0;
+        for (SpaceSaving.Counter<Long> c : approxTop) {
+            approxTopKeys.add(c.getItem());
+            long exact = exactCounts.getOrDefault(c.getItem(), 0L);
+            if (c.getCount() < exact || c.getGuaranteedCount() > exact) {
+                System.out.println("  Space-Saving bound violated for " + c);
+                ok = false;
+            }
+            maxOverestimate = Math.max(maxOverestimate, c.getCount() - exact);
+        }
+        double recall = exactTop.stream().filter(approxTopKeys::contains).count() / 10.0;
+        System.out.printf("%-24s exact=%s%n%-24s approx=%s%n", "Space-Saving top-10", exactTop, "", approxTop);
+        ok &= report("Space-Saving recall", 1.0, recall, 1 - recall, 0.2);
+        ok &= report("Space-Saving overcount", 0, maxOverestimate, maxOverestimate / (double) n, 1.0 / 1000);
+
+        // ---------- point frequency ----------
+        double epsilon = 1e-4;
+        CountMinSketch cms = events.parallelStream()
+            .collect(SketchCollectors.countMin(byUser, epsilon, 0.01));
+        long worst = 0;
+        for (Long key : exactTop) {
+            worst = Math.max(worst, cms.estimate(key) - exactCounts.get(key));
+        }
+        ok &= report("Count-Min overcount", 0, worst, worst / (double) n, epsilon);
+
+        // ---------- quantiles ----------
+        double[] sorted = events.parallelStream().mapToDouble(e -> e.latencyMillis).sorted().toArray();
+        TDigest digest = events.parallelStream()
+            .collect(SketchCollectors.tDigest(e -> e.latencyMillis, 200));
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            double exact = sorted[(int) Math.min(sorted.length - 1, Math.floor(q * sorted.length))];
+            double approx = digest.quantile(q);
+            // t-digest 的误差以"秩"衡量: 估计值在精确排序中的位置偏离 q 多少
+            int rank = Arrays.binarySearch(sorted, approx);
+            double rankQ = (rank >= 0 ? rank : -rank - 1) / (double) sorted.length;
+            ok &= report(String.format("t-digest p%s", q * 100), exact, approx,
+                Math.abs(rankQ - q), 0.005);
+        }
+        System.out.println("t-digest centroids: " + digest.centroidCount() + " for " + n + " samples");
+
+        // ---------- sampling ----------
+        int k = 10_000;
+        double exactMean = events.parallelStream().mapToDouble(e -> e.latencyMillis).average().getAsDouble();
+        List<Event> sample = events.parallelStream().collect(SketchCollectors.reservoirSample(k));
+        double sampleMean = sample.stream().mapToDouble(e -> e.latencyMillis).average().getAsDouble();
+        double sampleSd = Math.sqrt(sample.stream()
+            .mapToDouble(e -> (e.latencyMillis - sampleMean) * (e.latencyMillis - sampleMean))
+            .sum() / (k - 1));
+        // 等概率样本的均值: 4 倍标准误差以内视为通过
+        ok &= report("Reservoir sample mean", exactMean, sampleMean,
+            Math.abs(sampleMean - exactMean) / exactMean, 4 * sampleSd / Math.sqrt(k) / exactMean);
+
+        System.out.println(ok ? "ALL WITHIN BOUNDS" : "SOME CHECKS FAILED");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean report(String name, double exact, double approx, double error, double bound) {
+        boolean pass = error <= bound;
+        System.out.printf("%-24s exact=%-14.4f approx=%-14.4f error=%.5f bound=%.5f %s%n",
+            name, exact, approx, error, bound, pass ? "OK" : "FAIL");
+        return pass;
+    }
+}
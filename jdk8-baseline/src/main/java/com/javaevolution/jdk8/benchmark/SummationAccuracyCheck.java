@@ -0,0 +1,101 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.stream.DoubleSums;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * 求和精度与可复现性校验
+ *
+ * 数据模拟账务流水: 大额借贷成对出现 (互相抵消),夹杂小额手续费与利息,
+ * 量级跨度大、抵消严重,正是朴素累加误差最大的场景。
+ * 以 BigDecimal 精确和为基准,输出各方法的误差 (ulp),
+ * 并在并行度 1 ~ 8 的池中重复执行,统计每种方法出现了几种不同结果。
+ *
+ * 可复现的方法 (DoubleSums.sum / parallelSum / exactSum) 出现多种结果时以非 0 状态码退出
+ *
+ * 运行: java ... SummationAccuracyCheck [行数,默认 10000000]
+ */
+public class SummationAccuracyCheck {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        double[] amounts = ledger(n, new Random(2024));
+
+        BigDecimal exact = BigDecimal.ZERO;
+        for (double amount : amounts) {
+            exact = exact.add(new BigDecimal(amount));
+        }
+        double reference = exact.doubleValue();
+        System.out.printf("rows=%d exact=%s (as double %s)%n", n, exact.toPlainString(), reference);
+
+        Map<String, Supplier<Double>> methods = new LinkedHashMap<>();
+        methods.put("naive loop", () -> {
+            double s = 0;
+            for (double amount : amounts) {
+                s += amount;
+            }
+            return s;
+        });
+        methods.put("stream().sum()", () -> Arrays.stream(amounts).sum());
+        methods.put("parallel().sum()", () -> Arrays.stream(amounts).parallel().sum());
+        methods.put("parallel().reduce(+)", () -> Arrays.stream(amounts).parallel().reduce(0, Double::sum));
+        methods.put("DoubleSums.sum", () -> DoubleSums.sum(amounts));
+        methods.put("DoubleSums.parallelSum", () -> DoubleSums.parallelSum(amounts));
+        methods.put("DoubleSums.exactSum", () -> DoubleSums.exactSum(Arrays.stream(amounts).parallel()));
+        Set<String> reproducible = new HashSet<>(Arrays.asList(
+            "DoubleSums.sum", "DoubleSums.parallelSum", "DoubleSums.exactSum"));
+
+        boolean ok = true;
+        System.out.printf("%-24s %26s %12s %10s%n", "method", "result", "error(ulp)", "variants");
+        for (Map.Entry<String, Supplier<Double>> method : methods.entrySet()) {
+            Set<Long> variants = new HashSet<>();
+            double result = Double.NaN;
+            for (int parallelism : new int[]{1, 2, 3, 4, 8}) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    result = pool.submit(method.getValue()::get).join();
+                } finally {
+                    pool.shutdown();
+                }
+                variants.add(Double.doubleToLongBits(result));
+            }
+            double ulps = Math.abs(result - reference) / Math.ulp(reference);
+            System.out.printf("%-24s %26s %12.1f %10d%n", method.getKey(), result, ulps, variants.size());
+            if (reproducible.contains(method.getKey()) && variants.size() != 1) {
+                ok = false;
+            }
+        }
+        System.out.println(ok ? "REPRODUCIBLE" : "NON-REPRODUCIBLE RESULT DETECTED");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 以分为最小单位的流水: 约一半是大额借贷对,其余为小额
+     */
+    static double[] ledger(int n, Random random) {
+        double[] amounts = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (i + 1 < n && random.nextInt(4) == 0) {
+                double large = Math.round(random.nextDouble() * 1e12) / 100.0;
+                amounts[i++] = large;
+                amounts[i] = -large + Math.round(random.nextGaussian() * 100) / 100.0;
+            } else {
+                amounts[i] = Math.round(random.nextGaussian() * 5_000) / 100.0;
+            }
+        }
+        // 打乱顺序,让抵消项分散在不同分片
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double t = amounts[i];
+            amounts[i] = amounts[j];
+            amounts[j] = t;
+        }
+        return amounts;
+    }
+}
@@ -0,0 +1,140 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.stream.text.TextStreams;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH 基准测试: word.split("") vs TextStreams
+ * 对应 StreamAPIDemo.IntermediateOperations.flatMapDemo;
+ * 语料为随机拼接的中英文单词 (约 corpusChars 个字符),建议加 -prof gc 观察分配量
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    private static final String[] VOCABULARY = {
+        "stream", "lambda", "collector", "parallel", "the", "this", "that",
+        "并行", "流水线", "收集器", "java", "spliterator", "fork", "join"
+    };
+
+    @Param({"10000000"})
+    private int corpusChars;
+
+    private String corpus;
+    private byte[] corpusUtf8;
+    private List<String> words;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(corpusChars + 16);
+        while (sb.length() < corpusChars) {
+            sb.append(VOCABULARY[random.nextInt(VOCABULARY.length)]).append(' ');
+        }
+        corpus = sb.toString();
+        corpusUtf8 = corpus.getBytes(StandardCharsets.UTF_8);
+        words = Arrays.asList(corpus.split(" "));
+    }
+
+    // ---------- 去重字符 ----------
+
+    @Benchmark
+    public long distinctCharsSplit() {
+        return words.stream()
+            .flatMap(word -> Arrays.stream(word.split("")))
+            .distinct()
+            .count();
+    }
+
+    @Benchmark
+    public long distinctCharsCodePoints() {
+        return words.stream()
+            .flatMapToInt(TextStreams::codePoints)
+            .collect(BitSet::new, BitSet::set, BitSet::or)
+            .cardinality();
+    }
+
+    @Benchmark
+    public long distinctCharsCorpusParallel() {
+        return TextStreams.codePoints(corpus).parallel()
+            .filter(cp -> cp != ' ')
+            .collect(BitSet::new, BitSet::set, BitSet::or)
+            .cardinality();
+    }
+
+    @Benchmark
+    public long distinctCharsUtf8Parallel() {
+        return TextStreams.codePoints(corpusUtf8).parallel()
+            .filter(cp -> cp != ' ')
+            .collect(BitSet::new, BitSet::set, BitSet::or)
+            .cardinality();
+    }
+
+    // ---------- bigram 计数: 统计 "th" 出现次数 ----------
+
+    @Benchmark
+    public long bigramSubstring() {
+        return words.stream()
+            .flatMap(word -> {
+                String[] chars = word.split("");
+                return IntStream.range(0, chars.length - 1).mapToObj(i -> chars[i] + chars[i + 1]);
+            })
+            .filter("th"::equals)
+            .count();
+    }
+
+    @Benchmark
+    public long bigramPacked() {
+        long th = TextStreams.ngrams("th", 2).findFirst().getAsLong();
+        return words.stream()
+            .flatMapToLong(word -> TextStreams.ngrams(word, 2))
+            .filter(key -> key == th)
+            .count();
+    }
+
+    @Benchmark
+    public long bigramPackedParallel() {
+        long th = TextStreams.ngrams("th", 2).findFirst().getAsLong();
+        return TextStreams.ngrams(corpus, 2).parallel()
+            .filter(key -> key == th)
+            .count();
+    }
+
+    // ---------- 分词 ----------
+
+    @Benchmark
+    public List<String> tokenizeSplit() {
+        return Arrays.stream(corpus.split("\\s+")).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public long tokenSpansParallel() {
+        return TextStreams.tokenSpans(corpus).parallel()
+            .map(span -> TextStreams.spanEnd(span) - TextStreams.spanStart(span))
+            .sum();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(TokenizerBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
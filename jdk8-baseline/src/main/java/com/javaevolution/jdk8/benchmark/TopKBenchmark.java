@@ -0,0 +1,90 @@
+package com.javaevolution.jdk8.benchmark;
+
+import com.javaevolution.jdk8.stream.TopK;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH 基准测试: sorted().limit(k) vs 有界堆 Top-K
+ * 对应 StreamAPIDemo.IntermediateOperations.distinctSortedLimitSkip,
+ * 在 n 远大于 k 时比较时间 (以及 -prof gc 下的分配量)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopKBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    @Param({"10", "1000"})
+    private int k;
+
+    private int[] ints;
+    private List<Integer> boxed;
+
+    @Setup
+    public void setup() {
+        ints = new Random(42).ints(size).toArray();
+        boxed = Arrays.stream(ints).boxed().collect(Collectors.toList());
+    }
+
+    // ---------- 对象流 ----------
+
+    @Benchmark
+    public List<Integer> sortedLimit() {
+        return boxed.stream().sorted().limit(k).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> sortedLimitParallel() {
+        return boxed.parallelStream().sorted().limit(k).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> topK() {
+        return boxed.stream().collect(TopK.smallest(k, Comparator.<Integer>naturalOrder()));
+    }
+
+    @Benchmark
+    public List<Integer> topKParallel() {
+        return boxed.parallelStream().collect(TopK.smallest(k, Comparator.<Integer>naturalOrder()));
+    }
+
+    // ---------- IntStream ----------
+
+    @Benchmark
+    public int[] intSortedLimit() {
+        return Arrays.stream(ints).sorted().limit(k).toArray();
+    }
+
+    @Benchmark
+    public int[] intTopK() {
+        return TopK.smallest(Arrays.stream(ints), k);
+    }
+
+    @Benchmark
+    public int[] intTopKParallel() {
+        return TopK.smallest(Arrays.stream(ints).parallel(), k);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(TopKBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
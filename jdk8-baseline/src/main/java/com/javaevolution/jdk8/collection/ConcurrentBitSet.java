@@ -0,0 +1,73 @@
+package com.javaevolution.jdk8.collection;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定值域 [min, max] 的无锁位集,并行流的所有线程直接写入同一份位图
+ *
+ * 写入先读后 CAS: 位已置上时不产生写操作 (去重场景下重复值占多数),
+ * 否则 CAS 失败只说明同一 word 的其它位被并发置上,重试即可。
+ * 起点向下对齐到 65536,便于按块转换为 IntBitmap
+ */
+final class ConcurrentBitSet {
+
+    private final int min;
+    private final int max;
+    private final int base;
+    private final AtomicLongArray words;
+
+    ConcurrentBitSet(int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("min > max: " + min + " > " + max);
+        }
+        this.min = min;
+        this.max = max;
+        this.base = min & 0xFFFF0000;
+        this.words = new AtomicLongArray((int) ((((long) max - base) >>> 6) + 1));
+    }
+
+    /**
+     * 值域宽度 (值的个数)
+     */
+    static long range(int min, int max) {
+        return (long) max - min + 1;
+    }
+
+    boolean add(int value) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("value " + value + " outside [" + min + ", " + max + "]");
+        }
+        int offset = value - base;
+        int w = offset >>> 6;
+        long mask = 1L << offset;
+        long word = words.get(w);
+        while ((word & mask) == 0) {
+            if (words.compareAndSet(w, word, word | mask)) {
+                return true;
+            }
+            word = words.get(w);
+        }
+        return false;
+    }
+
+    /**
+     * 并入同一值域的另一份位集; 只在流退化为非并发收集时作为 combiner 使用
+     */
+    ConcurrentBitSet or(ConcurrentBitSet other) {
+        for (int w = 0; w < other.words.length(); w++) {
+            long bits = other.words.get(w);
+            if (bits != 0) {
+                words.accumulateAndGet(w, bits, (a, b) -> a | b);
+            }
+        }
+        return this;
+    }
+
+    IntBitmap toBitmap() {
+        long[] snapshot = new long[words.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = words.get(i);
+        }
+        return IntBitmap.fromWords(base, snapshot);
+    }
+}
@@ -0,0 +1,210 @@
+package com.javaevolution.jdk8.collection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * int 键的并发哈希表,只支持插入 (computeIfAbsent) 与查询
+ *
+ * 与 ConcurrentHashMap&lt;Integer, V&gt; 相比:
+ * - 键不装箱,查找路径上没有 Integer 分配
+ * - 无锁: 开放寻址 + CAS 占槽,读取只需 volatile 读
+ *
+ * 扩容不搬迁旧数据: 当前层装满一半时追加一层容量翻倍的新表,查找按层依次探测。
+ * 并发插入同一个键时,极少数情况下它会同时出现在相邻两层,
+ * 因此遍历方 (forEach) 必须能合并重复键,例如计数相加、分组容器合并。
+ *
+ * @param <V> 值类型,通常是 LongAdder 或线程安全的容器
+ */
+public class ConcurrentIntTable<V> {
+
+    /**
+     * 遍历回调
+     */
+    @FunctionalInterface
+    public interface IntObjConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final class Entry<V> {
+        final int key;
+        final V value;
+
+        Entry(int key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Level<V> {
+        final AtomicReferenceArray<Entry<V>> slots;
+        final int mask;
+        final int threshold;
+        final AtomicInteger size = new AtomicInteger();
+
+        Level(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.threshold = capacity >>> 1;
+        }
+
+        V get(int key, int hash) {
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                Entry<V> e = slots.get(i);
+                if (e == null) {
+                    return null;
+                }
+                if (e.key == key) {
+                    return e.value;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 返回已有值或新插入的值; 本层已满时返回 null
+         */
+        V putIfAbsent(int key, int hash, IntFunction<? extends V> factory) {
+            V created = null;
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                Entry<V> e = slots.get(i);
+                while (e == null) {
+                    if (size.get() >= threshold) {
+                        return null;
+                    }
+                    if (created == null) {
+                        created = factory.apply(key);
+                    }
+                    Entry<V> fresh = new Entry<>(key, created);
+                    if (slots.compareAndSet(i, null, fresh)) {
+                        size.incrementAndGet();
+                        return created;
+                    }
+                    e = slots.get(i);
+                }
+                if (e.key == key) {
+                    return e.value;
+                }
+            }
+            return null;
+        }
+    }
+
+    private volatile Level<V>[] levels;
+
+    public ConcurrentIntTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ConcurrentIntTable(int expectedKeys) {
+        if (expectedKeys < 0) {
+            throw new IllegalArgumentException("expectedKeys must be >= 0: " + expectedKeys);
+        }
+        int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, expectedKeys) * 2 - 1) << 1;
+        Level<V>[] initial = newLevels(1);
+        initial[0] = new Level<>(capacity);
+        this.levels = initial;
+    }
+
+    /**
+     * 返回 key 对应的值,不存在时用 factory 创建
+     * 竞争插入时 factory 可能被调用多次,只有一个结果会被保留
+     */
+    public V computeIfAbsent(int key, IntFunction<? extends V> factory) {
+        int hash = mix(key);
+        Level<V>[] snapshot = levels;
+        for (Level<V> level : snapshot) {
+            V v = level.get(key, hash);
+            if (v != null) {
+                return v;
+            }
+        }
+        while (true) {
+            V v = snapshot[snapshot.length - 1].putIfAbsent(key, hash, factory);
+            if (v != null) {
+                return v;
+            }
+            int known = snapshot.length;
+            snapshot = grow(snapshot);
+            // 其他线程可能已在新追加的层里插入了该键
+            for (int i = known; i < snapshot.length; i++) {
+                v = snapshot[i].get(key, hash);
+                if (v != null) {
+                    return v;
+                }
+            }
+        }
+    }
+
+    /**
+     * 查询,不存在时返回 null; 若键出现在多层,返回最早一层的值
+     */
+    public V get(int key) {
+        int hash = mix(key);
+        for (Level<V> level : levels) {
+            V v = level.get(key, hash);
+            if (v != null) {
+                return v;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 遍历所有条目 (按层、按槽位,无特定顺序); 重复键会被回调多次
+     * 只应在写入结束后调用,例如收集器的 finisher
+     */
+    public void forEach(IntObjConsumer<? super V> action) {
+        for (Level<V> level : levels) {
+            for (int i = 0; i <= level.mask; i++) {
+                Entry<V> e = level.slots.get(i);
+                if (e != null) {
+                    action.accept(e.key, e.value);
+                }
+            }
+        }
+    }
+
+    /**
+     * 条目数 (含可能的重复键)
+     */
+    public int size() {
+        int size = 0;
+        for (Level<V> level : levels) {
+            size += level.size.get();
+        }
+        return size;
+    }
+
+    private synchronized Level<V>[] grow(Level<V>[] seen) {
+        Level<V>[] current = levels;
+        if (current != seen) {
+            return current;
+        }
+        Level<V>[] next = newLevels(current.length + 1);
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = new Level<>((current[current.length - 1].mask + 1) << 1);
+        levels = next;
+        return next;
+    }
+
+    private static <V> Level<V>[] newLevels(int length) {
+        @SuppressWarnings("unchecked")
+        Level<V>[] array = (Level<V>[]) new Level<?>[length];
+        return array;
+    }
+
+    private static int mix(int key) {
+        // Murmur3 fmix32,避免连续整数键聚集在相邻槽位
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,178 @@
+package com.javaevolution.jdk8.collection;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * int 专用的可增长列表
+ * 与 List&lt;Integer&gt; 相比: 每个元素 4 字节连续存储,没有 Integer 对象头和引用间接寻址
+ *
+ * 流支持: stream() 基于 SIZED | SUBSIZED 的数组 Spliterator,并行时可以按下标二分
+ */
+public class IntArrayList {
+
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int[] EMPTY = {};
+
+    private int[] elements;
+    private int size;
+
+    public IntArrayList() {
+        this.elements = EMPTY;
+    }
+
+    public IntArrayList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.elements = initialCapacity == 0 ? EMPTY : new int[initialCapacity];
+    }
+
+    public static IntArrayList of(int... values) {
+        IntArrayList list = new IntArrayList(values.length);
+        System.arraycopy(values, 0, list.elements, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    /**
+     * 包装已有数组 (不复制),适合把 IntStream.toArray() 的结果直接交给列表
+     */
+    public static IntArrayList wrap(int[] values) {
+        IntArrayList list = new IntArrayList();
+        list.elements = values;
+        list.size = values.length;
+        return list;
+    }
+
+    public void add(int value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+    }
+
+    public void addAll(IntArrayList other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.elements, 0, elements, size, other.size);
+        size += other.size;
+    }
+
+    public int get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public int set(int index, int value) {
+        checkIndex(index);
+        int old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public int removeAt(int index) {
+        checkIndex(index);
+        int old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elements.length) {
+            grow(minCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (size < elements.length) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(elements, 0, size, Spliterator.ORDERED);
+    }
+
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true);
+    }
+
+    private void grow(int minCapacity) {
+        int oldCapacity = elements.length;
+        // 与 ArrayList 相同的 1.5 倍扩容策略
+        int newCapacity = Math.max(minCapacity,
+            oldCapacity == 0 ? DEFAULT_CAPACITY : oldCapacity + (oldCapacity >> 1));
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntArrayList)) {
+            return false;
+        }
+        IntArrayList other = (IntArrayList) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (elements[i] != other.elements[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + elements[i];
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,439 @@
+package com.javaevolution.jdk8.collection;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 压缩位图 int 集合 (Roaring 式分块)
+ *
+ * 按高 16 位把 int 分成 65536 个块,每块按自身密度选择存储:
+ * - 稀疏 (不超过 4096 个元素): 有序 char[],每个元素 2 字节
+ * - 稠密: 1024 个 long 的位图,固定 8KB
+ * 因此 id、端口这类稠密区间接近 1 位/元素,零散的大值也只占少量空间,
+ * 相比 HashSet&lt;Integer&gt; (每个元素约 40~50 字节) 小一到两个数量级,且 contains 不装箱。
+ *
+ * 迭代与 stream() 按数值升序; stream() 按块边界拆分,报告 SIZED | SUBSIZED,可以并行。
+ * 非线程安全: 并行收集时每个线程各自累加,再用 or 合并 (见 PrimitiveCollectors.toIntBitmap)
+ */
+public final class IntBitmap {
+
+    /** 稀疏块的最大元素数,超过后转为位图 (4096 × 2 字节 = 8KB,与位图大小相同) */
+    static final int ARRAY_MAX = 4096;
+    static final int BITMAP_WORDS = 1 << 10;
+
+    /** 两级目录: 块键 (高 16 位异或 0x8000,使块按有符号数值排序) 的高 8 位选页,低 8 位选槽 */
+    private final Container[][] pages = new Container[256][];
+    private int size;
+
+    public static IntBitmap of(int... values) {
+        IntBitmap bitmap = new IntBitmap();
+        for (int v : values) {
+            bitmap.add(v);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 加入 value,返回是否是新元素
+     */
+    public boolean add(int value) {
+        int key = key(value);
+        Container[] page = pages[key >>> 8];
+        if (page == null) {
+            page = pages[key >>> 8] = new Container[256];
+        }
+        Container c = page[key & 0xFF];
+        if (c == null) {
+            c = page[key & 0xFF] = new Container();
+        }
+        if (c.add(value & 0xFFFF)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(int value) {
+        int key = key(value);
+        Container[] page = pages[key >>> 8];
+        if (page == null) {
+            return false;
+        }
+        Container c = page[key & 0xFF];
+        return c != null && c.contains(value & 0xFFFF);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 原地并集,返回 this; 作为并行收集的 combiner
+     */
+    public IntBitmap or(IntBitmap other) {
+        for (int p = 0; p < 256; p++) {
+            Container[] theirs = other.pages[p];
+            if (theirs == null) {
+                continue;
+            }
+            Container[] mine = pages[p];
+            if (mine == null) {
+                mine = pages[p] = new Container[256];
+            }
+            for (int slot = 0; slot < 256; slot++) {
+                Container c = theirs[slot];
+                if (c == null) {
+                    continue;
+                }
+                if (mine[slot] == null) {
+                    mine[slot] = c.copy();
+                    size += c.cardinality;
+                } else {
+                    int before = mine[slot].cardinality;
+                    mine[slot].or(c);
+                    size += mine[slot].cardinality - before;
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 按升序遍历
+     */
+    public void forEach(IntConsumer action) {
+        for (int p = 0; p < 256; p++) {
+            Container[] page = pages[p];
+            if (page == null) {
+                continue;
+            }
+            for (int slot = 0; slot < 256; slot++) {
+                if (page[slot] != null) {
+                    page[slot].forEach(base(p << 8 | slot), action);
+                }
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int[] cursor = {0};
+        forEach(v -> result[cursor[0]++] = v);
+        return result;
+    }
+
+    /**
+     * 升序流; 遍历期间不要修改集合
+     */
+    public IntStream stream() {
+        int count = 0;
+        for (Container[] page : pages) {
+            if (page != null) {
+                for (Container c : page) {
+                    count += c == null ? 0 : 1;
+                }
+            }
+        }
+        int[] keys = new int[count];
+        Container[] containers = new Container[count];
+        long[] prefix = new long[count + 1];
+        int i = 0;
+        for (int p = 0; p < 256; p++) {
+            Container[] page = pages[p];
+            if (page == null) {
+                continue;
+            }
+            for (int slot = 0; slot < 256; slot++) {
+                if (page[slot] != null) {
+                    keys[i] = p << 8 | slot;
+                    containers[i] = page[slot];
+                    prefix[i + 1] = prefix[i] + page[slot].cardinality;
+                    i++;
+                }
+            }
+        }
+        return StreamSupport.intStream(new BitmapSpliterator(keys, containers, prefix, 0, count), false);
+    }
+
+    /**
+     * 估算占用的字节数 (不含对象头)
+     */
+    public long sizeInBytes() {
+        long bytes = pages.length * 4L;
+        for (Container[] page : pages) {
+            if (page == null) {
+                continue;
+            }
+            bytes += page.length * 4L;
+            for (Container c : page) {
+                if (c != null) {
+                    bytes += c.bits != null ? BITMAP_WORDS * 8L : c.array.length * 2L;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 由对齐到 65536 的稠密位图批量构建: words[k] 的第 b 位表示 base + 64k + b
+     */
+    static IntBitmap fromWords(int base, long[] words) {
+        IntBitmap bitmap = new IntBitmap();
+        for (int from = 0; from < words.length; from += BITMAP_WORDS) {
+            int to = Math.min(words.length, from + BITMAP_WORDS);
+            int cardinality = 0;
+            for (int w = from; w < to; w++) {
+                cardinality += Long.bitCount(words[w]);
+            }
+            if (cardinality == 0) {
+                continue;
+            }
+            Container c = new Container();
+            if (cardinality > ARRAY_MAX) {
+                c.array = null;
+                c.bits = new long[BITMAP_WORDS];
+                System.arraycopy(words, from, c.bits, 0, to - from);
+            } else {
+                c.array = new char[cardinality];
+                int n = 0;
+                for (int w = from; w < to; w++) {
+                    for (long word = words[w]; word != 0; word &= word - 1) {
+                        c.array[n++] = (char) (((w - from) << 6) + Long.numberOfTrailingZeros(word));
+                    }
+                }
+            }
+            c.cardinality = cardinality;
+            int key = key(base + (from << 6));
+            if (bitmap.pages[key >>> 8] == null) {
+                bitmap.pages[key >>> 8] = new Container[256];
+            }
+            bitmap.pages[key >>> 8][key & 0xFF] = c;
+            bitmap.size += cardinality;
+        }
+        return bitmap;
+    }
+
+    private static int key(int value) {
+        return (value >>> 16) ^ 0x8000;
+    }
+
+    private static int base(int key) {
+        return (key ^ 0x8000) << 16;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntBitmap)) {
+            return false;
+        }
+        IntBitmap other = (IntBitmap) o;
+        return size == other.size && Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        forEach(v -> sb.append(sb.length() > 1 ? ", " : "").append(v));
+        return sb.append(']').toString();
+    }
+
+    /**
+     * 一个 65536 值的块: array 与 bits 恰有一个非 null
+     */
+    private static final class Container {
+        char[] array = new char[4];
+        long[] bits;
+        int cardinality;
+
+        boolean contains(int low) {
+            if (bits != null) {
+                return (bits[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, (char) low) >= 0;
+        }
+
+        boolean add(int low) {
+            if (bits != null) {
+                long word = bits[low >>> 6];
+                long mask = 1L << low;
+                if ((word & mask) != 0) {
+                    return false;
+                }
+                bits[low >>> 6] = word | mask;
+                cardinality++;
+                return true;
+            }
+            int i = cardinality == 0 || array[cardinality - 1] < low
+                ? -(cardinality + 1)
+                : Arrays.binarySearch(array, 0, cardinality, (char) low);
+            if (i >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_MAX) {
+                toBits();
+                return add(low);
+            }
+            i = -i - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(array, i, array, i + 1, cardinality - i);
+            array[i] = (char) low;
+            cardinality++;
+            return true;
+        }
+
+        void or(Container other) {
+            if (other.bits != null) {
+                if (bits == null) {
+                    toBits();
+                }
+                int c = 0;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    bits[w] |= other.bits[w];
+                    c += Long.bitCount(bits[w]);
+                }
+                cardinality = c;
+            } else {
+                for (int k = 0; k < other.cardinality; k++) {
+                    add(other.array[k]);
+                }
+            }
+        }
+
+        private void toBits() {
+            bits = new long[BITMAP_WORDS];
+            for (int k = 0; k < cardinality; k++) {
+                bits[array[k] >>> 6] |= 1L << array[k];
+            }
+            array = null;
+        }
+
+        Container copy() {
+            Container c = new Container();
+            c.array = array == null ? null : Arrays.copyOf(array, cardinality);
+            c.bits = bits == null ? null : bits.clone();
+            c.cardinality = cardinality;
+            return c;
+        }
+
+        void forEach(int base, IntConsumer action) {
+            if (bits == null) {
+                for (int k = 0; k < cardinality; k++) {
+                    action.accept(base | array[k]);
+                }
+                return;
+            }
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    action.accept(base | (w << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+        }
+    }
+
+    /**
+     * 覆盖块 [index, fence); prefix[i] 是前 i 个块的元素总数,用于精确报告拆分后的大小
+     */
+    private static final class BitmapSpliterator implements Spliterator.OfInt {
+        private final int[] keys;
+        private final Container[] containers;
+        private final long[] prefix;
+        private int index;
+        private final int fence;
+        /** 当前块内的位置: 稀疏块为数组下标,位图块为下一个要装载的 word 下标 */
+        private int position;
+        private long word;
+        /** 当前块内已遍历的元素数 */
+        private long consumed;
+
+        BitmapSpliterator(int[] keys, Container[] containers, long[] prefix, int index, int fence) {
+            this.keys = keys;
+            this.containers = containers;
+            this.prefix = prefix;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            while (index < fence) {
+                Container c = containers[index];
+                int base = base(keys[index]);
+                if (c.bits == null) {
+                    if (position < c.cardinality) {
+                        consumed++;
+                        action.accept(base | c.array[position++]);
+                        return true;
+                    }
+                } else {
+                    while (word == 0 && position < BITMAP_WORDS) {
+                        word = c.bits[position++];
+                    }
+                    if (word != 0) {
+                        int low = ((position - 1) << 6) + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        consumed++;
+                        action.accept(base | low);
+                        return true;
+                    }
+                }
+                index++;
+                position = 0;
+                word = 0;
+                consumed = 0;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            // 只在未开始的块之间拆分; 左半部分带走当前块的遍历状态
+            int lo = index + 1;
+            int mid = (lo + fence) >>> 1;
+            if (mid <= lo) {
+                return null;
+            }
+            BitmapSpliterator prefixPart = new BitmapSpliterator(keys, containers, prefix, index, mid);
+            prefixPart.position = position;
+            prefixPart.word = word;
+            prefixPart.consumed = consumed;
+            index = mid;
+            position = 0;
+            word = 0;
+            consumed = 0;
+            return prefixPart;
+        }
+
+        @Override
+        public long estimateSize() {
+            return prefix[fence] - prefix[index] - consumed;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.javaevolution.jdk8.collection;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 不可变的 int → long 计数结果,键升序存放在两个平行数组中
+ * 作为 countingByInt 的结果,替代 Map&lt;Integer, Long&gt;
+ */
+public final class IntCountMap {
+
+    private final int[] keys;
+    private final long[] counts;
+
+    IntCountMap(int[] keys, long[] counts) {
+        this.keys = keys;
+        this.counts = counts;
+    }
+
+    /**
+     * 汇总并发表中的计数器; 同一个键出现多次时累加
+     */
+    static IntCountMap from(ConcurrentIntTable<? extends LongAdder> table) {
+        int n = table.size();
+        long[] packed = new long[n];
+        long[] values = new long[n];
+        int[] cursor = {0};
+        table.forEach((key, adder) -> {
+            int i = cursor[0]++;
+            // 高 32 位放键,低 32 位放原始下标: 一次 long 排序即按键有序
+            packed[i] = ((long) key << 32) | i;
+            values[i] = adder.sum();
+        });
+        Arrays.sort(packed, 0, cursor[0]);
+
+        int[] keys = new int[cursor[0]];
+        long[] counts = new long[cursor[0]];
+        int size = 0;
+        for (int i = 0; i < cursor[0]; i++) {
+            int key = (int) (packed[i] >> 32);
+            long count = values[(int) packed[i]];
+            if (size > 0 && keys[size - 1] == key) {
+                counts[size - 1] += count;
+            } else {
+                keys[size] = key;
+                counts[size] = count;
+                size++;
+            }
+        }
+        return new IntCountMap(Arrays.copyOf(keys, size), Arrays.copyOf(counts, size));
+    }
+
+    /**
+     * 键不存在时返回 0
+     */
+    public long get(int key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 ? counts[i] : 0;
+    }
+
+    public boolean containsKey(int key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public int keyAt(int index) {
+        return keys[index];
+    }
+
+    public long countAt(int index) {
+        return counts[index];
+    }
+
+    public int[] keys() {
+        return keys.clone();
+    }
+
+    public long total() {
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    /**
+     * 装箱为有序 Map,便于与 Collectors.groupingBy(..., counting()) 的结果比较
+     */
+    public Map<Integer, Long> toMap() {
+        Map<Integer, Long> map = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], counts[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntCountMap)) {
+            return false;
+        }
+        IntCountMap other = (IntCountMap) o;
+        return Arrays.equals(keys, other.keys) && Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[i]).append('=').append(counts[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
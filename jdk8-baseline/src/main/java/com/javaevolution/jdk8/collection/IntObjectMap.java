@@ -0,0 +1,145 @@
+package com.javaevolution.jdk8.collection;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * 不可变的 int → V 映射,键升序存放; groupingByInt 的结果类型
+ * 替代 Map&lt;Integer, V&gt;,查找为二分查找,键不装箱
+ */
+public final class IntObjectMap<V> {
+
+    private final int[] keys;
+    private final Object[] values;
+
+    IntObjectMap(int[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * 汇总并发表中的分组容器: 同一个键出现多次时用 combiner 合并,再逐个 finisher
+     */
+    static <A, V> IntObjectMap<V> from(ConcurrentIntTable<A> table,
+                                        BinaryOperator<A> combiner, Function<A, V> finisher) {
+        int n = table.size();
+        long[] packed = new long[n];
+        Object[] containers = new Object[n];
+        int[] cursor = {0};
+        table.forEach((key, container) -> {
+            int i = cursor[0]++;
+            packed[i] = ((long) key << 32) | i;
+            containers[i] = container;
+        });
+        Arrays.sort(packed, 0, cursor[0]);
+
+        int[] keys = new int[cursor[0]];
+        Object[] merged = new Object[cursor[0]];
+        int size = 0;
+        for (int i = 0; i < cursor[0]; i++) {
+            int key = (int) (packed[i] >> 32);
+            @SuppressWarnings("unchecked")
+            A container = (A) containers[(int) packed[i]];
+            if (size > 0 && keys[size - 1] == key) {
+                @SuppressWarnings("unchecked")
+                A previous = (A) merged[size - 1];
+                merged[size - 1] = combiner.apply(previous, container);
+            } else {
+                keys[size] = key;
+                merged[size] = container;
+                size++;
+            }
+        }
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            A container = (A) merged[i];
+            values[i] = finisher.apply(container);
+        }
+        return new IntObjectMap<>(Arrays.copyOf(keys, size), values);
+    }
+
+    /**
+     * 键不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    public V getOrDefault(int key, V defaultValue) {
+        V v = get(key);
+        return v != null ? v : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public int keyAt(int index) {
+        return keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    public int[] keys() {
+        return keys.clone();
+    }
+
+    public void forEach(ConcurrentIntTable.IntObjConsumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            action.accept(keys[i], valueAt(i));
+        }
+    }
+
+    /**
+     * 装箱为有序 Map,便于与 Collectors.groupingBy 的结果比较
+     */
+    public Map<Integer, V> toMap() {
+        Map<Integer, V> map = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], valueAt(i));
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntObjectMap)) {
+            return false;
+        }
+        IntObjectMap<?> other = (IntObjectMap<?>) o;
+        return Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,335 @@
+package com.javaevolution.jdk8.collection;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 原始类型流的收集器
+ *
+ * IntStream 没有 collect(Collector) 重载,只有三参数的
+ * collect(Supplier, ObjIntConsumer, BiConsumer),这里把三元组封装成一次调用;
+ * 对已经装箱的 Stream&lt;Integer&gt; 则提供标准 Collector,在累加时拆箱
+ *
+ * groupingByInt / countingByInt 按 int 键分组: 键不装箱,且声明为 CONCURRENT | UNORDERED,
+ * 并行流的所有线程累加进同一张 ConcurrentIntTable,而不是各建一张 HashMap 最后两两合并
+ *
+ * distinct / sortedDistinct / toIntBitmap 用位图代替 HashSet&lt;Integer&gt; 去重:
+ * 只按值域宽度选择: 给出 [min, max] 且宽度不超过 DENSE_RANGE_LIMIT 时用共享的无锁稠密位集,
+ * 否则用压缩位图 IntBitmap; 稀疏还是稠密由 IntBitmap 在每个 65536 值的块内自行决定。
+ * 返回流的方法都会把 close 传递给源流 (onClose),源是 Files.lines 之类需要关闭的流时可以 try-with-resources
+ */
+public final class PrimitiveCollectors {
+
+    private PrimitiveCollectors() {
+    }
+
+    // ==================== 原始类型流 ====================
+
+    /**
+     * 替代 intStream.boxed().collect(Collectors.toList())
+     * 并行流中每个分片各自累加,最后按顺序拼接
+     */
+    public static IntArrayList toIntList(IntStream stream) {
+        return stream.collect(IntArrayList::new, IntArrayList::add, IntArrayList::addAll);
+    }
+
+    public static LongArrayList toLongList(LongStream stream) {
+        return stream.collect(LongArrayList::new, LongArrayList::add, LongArrayList::addAll);
+    }
+
+    public static DoubleArrayList toDoubleList(DoubleStream stream) {
+        return stream.collect(DoubleArrayList::new, DoubleArrayList::add, DoubleArrayList::addAll);
+    }
+
+    // ==================== 装箱流 ====================
+
+    public static Collector<Integer, ?, IntArrayList> toIntList() {
+        return Collector.of(
+            IntArrayList::new,
+            IntArrayList::add,
+            (left, right) -> {
+                left.addAll(right);
+                return left;
+            });
+    }
+
+    public static Collector<Long, ?, LongArrayList> toLongList() {
+        return Collector.of(
+            LongArrayList::new,
+            LongArrayList::add,
+            (left, right) -> {
+                left.addAll(right);
+                return left;
+            });
+    }
+
+    public static Collector<Double, ?, DoubleArrayList> toDoubleList() {
+        return Collector.of(
+            DoubleArrayList::new,
+            DoubleArrayList::add,
+            (left, right) -> {
+                left.addAll(right);
+                return left;
+            });
+    }
+
+    // ==================== int 去重与集合 ====================
+
+    /** 值域不超过 2^26 (位图 8MB) 时用共享的稠密位集,否则用按块压缩的 IntBitmap */
+    static final long DENSE_RANGE_LIMIT = 1L << 26;
+
+    /**
+     * 替代 intStream.boxed().collect(Collectors.toSet())
+     * 并行流中每个分片各自累加一份压缩位图,最后按块 or 合并
+     */
+    public static IntBitmap toIntBitmap(IntStream stream) {
+        return stream.collect(IntBitmap::new, IntBitmap::add, IntBitmap::or);
+    }
+
+    /**
+     * 已知值域 [min, max] (id、年龄、端口等); 值域不宽时并行流的所有线程写入同一份无锁位集,
+     * 不需要合并。值超出值域抛 IllegalArgumentException
+     */
+    public static IntBitmap toIntBitmap(IntStream stream, int min, int max) {
+        if (ConcurrentBitSet.range(min, max) > DENSE_RANGE_LIMIT) {
+            return stream.collect(IntBitmap::new, (bitmap, value) -> bitmap.add(checkRange(value, min, max)),
+                IntBitmap::or);
+        }
+        ConcurrentBitSet bits = new ConcurrentBitSet(min, max);
+        stream.unordered().forEach(bits::add);
+        return bits.toBitmap();
+    }
+
+    /**
+     * 替代 IntStream.distinct(),按首次出现的顺序输出 (并行时也一样)
+     * 已见集合是 IntBitmap 而不是 HashSet&lt;Integer&gt;,不装箱。
+     * 顺序流惰性求值,可以与 limit 等短路操作配合; 并行流先收集各分片首次出现的值,
+     * 合并时剔除右侧在左侧已出现过的值
+     */
+    public static IntStream distinct(IntStream stream) {
+        if (!stream.isParallel()) {
+            // 之后即使调用 parallel(),AbstractIntSpliterator 的 trySplit 也只是在当前线程上
+            // 调用 tryAdvance 把已去重的一批值拷进数组再分出去,已见集合始终只被持有它的线程访问
+            return StreamSupport.intStream(new DistinctSpliterator(stream.spliterator()), false)
+                .onClose(stream::close);
+        }
+        return stream.collect(OrderedDistinct::new, OrderedDistinct::accept, OrderedDistinct::merge)
+            .values.parallelStream().onClose(stream::close);
+    }
+
+    /**
+     * 去重并按升序输出,等价于 distinct().sorted(),但不排序: 位图本身就是有序的
+     */
+    public static IntStream sortedDistinct(IntStream stream) {
+        boolean parallel = stream.isParallel();
+        IntStream result = toIntBitmap(stream).stream().onClose(stream::close);
+        return parallel ? result.parallel() : result;
+    }
+
+    public static IntStream sortedDistinct(IntStream stream, int min, int max) {
+        boolean parallel = stream.isParallel();
+        IntStream result = toIntBitmap(stream, min, max).stream().onClose(stream::close);
+        return parallel ? result.parallel() : result;
+    }
+
+    /**
+     * 替代 Collectors.toSet(),结果用 contains(int) 做成员判断
+     */
+    public static Collector<Integer, ?, IntBitmap> toIntBitmap() {
+        return Collector.of(
+            IntBitmap::new,
+            IntBitmap::add,
+            IntBitmap::or,
+            Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * 已知值域的装箱版本; 值域不宽时声明为 CONCURRENT,并行流共享同一份位集
+     */
+    public static Collector<Integer, ?, IntBitmap> toIntBitmap(int min, int max) {
+        if (ConcurrentBitSet.range(min, max) > DENSE_RANGE_LIMIT) {
+            return Collector.of(
+                IntBitmap::new,
+                (IntBitmap bitmap, Integer value) -> bitmap.add(checkRange(value, min, max)),
+                IntBitmap::or,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+        }
+        if (min > max) {
+            throw new IllegalArgumentException("min > max: " + min + " > " + max);
+        }
+        return Collector.of(
+            () -> new ConcurrentBitSet(min, max),
+            ConcurrentBitSet::add,
+            ConcurrentBitSet::or,
+            ConcurrentBitSet::toBitmap,
+            Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+    }
+
+    private static int checkRange(int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("value " + value + " outside [" + min + ", " + max + "]");
+        }
+        return value;
+    }
+
+    /**
+     * 顺序去重: 逐个拉取上游元素,跳过已见过的值
+     */
+    private static final class DistinctSpliterator extends Spliterators.AbstractIntSpliterator
+        implements IntConsumer {
+        private final Spliterator.OfInt source;
+        private final IntBitmap seen = new IntBitmap();
+        private int current;
+
+        DistinctSpliterator(Spliterator.OfInt source) {
+            super(source.estimateSize(), source.characteristics()
+                & (Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL) | Spliterator.DISTINCT);
+            this.source = source;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            while (source.tryAdvance((IntConsumer) this)) {
+                if (seen.add(current)) {
+                    action.accept(current);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void accept(int value) {
+            current = value;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return source.getComparator();
+        }
+    }
+
+    /**
+     * 并行去重的分片容器: values 按遇到顺序保存首次出现的值
+     */
+    private static final class OrderedDistinct {
+        final IntArrayList values = new IntArrayList();
+        final IntBitmap seen = new IntBitmap();
+
+        void accept(int value) {
+            if (seen.add(value)) {
+                values.add(value);
+            }
+        }
+
+        void merge(OrderedDistinct right) {
+            for (int i = 0; i < right.values.size(); i++) {
+                accept(right.values.get(i));
+            }
+        }
+    }
+
+    // ==================== int 键分组 ====================
+
+    private static final IntFunction<LongAdder> NEW_ADDER = key -> new LongAdder();
+
+    /**
+     * 替代 groupingBy(classifier, counting()),计数器为 LongAdder,热点键上的竞争被分散到多个单元
+     */
+    public static <T> Collector<T, ?, IntCountMap> countingByInt(ToIntFunction<? super T> classifier) {
+        return Collector.of(
+            ConcurrentIntTable<LongAdder>::new,
+            (table, t) -> table.computeIfAbsent(classifier.applyAsInt(t), NEW_ADDER).increment(),
+            (left, right) -> {
+                right.forEach((key, adder) -> left.computeIfAbsent(key, NEW_ADDER).add(adder.sum()));
+                return left;
+            },
+            IntCountMap::from,
+            Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 统计 IntStream 中每个值出现的次数; 并行流直接写入同一张表
+     */
+    public static IntCountMap countValues(IntStream stream) {
+        ConcurrentIntTable<LongAdder> table = new ConcurrentIntTable<>();
+        stream.unordered().forEach(value -> table.computeIfAbsent(value, NEW_ADDER).increment());
+        return IntCountMap.from(table);
+    }
+
+    /**
+     * 替代 groupingBy(classifier),每组一个 List
+     */
+    public static <T> Collector<T, ?, IntObjectMap<List<T>>> groupingByInt(ToIntFunction<? super T> classifier) {
+        return groupingByInt(classifier, Collectors.toList());
+    }
+
+    /**
+     * 替代 groupingBy(classifier, downstream)
+     * 下游收集器不是 CONCURRENT 时,与 groupingByConcurrent 一样对每组容器加锁累加
+     */
+    public static <T, A, D> Collector<T, ?, IntObjectMap<D>> groupingByInt(ToIntFunction<? super T> classifier,
+                                                                          Collector<? super T, A, D> downstream) {
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        IntFunction<A> newContainer = key -> downstreamSupplier.get();
+
+        BiConsumer<ConcurrentIntTable<A>, T> accumulator;
+        if (downstream.characteristics().contains(Collector.Characteristics.CONCURRENT)) {
+            accumulator = (table, t) -> downstreamAccumulator.accept(
+                table.computeIfAbsent(classifier.applyAsInt(t), newContainer), t);
+        } else {
+            accumulator = (table, t) -> {
+                A container = table.computeIfAbsent(classifier.applyAsInt(t), newContainer);
+                synchronized (container) {
+                    downstreamAccumulator.accept(container, t);
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        Function<A, D> finisher = downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+            ? a -> (D) a
+            : downstream.finisher();
+        return Collector.of(
+            ConcurrentIntTable<A>::new,
+            accumulator,
+            (left, right) -> mergeTables(left, right, downstream.combiner()),
+            table -> IntObjectMap.from(table, downstream.combiner(), finisher),
+            Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * groupingByInt 的 combiner: 表只能插入、不能替换已有容器,而 downstream 的 combiner
+     * 可能返回新容器而不是并入左侧,所以两侧先各自归并重复键,再把合并结果写进一张新表
+     */
+    private static <A> ConcurrentIntTable<A> mergeTables(ConcurrentIntTable<A> left, ConcurrentIntTable<A> right,
+                                                          BinaryOperator<A> combiner) {
+        IntObjectMap<A> l = IntObjectMap.from(left, combiner, Function.identity());
+        IntObjectMap<A> r = IntObjectMap.from(right, combiner, Function.identity());
+        ConcurrentIntTable<A> merged = new ConcurrentIntTable<>(l.size() + r.size());
+        l.forEach((key, container) -> {
+            A other = r.get(key);
+            A value = other == null ? container : combiner.apply(container, other);
+            merged.computeIfAbsent(key, k -> value);
+        });
+        r.forEach((key, container) -> merged.computeIfAbsent(key, k -> container));
+        return merged;
+    }
+}
@@ -56,6 +56,17 @@ public class CompletableFutureDemo {
             System.out.println(future.join());
             executor.shutdown();
         }
+
+        // 5. 使用隔离的 ForkJoinPool: 重量级并行计算不挤占公共池
+        public void isolatedPool() {
+            IsolatedForkJoinPool analytics = IsolatedForkJoinPool.named("analytics", 2);
+
+            CompletableFuture<Long> future = analytics.supplyAsync(() ->
+                java.util.stream.LongStream.rangeClosed(1, 10_000_000).parallel().sum());
+
+            System.out.println(future.join());
+            System.out.println(analytics.metrics());
+        }
     }
 
     /**
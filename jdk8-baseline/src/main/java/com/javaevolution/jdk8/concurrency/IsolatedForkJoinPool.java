@@ -0,0 +1,306 @@
+package com.javaevolution.jdk8.concurrency;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * 命名、定长的隔离 ForkJoinPool
+ *
+ * 并行流与 CompletableFuture.supplyAsync(无 executor 参数) 默认都跑在
+ * ForkJoinPool.commonPool() 上: 一次重量级并行聚合就能占满所有 worker,
+ * 让同进程里的异步服务调用排队等待。
+ *
+ * 隔离方式: 在自定义 ForkJoinPool 的 worker 线程里启动并行流终端操作,
+ * 流框架会把拆分出的子任务 fork 到"当前线程所属的池"而不是公共池。
+ * (这是 ForkJoinTask.fork() 的语义,JDK 8 起一直成立,但不是 Stream API 的书面契约)
+ */
+public class IsolatedForkJoinPool implements AutoCloseable {
+
+    private static final Map<String, IsolatedForkJoinPool> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final ForkJoinPool pool;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile long maxObservedQueueDepth;
+    /** named() 的持有者数; 只在 REGISTRY.compute 中读写,0 表示未注册 (直接 new 出来的池) */
+    private int holders;
+
+    public IsolatedForkJoinPool(String name, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.name = name;
+        this.pool = new ForkJoinPool(parallelism, new NamedWorkerFactory(name), null, false);
+    }
+
+    /**
+     * 按名称获取共享的隔离池,不存在时创建
+     * 同名池已存在但并行度不同时抛 IllegalStateException,而不是悄悄返回一个更小 (或更大) 的池。
+     * 每次 named() 都应对应一次 close(): 池按持有者计数,最后一个持有者关闭时才真正 shutdown
+     */
+    public static IsolatedForkJoinPool named(String name, int parallelism) {
+        return REGISTRY.compute(name, (n, existing) -> {
+            if (existing == null) {
+                existing = new IsolatedForkJoinPool(n, parallelism);
+            } else if (existing.pool.getParallelism() != parallelism) {
+                throw new IllegalStateException("pool '" + n + "' already exists with parallelism "
+                    + existing.pool.getParallelism() + ", requested " + parallelism);
+            }
+            existing.holders++;
+            return existing;
+        });
+    }
+
+    /**
+     * 所有已注册池的指标快照
+     */
+    public static Map<String, Metrics> allMetrics() {
+        Map<String, Metrics> result = new ConcurrentSkipListMap<>();
+        REGISTRY.forEach((n, p) -> result.put(n, p.metrics()));
+        return result;
+    }
+
+    /**
+     * 在本池中同步执行一条流管道,管道内的 parallel() 会使用本池的 worker
+     */
+    public <T> T invoke(Supplier<T> pipeline) {
+        Supplier<T> tracked = track(pipeline);
+        ForkJoinTask<T> task = pool.submit((Callable<T>) tracked::get);
+        recordQueueDepth();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(true);
+            throw new CancellationException("Interrupted while waiting for pool " + name);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    public void run(Runnable pipeline) {
+        invoke(() -> {
+            pipeline.run();
+            return null;
+        });
+    }
+
+    /**
+     * 异步版本,等价于 CompletableFuture.supplyAsync(supplier, 本池)
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> pipeline) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(track(pipeline), pool);
+        recordQueueDepth();
+        return future;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 作为普通 Executor 暴露,供 CompletableFuture 的 *Async(..., executor) 重载使用
+     */
+    public Executor executor() {
+        return pool;
+    }
+
+    public Metrics metrics() {
+        recordQueueDepth();
+        return new Metrics(name, pool.getParallelism(), pool.getPoolSize(),
+            pool.getActiveThreadCount(), pool.getRunningThreadCount(),
+            pool.getQueuedTaskCount(), pool.getQueuedSubmissionCount(), maxObservedQueueDepth,
+            pool.getStealCount(), submitted.sum(), completed.sum(), failed.sum());
+    }
+
+    /**
+     * 通过 named() 获得的池: 释放一个持有者,最后一个持有者关闭时注销并 shutdown,
+     * 其他持有者不受影响; 直接构造的池立即 shutdown
+     */
+    @Override
+    public void close() {
+        boolean[] last = {true};
+        REGISTRY.computeIfPresent(name, (n, registered) -> {
+            if (registered != this) {
+                return registered;
+            }
+            last[0] = --holders == 0;
+            return last[0] ? null : this;
+        });
+        if (last[0]) {
+            pool.shutdown();
+        }
+    }
+
+    private <T> Supplier<T> track(Supplier<T> pipeline) {
+        submitted.increment();
+        return () -> {
+            try {
+                T result = pipeline.get();
+                completed.increment();
+                return result;
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                throw e;
+            }
+        };
+    }
+
+    private void recordQueueDepth() {
+        long depth = pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount();
+        if (depth > maxObservedQueueDepth) {
+            // 仅用于监控的近似最大值,不追求严格的并发正确性
+            maxObservedQueueDepth = depth;
+        }
+    }
+
+    /**
+     * 池指标快照
+     */
+    public static final class Metrics {
+        private final String name;
+        private final int parallelism;
+        private final int poolSize;
+        private final int activeThreads;
+        private final int runningThreads;
+        private final long queuedTasks;
+        private final long queuedSubmissions;
+        private final long maxObservedQueueDepth;
+        private final long stealCount;
+        private final long submitted;
+        private final long completed;
+        private final long failed;
+
+        Metrics(String name, int parallelism, int poolSize, int activeThreads, int runningThreads,
+                long queuedTasks, long queuedSubmissions, long maxObservedQueueDepth, long stealCount,
+                long submitted, long completed, long failed) {
+            this.name = name;
+            this.parallelism = parallelism;
+            this.poolSize = poolSize;
+            this.activeThreads = activeThreads;
+            this.runningThreads = runningThreads;
+            this.queuedTasks = queuedTasks;
+            this.queuedSubmissions = queuedSubmissions;
+            this.maxObservedQueueDepth = maxObservedQueueDepth;
+            this.stealCount = stealCount;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getActiveThreads() {
+            return activeThreads;
+        }
+
+        public int getRunningThreads() {
+            return runningThreads;
+        }
+
+        /**
+         * worker 双端队列中等待执行的子任务数 (fork 产生)
+         */
+        public long getQueuedTasks() {
+            return queuedTasks;
+        }
+
+        /**
+         * 外部提交、尚未被 worker 取走的任务数
+         */
+        public long getQueuedSubmissions() {
+            return queuedSubmissions;
+        }
+
+        public long getMaxObservedQueueDepth() {
+            return maxObservedQueueDepth;
+        }
+
+        /**
+         * 工作窃取次数,持续偏高说明拆分过细或负载不均
+         */
+        public long getStealCount() {
+            return stealCount;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{parallelism=" + parallelism + ", poolSize=" + poolSize
+                + ", active=" + activeThreads + ", running=" + runningThreads
+                + ", queuedTasks=" + queuedTasks + ", queuedSubmissions=" + queuedSubmissions
+                + ", maxQueueDepth=" + maxObservedQueueDepth + ", steals=" + stealCount
+                + ", submitted=" + submitted + ", completed=" + completed + ", failed=" + failed + "}";
+        }
+    }
+
+    /**
+     * worker 线程命名为 "池名-worker-序号",便于线程转储中定位
+     */
+    static final class NamedWorkerFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final String name;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedWorkerFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(name + "-worker-" + counter.incrementAndGet());
+            return thread;
+        }
+    }
+
+    public static void main(String[] args) {
+        try (IsolatedForkJoinPool analytics = IsolatedForkJoinPool.named("analytics", 2)) {
+            // 重量级并行聚合只占用 analytics 池的 2 个 worker
+            double result = analytics.invoke(() -> IntStream.range(0, 10_000_000)
+                .parallel()
+                .mapToDouble(Math::sqrt)
+                .sum());
+            System.out.println("Result: " + result);
+
+            // 公共池上的异步调用不受影响
+            String reply = CompletableFuture.supplyAsync(() -> "service reply").join();
+            System.out.println(reply);
+
+            System.out.println(analytics.metrics());
+        }
+    }
+}
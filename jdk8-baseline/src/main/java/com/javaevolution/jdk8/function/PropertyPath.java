@@ -0,0 +1,306 @@
+package com.javaevolution.jdk8.function;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 编译后的空安全属性路径: 替代 Optional.ofNullable(x).flatMap(..).flatMap(..).map(..) 链
+ *
+ * Optional 链每一跳都经过 flatMap / map 的 lambda 和一个新的 Optional,是否被消除取决于逃逸分析;
+ * 这里把路径 (如 User → address → zipCode → code) 一次性编译成一个 MethodHandle:
+ * 每一跳是 getter 调用或字段读取,中间用 guardWithTest 做 null 检查,任何一跳为 null 直接返回 null,
+ * 链本身不产生对象。调用时 invokeExact 的实参、返回值都是 Object,不装箱
+ *
+ * 路径对象应当创建一次后复用 (例如放在 static final 字段里): 热点上的 MethodHandle
+ * 会被 JVM 定制 (LambdaForm customization,8u60 起),整条路径可被 JIT 内联成普通的 null 检查分支
+ *
+ * 按名称解析的一跳 (get): 调用 getter (getX / isX / x),没有 getter 时才读同名字段;
+ * 值为 Optional 时拆开,空 Optional 视为 null。因此结果与等价的 Optional 链一致,
+ * 但 getter 内部创建的 Optional 是否分配仍取决于逃逸分析。
+ * 确定要绕过 getter 直接读字段时显式使用 field。非 public 的成员通过反射 setAccessible 访问
+ */
+public final class PropertyPath<T, R> {
+
+    private static final MethodHandle IS_NULL;
+    private static final MethodHandle RETURN_NULL;
+    private static final MethodHandle FUNCTION_APPLY;
+    private static final MethodHandle OPTIONAL_OR_NULL;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            IS_NULL = lookup.findStatic(Objects.class, "isNull",
+                MethodType.methodType(boolean.class, Object.class));
+            RETURN_NULL = MethodHandles.dropArguments(
+                MethodHandles.constant(Object.class, null), 0, Object.class);
+            FUNCTION_APPLY = lookup.findVirtual(Function.class, "apply",
+                MethodType.methodType(Object.class, Object.class));
+            OPTIONAL_OR_NULL = MethodHandles.insertArguments(
+                    lookup.findVirtual(Optional.class, "orElse", MethodType.methodType(Object.class, Object.class)),
+                    1, (Object) null)
+                .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** (Object)Object: 根对象 → 末端值,任何一跳为 null 时返回 null */
+    private final MethodHandle handle;
+    private final String description;
+
+    private PropertyPath(MethodHandle handle, String description) {
+        this.handle = handle;
+        this.description = description;
+    }
+
+    /**
+     * 按属性名逐跳解析; type 是末端值的类型 (原始类型的属性用包装类)
+     */
+    public static <T, R> PropertyPath<T, R> of(Class<T> rootType, Class<R> type, String... properties) {
+        if (properties.length == 0) {
+            throw new IllegalArgumentException("empty property path");
+        }
+        Builder<T, ?> builder = from(rootType);
+        for (int i = 0; i < properties.length - 1; i++) {
+            builder = builder.get(properties[i]);
+        }
+        return builder.get(properties[properties.length - 1], type).compile();
+    }
+
+    public static <T> Builder<T, T> from(Class<T> rootType) {
+        return new Builder<>(rootType, Collections.<MethodHandle>emptyList(), rootType.getSimpleName());
+    }
+
+    /**
+     * 末端值; 根对象或任何一跳为 null 时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public R get(T root) {
+        try {
+            return (R) (Object) handle.invokeExact((Object) root);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    public R getOrDefault(T root, R defaultValue) {
+        R value = get(root);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * 只在末端包装一次 Optional
+     */
+    public Optional<R> find(T root) {
+        return Optional.ofNullable(get(root));
+    }
+
+    /**
+     * 作为 Function 传给 Stream.map 等
+     */
+    public Function<T, R> asFunction() {
+        return this::get;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    /**
+     * 逐跳描述路径; compile() 之前只记录每一跳的 MethodHandle
+     * C 是当前这一跳的值类型
+     */
+    public static final class Builder<T, C> {
+        /** 当前值的类型; map / flatMap 之后未知,为 null */
+        private final Class<?> current;
+        private final List<MethodHandle> hops;
+        private final String description;
+
+        private Builder(Class<?> current, List<MethodHandle> hops, String description) {
+            this.current = current;
+            this.hops = hops;
+            this.description = description;
+        }
+
+        /**
+         * 按名称取下一跳 (getter 优先),值类型由 getter/字段的声明类型决定
+         */
+        public Builder<T, Object> get(String property) {
+            return get(property, Object.class);
+        }
+
+        /**
+         * 按名称取下一跳 (getter 优先),并检查值类型可赋给 type
+         */
+        public <N> Builder<T, N> get(String property, Class<N> type) {
+            return next(property, type, false);
+        }
+
+        /**
+         * 直接读字段,不调用 getter; 字段类型为 Optional 时同样拆开
+         */
+        public Builder<T, Object> field(String name) {
+            return field(name, Object.class);
+        }
+
+        public <N> Builder<T, N> field(String name, Class<N> type) {
+            return next(name, type, true);
+        }
+
+        private <N> Builder<T, N> next(String property, Class<N> type, boolean fieldOnly) {
+            if (current == null) {
+                throw new IllegalStateException("property type unknown after map/flatMap: " + description);
+            }
+            Member member = resolve(current, property, fieldOnly);
+            if (member.valueType != null && !box(type).isAssignableFrom(box(member.valueType))) {
+                throw new IllegalArgumentException(description + "." + property + " is "
+                    + member.valueType.getName() + ", not " + type.getName());
+            }
+            Class<?> next = type;
+            if (type == Object.class) {
+                next = member.valueType != null ? box(member.valueType) : null;
+            }
+            return new Builder<>(next, append(member.handle), description + "." + property);
+        }
+
+        /**
+         * 用函数 (如方法引用) 取下一跳; 返回 null 时路径结束
+         */
+        public <N> Builder<T, N> map(Function<? super C, ? extends N> getter) {
+            return new Builder<>(null, append(FUNCTION_APPLY.bindTo(getter)), description + ".map(..)");
+        }
+
+        /**
+         * 下一跳返回 Optional 时使用; 空 Optional 视为 null
+         */
+        public <N> Builder<T, N> flatMap(Function<? super C, Optional<N>> getter) {
+            MethodHandle hop = MethodHandles.filterReturnValue(FUNCTION_APPLY.bindTo(getter), OPTIONAL_OR_NULL);
+            return new Builder<>(null, append(hop), description + ".flatMap(..)");
+        }
+
+        /**
+         * 合成为一个 MethodHandle: hop1 → 判空 → hop2 → 判空 → ...
+         */
+        public PropertyPath<T, C> compile() {
+            MethodHandle path = MethodHandles.identity(Object.class);
+            for (MethodHandle hop : hops) {
+                path = MethodHandles.filterReturnValue(path,
+                    MethodHandles.guardWithTest(IS_NULL, RETURN_NULL, hop));
+            }
+            return new PropertyPath<>(path, description);
+        }
+
+        private List<MethodHandle> append(MethodHandle hop) {
+            List<MethodHandle> next = new ArrayList<>(hops.size() + 1);
+            next.addAll(hops);
+            next.add(hop.asType(MethodType.methodType(Object.class, Object.class)));
+            return next;
+        }
+    }
+
+    /**
+     * 解析出的一跳; valueType 为 null 表示 Optional 拆开后的类型未知 (泛型参数不是具体类)
+     */
+    private static final class Member {
+        final MethodHandle handle;
+        final Class<?> valueType;
+
+        Member(MethodHandle handle, Class<?> valueType) {
+            this.handle = handle;
+            this.valueType = valueType;
+        }
+    }
+
+    private static Member resolve(Class<?> type, String property, boolean fieldOnly) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Method getter = fieldOnly ? null : findGetter(type, property);
+            if (getter != null) {
+                getter.setAccessible(true);
+                return unwrapOptional(lookup.unreflect(getter), getter.getGenericReturnType());
+            }
+            Field field = findField(type, property);
+            if (field != null) {
+                field.setAccessible(true);
+                return unwrapOptional(lookup.unreflectGetter(field), field.getGenericType());
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("cannot access " + type.getName() + "." + property, e);
+        }
+        throw new IllegalArgumentException("no " + (fieldOnly ? "field" : "property")
+            + " '" + property + "' on " + type.getName());
+    }
+
+    /**
+     * 声明类型为 Optional<X> 时接上 orElse(null),值类型取 X
+     */
+    private static Member unwrapOptional(MethodHandle handle, Type declared) {
+        Class<?> raw = handle.type().returnType();
+        if (raw != Optional.class) {
+            return new Member(handle, raw);
+        }
+        Class<?> element = null;
+        if (declared instanceof ParameterizedType) {
+            Type arg = ((ParameterizedType) declared).getActualTypeArguments()[0];
+            if (arg instanceof Class) {
+                element = (Class<?>) arg;
+            } else if (arg instanceof ParameterizedType) {
+                element = (Class<?>) ((ParameterizedType) arg).getRawType();
+            }
+        }
+        return new Member(MethodHandles.filterReturnValue(handle,
+            OPTIONAL_OR_NULL.asType(MethodType.methodType(Object.class, Optional.class))), element);
+    }
+
+    private static Method findGetter(Class<?> type, String property) {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        String[] names = {"get" + suffix, "is" + suffix, property};
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (String name : names) {
+                try {
+                    Method m = c.getDeclaredMethod(name);
+                    if (!Modifier.isStatic(m.getModifiers()) && m.getReturnType() != void.class) {
+                        return m;
+                    }
+                } catch (NoSuchMethodException ignored) {
+                    // 继续尝试下一个名称
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> type, String property) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Field f = c.getDeclaredField(property);
+                if (!Modifier.isStatic(f.getModifiers())) {
+                    return f;
+                }
+            } catch (NoSuchFieldException ignored) {
+                // 查找父类
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
@@ -0,0 +1,240 @@
+package com.javaevolution.jdk8.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于内存映射的按行读取流,可均衡并行拆分
+ *
+ * Files.lines 在 JDK 8 中基于 BufferedReader 迭代器,并行时只能按批次从头部切下元素,
+ * 读取本身仍是单线程。这里把文件映射进虚拟内存 (不复制到堆上),
+ * 拆分时取字节区间的中点再向后找到下一个 '\n',两半各自独立扫描与解码:
+ * - 拆分均衡,与行数、行长分布无关
+ * - UTF-8 解码延迟到元素真正被消费时,rawLines() 可以完全跳过解码
+ * - 超过 2GB 的文件按 1GB 窗口分段映射,相邻窗口重叠 maxLineLength 字节,
+ *   保证任何一行都能在其起点所在的窗口中完整读取
+ *
+ * 行结束符为 "\n" 或 "\r\n" (单独的 '\r' 不算换行,这点与 BufferedReader 不同);
+ * 末尾没有换行符的最后一行也会产出。
+ * 映射在对象不可达后由 GC 释放 (JDK 8 没有公开的 unmap)。
+ *
+ * <pre>
+ * long errors = MappedLines.open(Paths.get("app.log")).lines()
+ *     .parallel()
+ *     .filter(line -&gt; line.contains("ERROR"))
+ *     .count();
+ * </pre>
+ */
+public final class MappedLines {
+
+    public static final int DEFAULT_MAX_LINE_LENGTH = 1 << 20;
+
+    private static final int WINDOW_SHIFT = 30;
+
+    /**
+     * 小于该字节数的区间不再拆分
+     */
+    private static final long MIN_SPLIT_BYTES = 1 << 16;
+
+    /**
+     * 从映射窗口中读取一行并转换为元素
+     */
+    private interface LineReader<T> {
+        T read(ByteBuffer window, int offset, int length);
+    }
+
+    private final long size;
+    private final int windowShift;
+    private final int maxLineLength;
+    private final MappedByteBuffer[] windows;
+
+    MappedLines(FileChannel channel, int windowShift, int maxLineLength) throws IOException {
+        this.size = channel.size();
+        this.windowShift = windowShift;
+        this.maxLineLength = maxLineLength;
+        long windowSize = 1L << windowShift;
+        int count = (int) ((size + windowSize - 1) >>> windowShift);
+        this.windows = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << windowShift;
+            long length = Math.min(windowSize + maxLineLength, size - start);
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+    }
+
+    public static MappedLines open(Path file) throws IOException {
+        return open(file, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    /**
+     * @param maxLineLength 跨越 1GB 窗口边界的行的最大字节数; 不跨边界的行不受限制
+     */
+    public static MappedLines open(Path file, int maxLineLength) throws IOException {
+        if (maxLineLength <= 0 || maxLineLength > Integer.MAX_VALUE - (1 << WINDOW_SHIFT)) {
+            throw new IllegalArgumentException("Illegal maxLineLength: " + maxLineLength);
+        }
+        // 映射建立后即可关闭通道,映射本身仍然有效
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedLines(channel, WINDOW_SHIFT, maxLineLength);
+        }
+    }
+
+    /**
+     * 文件字节数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 按 UTF-8 解码的行; 返回顺序流,调用 parallel() 后按字节区间拆分
+     */
+    public Stream<String> lines() {
+        return stream(MappedLines::decode);
+    }
+
+    /**
+     * 不解码的行: 每个元素是指向映射内存的只读 ByteBuffer 视图 (不含换行符),没有数据复制
+     * 适合先按字节过滤、计数,再对少数命中的行调用 decode
+     */
+    public Stream<ByteBuffer> rawLines() {
+        return stream((window, offset, length) -> {
+            ByteBuffer view = window.duplicate();
+            view.limit(offset + length).position(offset);
+            return view.slice().asReadOnlyBuffer();
+        });
+    }
+
+    /**
+     * 把 rawLines 的元素解码为 String,不改变其 position
+     */
+    public static String decode(ByteBuffer line) {
+        return decode(line, line.position(), line.remaining());
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.limit(offset + length).position(offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private <T> Stream<T> stream(LineReader<T> reader) {
+        return StreamSupport.stream(new LineSpliterator<>(reader, 0, size), false);
+    }
+
+    private byte byteAt(long position) {
+        return windows[(int) (position >>> windowShift)].get((int) (position & ((1L << windowShift) - 1)));
+    }
+
+    /**
+     * 区间 [position, end) 内起始的所有行; 区间端点总在行首 (或文件末尾)
+     */
+    private final class LineSpliterator<T> implements Spliterator<T> {
+
+        private final LineReader<T> reader;
+        private long position;
+        private final long end;
+
+        LineSpliterator(LineReader<T> reader, long position, long end) {
+            this.reader = reader;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (position >= end) {
+                return false;
+            }
+            action.accept(nextLine());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            while (position < end) {
+                action.accept(nextLine());
+            }
+        }
+
+        private T nextLine() {
+            long start = position;
+            long newline = indexOfNewline(start, size);
+            long lineEnd = newline < 0 ? size : newline;
+            position = newline < 0 ? size : newline + 1;
+            if (lineEnd > start && byteAt(lineEnd - 1) == '\r' && newline >= 0) {
+                lineEnd--;
+            }
+            int window = (int) (start >>> windowShift);
+            long offset = start - ((long) window << windowShift);
+            long length = lineEnd - start;
+            MappedByteBuffer buffer = windows[window];
+            if (offset + length > buffer.limit()) {
+                throw new IllegalStateException("Line at byte " + start + " crosses a mapping window and exceeds "
+                    + "maxLineLength (" + maxLineLength + "); reopen with a larger maxLineLength");
+            }
+            return reader.read(buffer, (int) offset, (int) length);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            long remaining = end - position;
+            if (remaining < MIN_SPLIT_BYTES) {
+                return null;
+            }
+            long newline = indexOfNewline(position + remaining / 2, end);
+            if (newline < 0 || newline + 1 >= end) {
+                return null;
+            }
+            LineSpliterator<T> prefix = new LineSpliterator<>(reader, position, newline + 1);
+            position = newline + 1;
+            return prefix;
+        }
+
+        /**
+         * 剩余字节数,用作元素数的估计 (只用于拆分比例)
+         */
+        @Override
+        public long estimateSize() {
+            return end - position;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * [from, limit) 中第一个 '\n' 的位置,没有时返回 -1; 逐窗口扫描,避免每个字节都换算窗口
+     */
+    private long indexOfNewline(long from, long limit) {
+        while (from < limit) {
+            int window = (int) (from >>> windowShift);
+            MappedByteBuffer buffer = windows[window];
+            long base = (long) window << windowShift;
+            int hi = (int) Math.min(limit - base, buffer.limit());
+            for (int i = (int) (from - base); i < hi; i++) {
+                if (buffer.get(i) == '\n') {
+                    return base + i;
+                }
+            }
+            from = base + hi;
+        }
+        return -1;
+    }
+}
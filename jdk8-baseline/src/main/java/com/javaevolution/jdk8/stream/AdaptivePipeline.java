@@ -0,0 +1,339 @@
+package com.javaevolution.jdk8.stream;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 自适应顺序/并行执行的流管道
+ *
+ * ParallelStreamPitfalls 中"数据量 > 10000 才用并行"只是经验值,
+ * 真正的判据是 元素数 × 每元素开销。这里在运行时:
+ * 1. 读取数据源大小 (SIZED)
+ * 2. 对前若干个元素试跑管道,估算每元素耗时 (并用 EWMA 跨调用平滑)
+ * 3. 总开销低于阈值走顺序流; 否则比较两种模式各自实测的每元素墙钟时间,
+ *    并行尚无实测时先走并行,并按开销选择拆分粒度
+ * 4. 每隔若干次调用改走另一种模式,刷新它的估计,避免一次偏差的测量让决策锁死
+ * 5. 通过 lastDecision() 暴露本次决策
+ *
+ * 管道函数必须无副作用 (并行流本身也要求如此),因为采样会在前缀上多跑一次
+ */
+public class AdaptivePipeline<T, R> {
+
+    /**
+     * 执行模式
+     */
+    public enum Mode {
+        SEQUENTIAL, PARALLEL
+    }
+
+    /**
+     * 一次执行的决策记录
+     */
+    public static final class Decision {
+        private final Mode mode;
+        private final long size;
+        private final double nanosPerElement;
+        private final long chunkSize;
+        private final boolean sampled;
+        private final String reason;
+
+        Decision(Mode mode, long size, double nanosPerElement, long chunkSize,
+                 boolean sampled, String reason) {
+            this.mode = mode;
+            this.size = size;
+            this.nanosPerElement = nanosPerElement;
+            this.chunkSize = chunkSize;
+            this.sampled = sampled;
+            this.reason = reason;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * 估算的顺序执行每元素开销 (纳秒),未知时为 NaN
+         */
+        public double getNanosPerElement() {
+            return nanosPerElement;
+        }
+
+        /**
+         * 并行时叶子任务的最小元素数,顺序执行时等于 size
+         */
+        public long getChunkSize() {
+            return chunkSize;
+        }
+
+        /**
+         * 本次是否做了采样 (否则沿用之前的开销估计)
+         */
+        public boolean isSampled() {
+            return sampled;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Decision{" + mode + ", size=" + size
+                + ", ns/elem=" + String.format("%.1f", nanosPerElement)
+                + ", chunk=" + chunkSize + ", sampled=" + sampled
+                + ", reason='" + reason + "'}";
+        }
+    }
+
+    /** 估算总开销低于该值时顺序执行 */
+    private static final long DEFAULT_PARALLEL_THRESHOLD_NANOS = 200_000;
+    /** 并行时每个叶子任务的目标开销 */
+    private static final long DEFAULT_TARGET_LEAF_NANOS = 50_000;
+    /** 小于该大小的数据源不采样,直接顺序执行 */
+    private static final int DEFAULT_MIN_SAMPLE_SOURCE = 1_000;
+    private static final int SAMPLE_SIZE = 256;
+    /** 新样本在 EWMA 中的权重 */
+    private static final double SMOOTHING = 0.3;
+    /** 每隔多少次调用改走另一种模式重新测量 */
+    private static final int RESAMPLE_INTERVAL = 16;
+
+    private final Function<Stream<T>, R> pipeline;
+    private final int parallelism;
+    private long parallelThresholdNanos = DEFAULT_PARALLEL_THRESHOLD_NANOS;
+    private long targetLeafNanos = DEFAULT_TARGET_LEAF_NANOS;
+    private int minSampleSource = DEFAULT_MIN_SAMPLE_SOURCE;
+
+    /** 顺序执行的每元素耗时 (EWMA),NaN 表示尚无估计 */
+    private volatile double sequentialNanos = Double.NaN;
+    /** 并行执行的每元素墙钟耗时 (EWMA),NaN 表示尚无估计 */
+    private volatile double parallelNanos = Double.NaN;
+    private final AtomicLong runs = new AtomicLong();
+    private volatile Decision lastDecision;
+    private Consumer<Decision> listener = d -> { };
+
+    private AdaptivePipeline(Function<Stream<T>, R> pipeline, int parallelism) {
+        this.pipeline = Objects.requireNonNull(pipeline, "pipeline");
+        this.parallelism = parallelism;
+    }
+
+    public static <T, R> AdaptivePipeline<T, R> of(Function<Stream<T>, R> pipeline) {
+        return new AdaptivePipeline<>(pipeline, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    public AdaptivePipeline<T, R> parallelThresholdNanos(long nanos) {
+        this.parallelThresholdNanos = nanos;
+        return this;
+    }
+
+    public AdaptivePipeline<T, R> targetLeafNanos(long nanos) {
+        this.targetLeafNanos = nanos;
+        return this;
+    }
+
+    public AdaptivePipeline<T, R> minSampleSource(int size) {
+        this.minSampleSource = size;
+        return this;
+    }
+
+    /**
+     * 每次决策后回调,便于接入日志或监控
+     */
+    public AdaptivePipeline<T, R> onDecision(Consumer<Decision> listener) {
+        this.listener = Objects.requireNonNull(listener, "listener");
+        return this;
+    }
+
+    public Decision lastDecision() {
+        return lastDecision;
+    }
+
+    public R apply(T[] source) {
+        return apply(Arrays.asList(source));
+    }
+
+    public R apply(Collection<T> source) {
+        int size = source.size();
+        Decision decision = decide(source, size);
+        lastDecision = decision;
+        listener.accept(decision);
+
+        Stream<T> stream = decision.getMode() == Mode.SEQUENTIAL
+            ? source.stream()
+            : StreamSupport.stream(new GranularSpliterator<>(source.spliterator(), decision.getChunkSize()), true);
+        long start = System.nanoTime();
+        R result = pipeline.apply(stream);
+        long elapsed = System.nanoTime() - start;
+        // 太小的批次受 JIT 和计时精度影响,不用来修正估计
+        // 两种模式各自记录墙钟时间,不把并行耗时折算成单线程开销 (加速比不足 P 时会偏高)
+        if (size >= minSampleSource) {
+            double perElement = (double) elapsed / size;
+            if (decision.getMode() == Mode.PARALLEL) {
+                parallelNanos = smooth(parallelNanos, perElement);
+            } else {
+                sequentialNanos = smooth(sequentialNanos, perElement);
+            }
+        }
+        return result;
+    }
+
+    private Decision decide(Collection<T> source, int size) {
+        double cost = sequentialNanos;
+        if (parallelism <= 1) {
+            return new Decision(Mode.SEQUENTIAL, size, cost, size, false, "parallelism is 1");
+        }
+        if (size < minSampleSource && Double.isNaN(cost)) {
+            return new Decision(Mode.SEQUENTIAL, size, cost, size, false, "source too small to sample");
+        }
+
+        boolean sampled = false;
+        if (Double.isNaN(cost) && size >= minSampleSource) {
+            cost = sample(source);
+            sampled = true;
+        }
+
+        double total = cost * size;
+        if (total < parallelThresholdNanos) {
+            return new Decision(Mode.SEQUENTIAL, size, cost, size, sampled,
+                String.format("estimated %.0fus below threshold", total / 1000));
+        }
+
+        double parallelCost = parallelNanos;
+        Mode mode;
+        String reason;
+        if (Double.isNaN(parallelCost)) {
+            mode = Mode.PARALLEL;
+            reason = String.format("estimated %.0fus, parallel not measured yet", total / 1000);
+        } else if (parallelCost < cost) {
+            mode = Mode.PARALLEL;
+            reason = String.format("parallel %.1f < sequential %.1f ns/elem", parallelCost, cost);
+        } else {
+            mode = Mode.SEQUENTIAL;
+            reason = String.format("parallel %.1f >= sequential %.1f ns/elem", parallelCost, cost);
+        }
+        // 小于 minSampleSource 的批次不会记录耗时,复测没有意义
+        if (!sampled && size >= minSampleSource && runs.incrementAndGet() % RESAMPLE_INTERVAL == 0) {
+            mode = mode == Mode.PARALLEL ? Mode.SEQUENTIAL : Mode.PARALLEL;
+            reason = "re-measuring " + mode.name().toLowerCase(Locale.ROOT) + " (" + reason + ")";
+        }
+        if (mode == Mode.SEQUENTIAL) {
+            return new Decision(mode, size, cost, size, sampled, reason);
+        }
+
+        // 叶子任务至少要摊到 targetLeafNanos; 框架自身按 size / 4P 拆分,
+        // 取两者较大者才能让叶子变粗,同时封顶在 size / 2P,保证至少 P 个叶子
+        long byCost = (long) Math.ceil(targetLeafNanos / Math.max(cost, 1e-3));
+        long forBalance = size / (4L * parallelism);
+        long atLeastPLeaves = size / (2L * parallelism);
+        long chunk = Math.max(1, Math.min(Math.max(byCost, forBalance), atLeastPLeaves));
+        return new Decision(mode, size, cost, chunk, sampled, reason);
+    }
+
+    /**
+     * 在前缀样本上顺序试跑管道,返回每元素耗时
+     * 跑两轮取较小值,减轻首次调用时类加载与解释执行带来的偏差
+     */
+    private double sample(Collection<T> source) {
+        List<T> prefix;
+        if (source instanceof List && source instanceof RandomAccess) {
+            prefix = ((List<T>) source).subList(0, Math.min(SAMPLE_SIZE, source.size()));
+        } else {
+            prefix = new ArrayList<>(SAMPLE_SIZE);
+            Iterator<T> it = source.iterator();
+            while (prefix.size() < SAMPLE_SIZE && it.hasNext()) {
+                prefix.add(it.next());
+            }
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            pipeline.apply(prefix.stream());
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        sequentialNanos = smooth(sequentialNanos, (double) best / prefix.size());
+        return sequentialNanos;
+    }
+
+    private static double smooth(double current, double perElement) {
+        return Double.isNaN(current)
+            ? perElement
+            : current + SMOOTHING * (perElement - current);
+    }
+
+    /**
+     * 限制拆分粒度的 Spliterator: 剩余元素不足 2 × chunkSize 时不再拆分,叶子不小于 chunkSize
+     */
+    static final class GranularSpliterator<T> implements Spliterator<T> {
+        private final Spliterator<T> delegate;
+        private final long chunkSize;
+
+        GranularSpliterator(Spliterator<T> delegate, long chunkSize) {
+            this.delegate = delegate;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            return delegate.tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            delegate.forEachRemaining(action);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (delegate.estimateSize() < 2 * chunkSize) {
+                return null;
+            }
+            Spliterator<T> prefix = delegate.trySplit();
+            return prefix == null ? null : new GranularSpliterator<>(prefix, chunkSize);
+        }
+
+        @Override
+        public long estimateSize() {
+            return delegate.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return delegate.characteristics();
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return delegate.getComparator();
+        }
+    }
+
+    public static void main(String[] args) {
+        AdaptivePipeline<Integer, Double> sqrtSum = AdaptivePipeline.of(
+            (Stream<Integer> s) -> s.mapToDouble(n -> Math.sqrt(n)).sum());
+
+        // 同一条代码路径: 小批量 + 大批量
+        List<Integer> small = Arrays.asList(1, 2, 3, 4, 5);
+        List<Integer> large = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            large.add(i);
+        }
+
+        sqrtSum.apply(small);
+        System.out.println("Small: " + sqrtSum.lastDecision());
+        sqrtSum.apply(large);
+        System.out.println("Large: " + sqrtSum.lastDecision());
+        // 后续调用沿用 (并持续修正) 两种模式各自的估计,不再采样; 定期改走另一种模式复测
+        for (int i = 0; i < RESAMPLE_INTERVAL; i++) {
+            sqrtSum.apply(large);
+        }
+        System.out.println("Large again: " + sqrtSum.lastDecision());
+    }
+}
@@ -0,0 +1,182 @@
+package com.javaevolution.jdk8.stream;
+
+import com.javaevolution.jdk8.stream.sketch.TDigest;
+
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+
+/**
+ * 单次遍历的多指标统计状态: count / sum / min / max / mean / variance / 分位数
+ *
+ * 与 DoubleSummaryStatistics 类似,但额外维护 Welford 方差,
+ * 并可选用 t-digest 估计指定分位数 (不保留样本,内存与合并成本只与 compression 有关)。
+ * 状态可以廉价合并 (combine),因而可直接作为并行流的收集容器。
+ *
+ * 方差合并采用 Chan 等人的并行公式:
+ *   M2 = M2a + M2b + δ² · na · nb / n,  δ = meanB - meanA
+ */
+public class DoubleStatistics implements DoubleConsumer {
+
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    /** 与均值之差的平方和 */
+    private double m2;
+
+    /** 分位数估计的 t-digest 压缩参数: 质心约 100 个,p99 误差通常在 0.1% 量级 */
+    static final double COMPRESSION = 200;
+
+    private final double[] quantiles;
+    /** 仅在配置了分位数时创建 */
+    private final TDigest digest;
+
+    public DoubleStatistics() {
+        this(new double[0]);
+    }
+
+    /**
+     * @param quantiles 需要估计的分位数,取值 [0, 1]; 为空时不创建 t-digest
+     */
+    public DoubleStatistics(double... quantiles) {
+        for (double q : quantiles) {
+            if (!(q >= 0 && q <= 1)) {
+                throw new IllegalArgumentException("Quantile out of range [0, 1]: " + q);
+            }
+        }
+        this.quantiles = quantiles.clone();
+        this.digest = quantiles.length == 0 ? null : new TDigest(COMPRESSION);
+    }
+
+    public static DoubleStatistics of(DoubleStream stream, double... quantiles) {
+        return stream.collect(() -> new DoubleStatistics(quantiles),
+            DoubleStatistics::accept, DoubleStatistics::combine);
+    }
+
+    @Override
+    public void accept(double value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        // NaN 没有分位数意义,只计入 count / sum
+        if (digest != null && !Double.isNaN(value)) {
+            digest.accept(value);
+        }
+    }
+
+    public DoubleStatistics combine(DoubleStatistics other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            long n = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / n;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (digest != null && other.digest != null) {
+            digest.merge(other.digest);
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count > 0 ? mean : 0.0d;
+    }
+
+    /**
+     * 总体方差 (除以 n)
+     */
+    public double getVariance() {
+        return count > 0 ? m2 / count : 0.0d;
+    }
+
+    /**
+     * 样本方差 (除以 n - 1)
+     */
+    public double getSampleVariance() {
+        return count > 1 ? m2 / (count - 1) : 0.0d;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * 构造时配置的分位数,顺序与 getQuantiles() 的结果一一对应
+     */
+    public double[] getQuantileLevels() {
+        return quantiles.clone();
+    }
+
+    /**
+     * 所有配置的分位数的估计值 (t-digest,尾部更准); 没有样本时为 NaN
+     */
+    public double[] getQuantiles() {
+        if (digest == null) {
+            return new double[0];
+        }
+        double[] result = new double[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            result[i] = digest.quantile(quantiles[i]);
+        }
+        return result;
+    }
+
+    public double getQuantile(double q) {
+        for (int i = 0; i < quantiles.length; i++) {
+            if (quantiles[i] == q) {
+                return digest.quantile(q);
+            }
+        }
+        throw new IllegalArgumentException("Quantile " + q + " was not configured");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s{count=%d, sum=%f, min=%f, mean=%f, max=%f, stddev=%f",
+            getClass().getSimpleName(), getCount(), getSum(), getMin(), getMean(), getMax(),
+            getStandardDeviation()));
+        if (quantiles.length > 0) {
+            double[] values = getQuantiles();
+            for (int i = 0; i < quantiles.length; i++) {
+                sb.append(String.format(", p%s=%f", formatLevel(quantiles[i]), values[i]));
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String formatLevel(double q) {
+        double pct = q * 100;
+        return pct == Math.rint(pct) ? String.valueOf((long) pct) : String.valueOf(pct);
+    }
+}
@@ -0,0 +1,121 @@
+package com.javaevolution.jdk8.stream;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * 补偿求和与可复现的并行求和
+ *
+ * reduceDemo / whenToUseParallel 中 parallelStream().mapToDouble(..).sum() 的结果
+ * 取决于 Fork/Join 如何拆分: 浮点加法不满足结合律,换一种拆分就可能差几个 ulp。
+ * 这里提供两种"与并行度无关、逐位一致"的做法:
+ *
+ * 1. 数组: 按固定大小 (BLOCK_SIZE) 的绝对下标分块,块内 Neumaier 补偿求和,
+ *    块结果按下标顺序合并。分块只取决于数组长度,与线程数无关,因此
+ *    sum(a) 与 parallelSum(a) 在任何并行度下结果完全相同,速度接近 DoubleStream.sum()
+ * 2. 任意流: 拆分方式无法控制,改用 ExactDoubleAccumulator 精确累加,
+ *    结果是正确舍入的真实和,自然与顺序、拆分无关
+ *
+ * Neumaier 是 Kahan 的改进版: 当新加数比当前和还大时也能保留低位,
+ * 误差界为 O(ε) · Σ|x| 且与元素个数基本无关 (朴素累加为 O(nε))
+ */
+public final class DoubleSums {
+
+    /**
+     * 分块大小: 足够大以摊薄任务开销,足够小以保持分块均衡
+     */
+    public static final int BLOCK_SIZE = 1 << 14;
+
+    private DoubleSums() {
+    }
+
+    // ==================== Neumaier 补偿求和 ====================
+
+    public static double neumaier(double[] values) {
+        return neumaier(values, 0, values.length);
+    }
+
+    /**
+     * 对 values[from, to) 顺序做 Neumaier 补偿求和
+     */
+    public static double neumaier(double[] values, int from, int to) {
+        double sum = 0;
+        double compensation = 0;
+        for (int i = from; i < to; i++) {
+            double x = values[i];
+            double t = sum + x;
+            if (Math.abs(sum) >= Math.abs(x)) {
+                compensation += (sum - t) + x;
+            } else {
+                compensation += (x - t) + sum;
+            }
+            sum = t;
+        }
+        return sum + compensation;
+    }
+
+    // ==================== 固定分块: 顺序与并行逐位一致 ====================
+
+    /**
+     * 分块补偿求和,结果与 parallelSum(values) 逐位相同
+     */
+    public static double sum(double[] values) {
+        int blocks = blockCount(values.length);
+        double[] partials = new double[blocks];
+        for (int b = 0; b < blocks; b++) {
+            partials[b] = sumBlock(values, b);
+        }
+        return neumaier(partials);
+    }
+
+    /**
+     * 在公共池中并行计算各块,再按块下标顺序合并
+     */
+    public static double parallelSum(double[] values) {
+        int blocks = blockCount(values.length);
+        double[] partials = new double[blocks];
+        IntStream.range(0, blocks).parallel().forEach(b -> partials[b] = sumBlock(values, b));
+        return neumaier(partials);
+    }
+
+    /**
+     * 在指定池中并行求和; 结果与池的并行度无关
+     */
+    public static double parallelSum(double[] values, ForkJoinPool pool) {
+        return pool.submit(() -> parallelSum(values)).join();
+    }
+
+    // ==================== 任意流: 精确累加 ====================
+
+    /**
+     * 正确舍入的精确和,与流是否并行、如何拆分无关
+     */
+    public static double exactSum(DoubleStream stream) {
+        return stream.collect(ExactDoubleAccumulator::new, ExactDoubleAccumulator::accept,
+            ExactDoubleAccumulator::combine).doubleValue();
+    }
+
+    /**
+     * 替代 Collectors.summingDouble(mapper),结果逐位可复现
+     */
+    public static <T> Collector<T, ?, Double> summingExact(ToDoubleFunction<? super T> mapper) {
+        return Collector.of(
+            ExactDoubleAccumulator::new,
+            (acc, t) -> acc.accept(mapper.applyAsDouble(t)),
+            ExactDoubleAccumulator::combine,
+            ExactDoubleAccumulator::doubleValue,
+            Collector.Characteristics.UNORDERED);
+    }
+
+    private static int blockCount(int length) {
+        return (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    private static double sumBlock(double[] values, int block) {
+        int from = block * BLOCK_SIZE;
+        return neumaier(values, from, Math.min(values.length, from + BLOCK_SIZE));
+    }
+}
@@ -0,0 +1,162 @@
+package com.javaevolution.jdk8.stream;
+
+import java.math.BigInteger;
+import java.util.function.DoubleConsumer;
+
+/**
+ * 精确的 double 累加器 (定点"超长累加器")
+ *
+ * 每个有限 double 都是 2^-1074 的整数倍,所以可以把它拆成整数加到一个约 2100 位的定点数上:
+ * 累加过程完全没有舍入误差,结果与元素顺序、并行拆分方式都无关,
+ * 只在 doubleValue() 时按"就近舍入、平局取偶"舍入一次 (即正确舍入的和)。
+ *
+ * 定点数按 32 位一段存放在 long[] 中,高 32 位留作进位缓冲,每 2^30 次累加规整一次进位。
+ * 每个元素只需拆位和 3 次数组加法,没有浮点运算链上的依赖。
+ */
+public class ExactDoubleAccumulator implements DoubleConsumer {
+
+    private static final int CHUNK_BITS = 32;
+    private static final long CHUNK_MASK = 0xFFFFFFFFL;
+    /**
+     * 2098 位有效范围 + 进位余量
+     */
+    private static final int CHUNKS = 2098 / CHUNK_BITS + 3;
+    private static final int NORMALIZE_INTERVAL = 1 << 30;
+
+    private final long[] chunks = new long[CHUNKS];
+    private int pending;
+    private long count;
+    private boolean nan;
+    private boolean positiveInfinity;
+    private boolean negativeInfinity;
+
+    @Override
+    public void accept(double value) {
+        count++;
+        long bits = Double.doubleToRawLongBits(value);
+        int exponent = (int) (bits >>> 52) & 0x7FF;
+        long mantissa = bits & 0x000FFFFFFFFFFFFFL;
+        if (exponent == 0x7FF) {
+            if (mantissa != 0) {
+                nan = true;
+            } else if (bits < 0) {
+                negativeInfinity = true;
+            } else {
+                positiveInfinity = true;
+            }
+            return;
+        }
+        if (exponent == 0) {
+            if (mantissa == 0) {
+                return;
+            }
+            exponent = 1;
+        } else {
+            mantissa |= 1L << 52;
+        }
+        // value = mantissa × 2^(exponent - 1075),以 2^-1074 为单位即左移 exponent - 1 位
+        int shift = exponent - 1;
+        int index = shift >>> 5;
+        int offset = shift & (CHUNK_BITS - 1);
+        long shifted = mantissa << offset;
+        // 两次移位避免 offset = 0 时 >>> 64 退化为 >>> 0
+        long hi = (mantissa >>> 1) >>> (63 - offset);
+        // 符号无规律时分支预测失败代价很高,用 (x ^ sign) - sign 无分支取负
+        long sign = bits >> 63;
+        chunks[index] += ((shifted & CHUNK_MASK) ^ sign) - sign;
+        chunks[index + 1] += ((shifted >>> CHUNK_BITS) ^ sign) - sign;
+        chunks[index + 2] += (hi ^ sign) - sign;
+        if (++pending == NORMALIZE_INTERVAL) {
+            normalize();
+        }
+    }
+
+    /**
+     * 合并另一个累加器 (并行流的 combiner); 精确相加,与合并顺序无关
+     */
+    public ExactDoubleAccumulator combine(ExactDoubleAccumulator other) {
+        normalize();
+        other.normalize();
+        for (int i = 0; i < CHUNKS; i++) {
+            chunks[i] += other.chunks[i];
+        }
+        pending = 1;
+        count += other.count;
+        nan |= other.nan;
+        positiveInfinity |= other.positiveInfinity;
+        negativeInfinity |= other.negativeInfinity;
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 精确和正确舍入后的 double; 有 NaN 或正负无穷同时出现时为 NaN
+     */
+    public double doubleValue() {
+        if (nan || (positiveInfinity && negativeInfinity)) {
+            return Double.NaN;
+        }
+        if (positiveInfinity) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (negativeInfinity) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        normalize();
+        BigInteger total = BigInteger.ZERO;
+        for (int i = CHUNKS - 1; i >= 0; i--) {
+            total = total.shiftLeft(CHUNK_BITS).add(BigInteger.valueOf(chunks[i]));
+        }
+        return round(total);
+    }
+
+    /**
+     * 把以 2^-1074 为单位的整数舍入为 double
+     */
+    private static double round(BigInteger units) {
+        int signum = units.signum();
+        if (signum == 0) {
+            return 0.0;
+        }
+        BigInteger magnitude = units.abs();
+        int bitLength = magnitude.bitLength();
+        double result;
+        if (bitLength <= 53) {
+            // 次正规数或指数为 -1022 的正规数,可精确表示
+            result = Math.scalb((double) magnitude.longValue(), -1074);
+        } else {
+            // 保留 53 位有效位 + 1 位舍入位,其余位只看是否非零
+            int shift = bitLength - 54;
+            long top = magnitude.shiftRight(shift).longValue();
+            boolean sticky = magnitude.getLowestSetBit() < shift;
+            long significand = top >>> 1;
+            if ((top & 1) != 0 && (sticky || (significand & 1) != 0)) {
+                significand++;
+            }
+            result = Math.scalb((double) significand, shift + 1 - 1074);
+        }
+        return signum < 0 ? -result : result;
+    }
+
+    private void normalize() {
+        if (pending == 0) {
+            return;
+        }
+        long carry = 0;
+        for (int i = 0; i < CHUNKS - 1; i++) {
+            long v = chunks[i] + carry;
+            carry = v >> CHUNK_BITS;
+            chunks[i] = v & CHUNK_MASK;
+        }
+        chunks[CHUNKS - 1] += carry;
+        pending = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ExactDoubleAccumulator{count=" + count + ", sum=" + doubleValue() + "}";
+    }
+}
@@ -0,0 +1,501 @@
+package com.javaevolution.jdk8.stream;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 外部归并排序: 数据量超过堆内存时替代 stream.sorted()
+ *
+ * 1. 生成有序段 (run): 按内存预算把输入切成若干缓冲区,每个缓冲区在线程池中排序,
+ *    并以紧凑的二进制编码写入临时文件; 最多 parallelism 个缓冲区同时在排序/写盘,
+ *    读取输入的线程在许可用完时阻塞,因此内存占用始终受预算约束
+ * 2. 多路归并: 用小顶堆按需从各个段文件中读取下一个元素,惰性地产出为 Stream;
+ *    段数超过 maxFanIn 时先做中间归并,避免同时打开过多文件
+ *
+ * 排序是稳定的 (段内 TimSort,段间按输入顺序打破平局)。
+ * 若全部输入都装得进一个缓冲区,直接在内存中排序,不落盘。
+ *
+ * 返回的流持有临时文件,应在 try-with-resources 中使用,关闭时删除所有临时文件:
+ * <pre>
+ * ExternalSort&lt;Long&gt; sorter = ExternalSort.builder(Comparator.&lt;Long&gt;naturalOrder(), ExternalSort.Codec.LONG)
+ *     .memoryBudget(256L &lt;&lt; 20)
+ *     .build();
+ * try (Stream&lt;Long&gt; sorted = sorter.sort(ids.stream())) {
+ *     sorted.limit(100).forEach(System.out::println);
+ * }
+ * </pre>
+ */
+public class ExternalSort<T> {
+
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * 记录的二进制编码
+     */
+    public interface Codec<T> {
+
+        void write(DataOutput out, T value) throws IOException;
+
+        T read(DataInput in) throws IOException;
+
+        /**
+         * zigzag 变长编码: 绝对值小的数只占 1~2 字节
+         */
+        Codec<Long> LONG = new Codec<Long>() {
+            @Override
+            public void write(DataOutput out, Long value) throws IOException {
+                writeVarLong(out, (value << 1) ^ (value >> 63));
+            }
+
+            @Override
+            public Long read(DataInput in) throws IOException {
+                long v = readVarLong(in);
+                return (v >>> 1) ^ -(v & 1);
+            }
+        };
+
+        Codec<Integer> INT = new Codec<Integer>() {
+            @Override
+            public void write(DataOutput out, Integer value) throws IOException {
+                writeVarLong(out, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                int v = (int) readVarLong(in);
+                return (v >>> 1) ^ -(v & 1);
+            }
+        };
+
+        Codec<Double> DOUBLE = new Codec<Double>() {
+            @Override
+            public void write(DataOutput out, Double value) throws IOException {
+                out.writeDouble(value);
+            }
+
+            @Override
+            public Double read(DataInput in) throws IOException {
+                return in.readDouble();
+            }
+        };
+
+        /**
+         * 变长长度前缀 + UTF-8 字节 (没有 writeUTF 的 64KB 限制)
+         */
+        Codec<String> STRING = new Codec<String>() {
+            @Override
+            public void write(DataOutput out, String value) throws IOException {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, bytes.length);
+                out.write(bytes);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    public static final class Builder<T> {
+        private final Comparator<? super T> comparator;
+        private final Codec<T> codec;
+        private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+        private ToLongFunction<? super T> recordSize = t -> 64;
+        private Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Executor executor = ForkJoinPool.commonPool();
+        private int maxFanIn = 128;
+
+        private Builder(Comparator<? super T> comparator, Codec<T> codec) {
+            this.comparator = Objects.requireNonNull(comparator);
+            this.codec = Objects.requireNonNull(codec);
+        }
+
+        /**
+         * 排序阶段允许占用的堆内存 (字节,按 recordSize 估算)
+         */
+        public Builder<T> memoryBudget(long bytes) {
+            if (bytes <= 0) {
+                throw new IllegalArgumentException("memoryBudget must be positive: " + bytes);
+            }
+            this.memoryBudget = bytes;
+            return this;
+        }
+
+        /**
+         * 单条记录在堆上的估计大小 (含对象头与引用),默认 64 字节
+         */
+        public Builder<T> recordSize(ToLongFunction<? super T> recordSize) {
+            this.recordSize = Objects.requireNonNull(recordSize);
+            return this;
+        }
+
+        public Builder<T> tempDirectory(Path directory) {
+            this.tempDirectory = Objects.requireNonNull(directory);
+            return this;
+        }
+
+        /**
+         * 同时排序/写盘的缓冲区个数; 预算在它们与正在填充的缓冲区之间平分
+         */
+        public Builder<T> parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder<T> executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        /**
+         * 一次归并同时打开的段文件上限
+         */
+        public Builder<T> maxFanIn(int maxFanIn) {
+            if (maxFanIn < 2) {
+                throw new IllegalArgumentException("maxFanIn must be >= 2: " + maxFanIn);
+            }
+            this.maxFanIn = maxFanIn;
+            return this;
+        }
+
+        public ExternalSort<T> build() {
+            return new ExternalSort<>(this);
+        }
+    }
+
+    /**
+     * 一个已写盘的有序段
+     */
+    private static final class Run {
+        final Path file;
+        final long count;
+
+        Run(Path file, long count) {
+            this.file = file;
+            this.count = count;
+        }
+    }
+
+    private final Comparator<? super T> comparator;
+    private final Codec<T> codec;
+    private final long bufferBudget;
+    private final ToLongFunction<? super T> recordSize;
+    private final Path tempDirectory;
+    private final int parallelism;
+    private final Executor executor;
+    private final int maxFanIn;
+
+    private ExternalSort(Builder<T> builder) {
+        this.comparator = builder.comparator;
+        this.codec = builder.codec;
+        this.bufferBudget = Math.max(1, builder.memoryBudget / (builder.parallelism + 1));
+        this.recordSize = builder.recordSize;
+        this.tempDirectory = builder.tempDirectory;
+        this.parallelism = builder.parallelism;
+        this.executor = builder.executor;
+        this.maxFanIn = builder.maxFanIn;
+    }
+
+    public static <T> Builder<T> builder(Comparator<? super T> comparator, Codec<T> codec) {
+        return new Builder<>(comparator, codec);
+    }
+
+    /**
+     * 消费整个输入并返回有序流; 输入在本方法返回前读取完毕,归并在消费结果时惰性进行
+     *
+     * @throws UncheckedIOException 写临时文件失败
+     */
+    public Stream<T> sort(Stream<T> input) {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory(tempDirectory, "external-sort-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Run> runs = new ArrayList<>();
+        try {
+            List<T> tail = generateRuns(input, directory, runs);
+            if (runs.isEmpty()) {
+                // 全部装得下: 纯内存排序
+                deleteQuietly(directory);
+                return tail.stream();
+            }
+            if (!tail.isEmpty()) {
+                runs.add(writeRun(tail, directory, runs.size()));
+            }
+            while (runs.size() > maxFanIn) {
+                runs = mergePass(runs, directory);
+            }
+            MergeSpliterator merge = new MergeSpliterator(runs);
+            return StreamSupport.stream(merge, false).onClose(() -> {
+                merge.close();
+                deleteTree(directory);
+            });
+        } catch (RuntimeException | Error e) {
+            deleteTree(directory);
+            throw e;
+        }
+    }
+
+    // ==================== 第一阶段: 并行生成有序段 ====================
+
+    /**
+     * 返回最后一个未写盘 (已排序) 的缓冲区
+     */
+    private List<T> generateRuns(Stream<T> input, Path directory, List<Run> runs) {
+        Semaphore permits = new Semaphore(parallelism);
+        List<CompletableFuture<Run>> pending = new ArrayList<>();
+        List<T> buffer = new ArrayList<>();
+        long bufferBytes = 0;
+        Iterator<T> it = input.iterator();
+        try {
+            while (it.hasNext()) {
+                T t = it.next();
+                buffer.add(t);
+                bufferBytes += recordSize.applyAsLong(t);
+                if (bufferBytes >= bufferBudget) {
+                    List<T> full = buffer;
+                    int index = pending.size();
+                    permits.acquireUninterruptibly();
+                    pending.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            full.sort(comparator);
+                            return writeRun(full, directory, index);
+                        } finally {
+                            permits.release();
+                        }
+                    }, executor));
+                    buffer = new ArrayList<>();
+                    bufferBytes = 0;
+                }
+            }
+            buffer.sort(comparator);
+            for (CompletableFuture<Run> future : pending) {
+                runs.add(future.join());
+            }
+            return buffer;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } finally {
+            // 出错时等待仍在运行的任务结束,再由调用方清理目录
+            for (CompletableFuture<Run> future : pending) {
+                try {
+                    future.join();
+                } catch (CompletionException ignored) {
+                    // 第一个异常已经向上抛出
+                }
+            }
+        }
+    }
+
+    private Run writeRun(List<T> sorted, Path directory, int index) {
+        try {
+            Path file = Files.createTempFile(directory, "run-" + index + "-", ".bin");
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE))) {
+                for (T t : sorted) {
+                    codec.write(out, t);
+                }
+            }
+            return new Run(file, sorted.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ==================== 第二阶段: 多路归并 ====================
+
+    /**
+     * 每 maxFanIn 个段归并成一个新段,直到段数不超过 maxFanIn
+     */
+    private List<Run> mergePass(List<Run> runs, Path directory) {
+        List<Run> merged = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += maxFanIn) {
+            List<Run> group = runs.subList(from, Math.min(runs.size(), from + maxFanIn));
+            if (group.size() == 1) {
+                merged.add(group.get(0));
+                continue;
+            }
+            try {
+                Path file = Files.createTempFile(directory, "merge-", ".bin");
+                long count = 0;
+                try (MergeSpliterator merge = new MergeSpliterator(group);
+                     DataOutputStream out = new DataOutputStream(
+                         new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE))) {
+                    Object[] holder = new Object[1];
+                    while (merge.tryAdvance(t -> holder[0] = t)) {
+                        @SuppressWarnings("unchecked")
+                        T t = (T) holder[0];
+                        codec.write(out, t);
+                        count++;
+                    }
+                }
+                merged.add(new Run(file, count));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 一个段文件的读取游标
+     */
+    private final class Cursor {
+        final int order;
+        final Run run;
+        final DataInputStream in;
+        long remaining;
+        T head;
+
+        Cursor(int order, Run run) throws IOException {
+            this.order = order;
+            this.run = run;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.file), IO_BUFFER_SIZE));
+            this.remaining = run.count;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                in.close();
+                Files.deleteIfExists(run.file);
+                return false;
+            }
+            head = codec.read(in);
+            remaining--;
+            return true;
+        }
+    }
+
+    private final class MergeSpliterator implements Spliterator<T>, Closeable {
+        private final PriorityQueue<Cursor> heap;
+        private final List<Cursor> open = new ArrayList<>();
+
+        MergeSpliterator(List<Run> runs) {
+            // 平局按段序号: 段按输入顺序生成,保证稳定
+            this.heap = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+                int c = comparator.compare(a.head, b.head);
+                return c != 0 ? c : Integer.compare(a.order, b.order);
+            });
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    Cursor cursor = new Cursor(i, runs.get(i));
+                    open.add(cursor);
+                    if (cursor.advance()) {
+                        heap.add(cursor);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Cursor top = heap.poll();
+            if (top == null) {
+                return false;
+            }
+            T value = top.head;
+            try {
+                if (top.advance()) {
+                    heap.add(top);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            action.accept(value);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // 归并输出天然是串行的; 下游并行可以在此之后 parallel()
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = 0;
+            for (Cursor cursor : heap) {
+                size += cursor.remaining + 1;
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED;
+        }
+
+        @Override
+        public void close() {
+            heap.clear();
+            for (Cursor cursor : open) {
+                try {
+                    cursor.in.close();
+                } catch (IOException ignored) {
+                    // 关闭阶段尽力而为
+                }
+            }
+        }
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    private static void deleteTree(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(ExternalSort::deleteQuietly);
+        } catch (IOException | UncheckedIOException ignored) {
+            // 目录可能已被删除
+        }
+        deleteQuietly(directory);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // 临时文件清理失败不影响结果
+        }
+    }
+}
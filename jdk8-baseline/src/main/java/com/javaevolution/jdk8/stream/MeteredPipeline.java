@@ -0,0 +1,415 @@
+package com.javaevolution.jdk8.stream;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * 按阶段计量的流管道
+ *
+ * peekDemo 里的 peek 只能打印元素; 这里给每个阶段记录:
+ * - 进入 / 产出的元素数与选择率 (out / in)
+ * - 阶段函数本身的耗时 (流是推模型,包住 filter/map 的函数就不会把下游开销算进来)
+ * - 阶段函数分配的字节数 (HotSpot 的线程级分配计数器)
+ *
+ * 计数使用 LongAdder,顺序流和并行流都适用。
+ * 计时与分配统计按 1 / sampleEvery 的概率抽样再外推; sampleEvery = 0 时只计数,
+ * 每个元素的额外开销只有两次 LongAdder 自增。
+ *
+ * <pre>
+ * MeteredPipeline&lt;Order&gt; p = MeteredPipeline.of(orders.parallelStream(), 100);
+ * List&lt;Dto&gt; result = p.filter("paid", Order::isPaid)
+ *     .map("toDto", Dto::from)
+ *     .collect(Collectors.toList());
+ * System.out.println(p.report());
+ * </pre>
+ *
+ * sorted / distinct / limit 等有状态阶段只统计进出数量 (耗时无法按元素归属)
+ */
+public final class MeteredPipeline<T> {
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    /**
+     * 两次读取分配计数器之间自身产生的分配 (JDK 8 每次读取会分配数组),统计时扣除
+     */
+    private static final long ALLOCATION_PROBE_OVERHEAD = calibrateAllocationProbe();
+
+    /**
+     * 一个阶段的计量结果快照
+     */
+    public static final class StageMetrics {
+        private final String name;
+        private final boolean timed;
+        private final long in;
+        private final long out;
+        private final long sampled;
+        private final long sampledNanos;
+        private final long sampledBytes;
+
+        StageMetrics(String name, boolean timed, long in, long out,
+                     long sampled, long sampledNanos, long sampledBytes) {
+            this.name = name;
+            this.timed = timed;
+            this.in = in;
+            this.out = out;
+            this.sampled = sampled;
+            this.sampledNanos = sampledNanos;
+            this.sampledBytes = sampledBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getIn() {
+            return in;
+        }
+
+        public long getOut() {
+            return out;
+        }
+
+        /**
+         * out / in; filter 小于 1,flatMap 可能大于 1
+         */
+        public double getSelectivity() {
+            return in == 0 ? Double.NaN : (double) out / in;
+        }
+
+        public long getSampled() {
+            return sampled;
+        }
+
+        /**
+         * 抽样得到的每元素平均耗时,未抽样时为 NaN
+         */
+        public double getNanosPerElement() {
+            return sampled == 0 ? Double.NaN : (double) sampledNanos / sampled;
+        }
+
+        /**
+         * 按抽样外推的阶段总耗时 (所有线程累加,即 CPU 时间而非挂钟时间)
+         */
+        public double getEstimatedNanos() {
+            return getNanosPerElement() * in;
+        }
+
+        /**
+         * 抽样得到的每元素平均分配字节数,不支持分配计数时为 NaN
+         */
+        public double getBytesPerElement() {
+            return sampled == 0 || THREADS == null ? Double.NaN : (double) sampledBytes / sampled;
+        }
+
+        public boolean isTimed() {
+            return timed;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{in=" + in + ", out=" + out
+                + (timed ? String.format(", ns/elem=%.1f, B/elem=%.1f", getNanosPerElement(), getBytesPerElement()) : "")
+                + "}";
+        }
+    }
+
+    /**
+     * 同一条管道上所有阶段共享的计量状态
+     */
+    private static final class Registry {
+        final int sampleEvery;
+        final List<Stage> stages = new ArrayList<>();
+        volatile long terminalNanos = -1;
+
+        Registry(int sampleEvery) {
+            this.sampleEvery = sampleEvery;
+        }
+
+        Stage register(String name, boolean timed) {
+            Stage stage = new Stage(name, timed, timed ? sampleEvery : 0);
+            stages.add(stage);
+            return stage;
+        }
+    }
+
+    private static final class Stage {
+        final String name;
+        final boolean timed;
+        final int sampleEvery;
+        final LongAdder in = new LongAdder();
+        final LongAdder out = new LongAdder();
+        final LongAdder sampled = new LongAdder();
+        final LongAdder sampledNanos = new LongAdder();
+        final LongAdder sampledBytes = new LongAdder();
+
+        Stage(String name, boolean timed, int sampleEvery) {
+            this.name = name;
+            this.timed = timed;
+            this.sampleEvery = sampleEvery;
+        }
+
+        boolean sampleNext() {
+            return sampleEvery == 1
+                || sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) == 0;
+        }
+
+        void record(long startNanos, long startBytes) {
+            long elapsed = System.nanoTime() - startNanos;
+            if (startBytes >= 0) {
+                sampledBytes.add(Math.max(0, allocatedBytes() - startBytes - ALLOCATION_PROBE_OVERHEAD));
+            }
+            sampledNanos.add(elapsed);
+            sampled.increment();
+        }
+
+        StageMetrics snapshot() {
+            return new StageMetrics(name, timed, in.sum(), out.sum(),
+                sampled.sum(), sampledNanos.sum(), sampledBytes.sum());
+        }
+    }
+
+    private final Stream<T> stream;
+    private final Registry registry;
+
+    private MeteredPipeline(Stream<T> stream, Registry registry) {
+        this.stream = stream;
+        this.registry = registry;
+    }
+
+    /**
+     * 只计数,不计时
+     */
+    public static <T> MeteredPipeline<T> of(Stream<T> source) {
+        return of(source, 0);
+    }
+
+    /**
+     * @param sampleEvery 平均每 sampleEvery 个元素抽样一次计时与分配; 1 = 全量,0 = 关闭
+     */
+    public static <T> MeteredPipeline<T> of(Stream<T> source, int sampleEvery) {
+        if (sampleEvery < 0) {
+            throw new IllegalArgumentException("sampleEvery must be >= 0: " + sampleEvery);
+        }
+        Registry registry = new Registry(sampleEvery);
+        Stage stage = registry.register("source", false);
+        return new MeteredPipeline<>(source.peek(t -> {
+            stage.in.increment();
+            stage.out.increment();
+        }), registry);
+    }
+
+    public MeteredPipeline<T> filter(String name, Predicate<? super T> predicate) {
+        Stage stage = registry.register(name, true);
+        return next(stream.filter(t -> {
+            stage.in.increment();
+            boolean pass;
+            if (stage.sampleNext()) {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                pass = predicate.test(t);
+                stage.record(start, bytes);
+            } else {
+                pass = predicate.test(t);
+            }
+            if (pass) {
+                stage.out.increment();
+            }
+            return pass;
+        }));
+    }
+
+    public <R> MeteredPipeline<R> map(String name, Function<? super T, ? extends R> mapper) {
+        Stage stage = registry.register(name, true);
+        return next(stream.map(t -> {
+            stage.in.increment();
+            R result;
+            if (stage.sampleNext()) {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                result = mapper.apply(t);
+                stage.record(start, bytes);
+            } else {
+                result = mapper.apply(t);
+            }
+            stage.out.increment();
+            return result;
+        }));
+    }
+
+    /**
+     * 计时只覆盖 mapper 构造子流的开销,子流元素的产出按 out 计数
+     */
+    public <R> MeteredPipeline<R> flatMap(String name, Function<? super T, ? extends Stream<? extends R>> mapper) {
+        Stage stage = registry.register(name, true);
+        return next(stream.flatMap(t -> {
+            stage.in.increment();
+            Stream<? extends R> result;
+            if (stage.sampleNext()) {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                result = mapper.apply(t);
+                stage.record(start, bytes);
+            } else {
+                result = mapper.apply(t);
+            }
+            return result == null ? null : result.peek(r -> stage.out.increment());
+        }));
+    }
+
+    public MeteredPipeline<T> sorted(String name) {
+        return stage(name, Stream::sorted);
+    }
+
+    public MeteredPipeline<T> sorted(String name, Comparator<? super T> comparator) {
+        return stage(name, s -> s.sorted(comparator));
+    }
+
+    public MeteredPipeline<T> distinct(String name) {
+        return stage(name, Stream::distinct);
+    }
+
+    public MeteredPipeline<T> limit(String name, long maxSize) {
+        return stage(name, s -> s.limit(maxSize));
+    }
+
+    /**
+     * 任意中间操作,只统计进出数量
+     */
+    public <R> MeteredPipeline<R> stage(String name, Function<? super Stream<T>, ? extends Stream<R>> operation) {
+        Stage stage = registry.register(name, false);
+        Stream<R> applied = operation.apply(stream.peek(t -> stage.in.increment()));
+        return next(applied.peek(r -> stage.out.increment()));
+    }
+
+    public MeteredPipeline<T> parallel() {
+        return next(stream.parallel());
+    }
+
+    public MeteredPipeline<T> sequential() {
+        return next(stream.sequential());
+    }
+
+    // ========== 终端操作: 记录整条管道的挂钟时间 ==========
+
+    public <R> R collect(Collector<? super T, ?, R> collector) {
+        return terminal(s -> s.collect(collector));
+    }
+
+    public void forEach(Consumer<? super T> action) {
+        terminal(s -> {
+            s.forEach(action);
+            return null;
+        });
+    }
+
+    public long count() {
+        return terminal(Stream::count);
+    }
+
+    public <R> R terminal(Function<? super Stream<T>, R> operation) {
+        long start = System.nanoTime();
+        try {
+            return operation.apply(stream);
+        } finally {
+            registry.terminalNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * 取出底层流自行执行终端操作 (不记录总耗时)
+     */
+    public Stream<T> unwrap() {
+        return stream;
+    }
+
+    // ========== 结果 ==========
+
+    public List<StageMetrics> metrics() {
+        List<StageMetrics> result = new ArrayList<>(registry.stages.size());
+        for (Stage stage : registry.stages) {
+            result.add(stage.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * 终端操作的挂钟耗时,尚未执行时为 -1
+     */
+    public long getTerminalNanos() {
+        return registry.terminalNanos;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s %12s %12s %8s %12s %12s %10s%n",
+            "stage", "in", "out", "sel", "ns/elem", "est.ms", "B/elem"));
+        for (StageMetrics m : metrics()) {
+            sb.append(String.format("%-16s %12d %12d %8s %12s %12s %10s%n",
+                m.getName(),
+                m.getIn(),
+                m.getOut(),
+                format("%.3f", m.getSelectivity()),
+                format("%.1f", m.getNanosPerElement()),
+                format("%.2f", m.getEstimatedNanos() / 1e6),
+                format("%.1f", m.getBytesPerElement())));
+        }
+        long terminal = registry.terminalNanos;
+        if (terminal >= 0) {
+            sb.append(String.format("terminal wall time: %.2f ms, sampling: %s%n", terminal / 1e6,
+                registry.sampleEvery == 0 ? "off" : "1/" + registry.sampleEvery));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "MeteredPipeline" + metrics();
+    }
+
+    private <R> MeteredPipeline<R> next(Stream<R> next) {
+        return new MeteredPipeline<>(next, registry);
+    }
+
+    private static String format(String pattern, double value) {
+        return Double.isNaN(value) ? "-" : String.format(pattern, value);
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+                if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                    return hotspot;
+                }
+            }
+        } catch (RuntimeException | LinkageError ignored) {
+            // 非 HotSpot 或受限环境: 只统计数量与耗时
+        }
+        return null;
+    }
+
+    private static long calibrateAllocationProbe() {
+        if (THREADS == null) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 32; i++) {
+            long before = allocatedBytes();
+            long after = allocatedBytes();
+            min = Math.min(min, after - before);
+        }
+        return min;
+    }
+}
@@ -0,0 +1,378 @@
+package com.javaevolution.jdk8.stream;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 可及时取消兄弟任务的并行短路查找
+ *
+ * 并行流的 anyMatch / findAny / findFirst 找到结果后只会阻止"尚未开始的"子任务,
+ * 已经在跑的叶子任务仍会把整个分片遍历完 (叶子内只检查自己的短路标志)。
+ * 谓词很贵时,找到答案后其它核还要空转很久。
+ *
+ * 这里自己做 Fork/Join 拆分,叶子任务在每个元素之前检查共享状态:
+ * - findAny: 任一叶子命中后,所有叶子在下一个元素前停止
+ * - findFirst: 每个叶子有按遇到顺序排列的位置,命中后只停止位置在它之后的叶子,
+ *   之前的叶子继续查找更靠前的命中
+ * - timeout: 超过截止时间所有叶子停止,结果状态为 TIMED_OUT
+ * - 谓词抛异常时同样停止所有叶子,异常原样抛给调用方 (包括偷偷抛出的受检异常)
+ *
+ * 结果附带实际求值的元素数与耗时。anyMatch / allMatch / noneMatch 可由 findAny 表达:
+ * anyMatch(p) = findAny(p).isPresent(),allMatch(p) = !findAny(p.negate()).isPresent(),
+ * 超时时应先检查 getStatus() 而不是把"未找到"当作 false
+ */
+public class ParallelSearch<T> {
+
+    /**
+     * 查找结果状态
+     */
+    public enum Status {
+        FOUND, NOT_FOUND, TIMED_OUT
+    }
+
+    /**
+     * 一次查找的结果与统计
+     */
+    public static final class Result<T> {
+        private final Status status;
+        private final T value;
+        private final boolean present;
+        private final long index;
+        private final long evaluated;
+        private final long elapsedNanos;
+
+        Result(Status status, T value, boolean present, long index, long evaluated, long elapsedNanos) {
+            this.status = status;
+            this.value = value;
+            this.present = present;
+            this.index = index;
+            this.evaluated = evaluated;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * FOUND,或 findFirst 超时时已有候选 (此时不保证是第一个)
+         */
+        public boolean isPresent() {
+            return present;
+        }
+
+        public T get() {
+            if (!present) {
+                throw new NoSuchElementException("No value present, status " + status);
+            }
+            return value;
+        }
+
+        /**
+         * 元素可能为 null 时 Optional 会抛 NPE,请改用 isPresent() / get()
+         */
+        public Optional<T> toOptional() {
+            return present ? Optional.of(value) : Optional.empty();
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * 命中元素在源中的下标; 源不是 SUBSIZED 或未命中时为 -1
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         * 实际执行谓词的元素数
+         */
+        public long getEvaluated() {
+            return evaluated;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" + status + (present ? ", value=" + value + ", index=" + index : "")
+                + ", evaluated=" + evaluated
+                + ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms}";
+        }
+    }
+
+    /** 位置编码的有效位数,拆分深度不超过它 */
+    private static final int POSITION_BITS = 62;
+    /** 每个工作线程平均分到的叶子数 */
+    private static final int LEAVES_PER_THREAD = 8;
+
+    private final Supplier<Spliterator<T>> source;
+    private final boolean reusable;
+    private boolean consumed;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private long timeoutNanos = -1;
+
+    private ParallelSearch(Supplier<Spliterator<T>> source, boolean reusable) {
+        this.source = source;
+        this.reusable = reusable;
+    }
+
+    /**
+     * 集合可以反复查找
+     */
+    public static <T> ParallelSearch<T> of(Collection<T> source) {
+        Objects.requireNonNull(source, "source");
+        return new ParallelSearch<>(source::spliterator, true);
+    }
+
+    /**
+     * 流只能查找一次; 中间操作 (map 等) 在叶子任务中逐个元素惰性执行
+     */
+    public static <T> ParallelSearch<T> of(Stream<T> source) {
+        Objects.requireNonNull(source, "source");
+        return new ParallelSearch<>(source::spliterator, false);
+    }
+
+    public static <T> ParallelSearch<T> of(Spliterator<T> source) {
+        Objects.requireNonNull(source, "source");
+        return new ParallelSearch<>(() -> source, false);
+    }
+
+    /**
+     * 在指定池中执行,默认公共池
+     */
+    public ParallelSearch<T> pool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        return this;
+    }
+
+    /**
+     * 从查找开始计时的截止时间
+     */
+    public ParallelSearch<T> timeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must be >= 0: " + timeout);
+        }
+        this.timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * 任意一个满足谓词的元素
+     */
+    public Result<T> findAny(Predicate<? super T> predicate) {
+        return search(predicate, false);
+    }
+
+    /**
+     * 遇到顺序中第一个满足谓词的元素
+     */
+    public Result<T> findFirst(Predicate<? super T> predicate) {
+        return search(predicate, true);
+    }
+
+    private Result<T> search(Predicate<? super T> predicate, boolean first) {
+        Objects.requireNonNull(predicate, "predicate");
+        if (consumed && !reusable) {
+            throw new IllegalStateException("source has already been searched");
+        }
+        consumed = true;
+        Spliterator<T> spliterator = source.get();
+        long start = System.nanoTime();
+        Search<T> search = new Search<>(predicate, first,
+            timeoutNanos < 0 ? 0 : start + timeoutNanos, timeoutNanos >= 0);
+        long size = spliterator.estimateSize();
+        long leafSize = Math.max(1, size / ((long) pool.getParallelism() * LEAVES_PER_THREAD));
+        long origin = spliterator.hasCharacteristics(Spliterator.SUBSIZED) ? 0 : -1;
+        pool.invoke(new SearchTask<>(search, spliterator, 0, 0, origin, leafSize));
+        Throwable failure = search.failure.get();
+        if (failure != null) {
+            throw ParallelSearch.<RuntimeException>rethrow(failure);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Hit<T> hit = search.best.get();
+        long evaluated = search.evaluated.sum();
+        if (search.timedOut && (hit == null || first)) {
+            return hit == null
+                ? new Result<>(Status.TIMED_OUT, null, false, -1, evaluated, elapsed)
+                : new Result<>(Status.TIMED_OUT, hit.value, true, hit.index, evaluated, elapsed);
+        }
+        if (hit == null) {
+            return new Result<>(Status.NOT_FOUND, null, false, -1, evaluated, elapsed);
+        }
+        return new Result<>(Status.FOUND, hit.value, true, hit.index, evaluated, elapsed);
+    }
+
+    /**
+     * 原样抛出任意异常; 谓词可能用同样的手法抛出受检异常,这里不包装
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E rethrow(Throwable failure) throws E {
+        throw (E) failure;
+    }
+
+    /**
+     * 一次查找中所有叶子共享的状态
+     */
+    private static final class Search<T> {
+        final Predicate<? super T> predicate;
+        final boolean first;
+        final long deadline;
+        final boolean timed;
+        final AtomicReference<Hit<T>> best = new AtomicReference<>();
+        final LongAdder evaluated = new LongAdder();
+        /** 第一个异常; 由叶子记录而不是抛出,避免 join 逐层包装 */
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        volatile boolean timedOut;
+        volatile boolean failed;
+
+        Search(Predicate<? super T> predicate, boolean first, long deadline, boolean timed) {
+            this.predicate = predicate;
+            this.first = first;
+            this.deadline = deadline;
+            this.timed = timed;
+        }
+
+        /**
+         * 位置为 position 的任务是否可以停止: 出错、超时,
+         * 或已有命中 (findFirst 时要求命中位置在它之前)
+         */
+        boolean stopped(long position) {
+            if (failed || timedOut) {
+                return true;
+            }
+            Hit<T> hit = best.get();
+            return hit != null && (!first || hit.position < position);
+        }
+
+        boolean expired() {
+            if (timed && System.nanoTime() - deadline >= 0) {
+                timedOut = true;
+                return true;
+            }
+            return false;
+        }
+
+        void record(Hit<T> hit) {
+            Hit<T> current;
+            do {
+                current = best.get();
+                if (current != null && (!first || current.position <= hit.position)) {
+                    return;
+                }
+            } while (!best.compareAndSet(current, hit));
+        }
+    }
+
+    private static final class Hit<T> {
+        final long position;
+        final long index;
+        final T value;
+
+        Hit(long position, long index, T value) {
+            this.position = position;
+            this.index = index;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 拆分出右半部分交给其它线程,自己继续处理左半部分,保证靠前的元素先被查找。
+     * position 把任务在拆分树中的路径编码为 [0, 2^62) 上的区间起点,
+     * 叶子之间按 position 比较即按遇到顺序比较
+     */
+    @SuppressWarnings("serial")
+    private static final class SearchTask<T> extends RecursiveAction {
+        private final Search<T> search;
+        private final Spliterator<T> spliterator;
+        private final long position;
+        private final int depth;
+        private final long origin;
+        private final long leafSize;
+
+        SearchTask(Search<T> search, Spliterator<T> spliterator, long position, int depth,
+                   long origin, long leafSize) {
+            this.search = search;
+            this.spliterator = spliterator;
+            this.position = position;
+            this.depth = depth;
+            this.origin = origin;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            Spliterator<T> rest = spliterator;
+            int d = depth;
+            long o = origin;
+            Deque<SearchTask<T>> forked = new ArrayDeque<>();
+            while (rest.estimateSize() > leafSize && d < POSITION_BITS - 1 && !search.stopped(position)) {
+                Spliterator<T> left = rest.trySplit();
+                if (left == null) {
+                    break;
+                }
+                long rightOrigin = o < 0 ? -1 : o + left.getExactSizeIfKnown();
+                long rightPosition = position | 1L << (POSITION_BITS - 1 - d);
+                d++;
+                SearchTask<T> right = new SearchTask<>(search, rest, rightPosition, d, rightOrigin, leafSize);
+                right.fork();
+                forked.push(right);
+                rest = left;
+            }
+            scan(rest, o);
+            while (!forked.isEmpty()) {
+                forked.pop().join();
+            }
+        }
+
+        private void scan(Spliterator<T> leaf, long leafOrigin) {
+            Probe<T> probe = new Probe<>(search.predicate);
+            try {
+                while (!search.stopped(position) && !search.expired() && leaf.tryAdvance(probe)) {
+                    if (probe.matched) {
+                        long index = leafOrigin < 0 ? -1 : leafOrigin + probe.count - 1;
+                        search.record(new Hit<>(position, index, probe.value));
+                        break;
+                    }
+                }
+            } catch (Throwable e) {
+                search.failure.compareAndSet(null, e);
+                search.failed = true;
+            } finally {
+                search.evaluated.add(probe.count);
+            }
+        }
+    }
+
+    /**
+     * 叶子内逐个元素求值,复用同一个 Consumer 避免每个元素分配
+     */
+    private static final class Probe<T> implements Consumer<T> {
+        private final Predicate<? super T> predicate;
+        long count;
+        boolean matched;
+        T value;
+
+        Probe(Predicate<? super T> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void accept(T t) {
+            count++;
+            if (predicate.test(t)) {
+                matched = true;
+                value = t;
+            }
+        }
+    }
+}
@@ -0,0 +1,579 @@
+package com.javaevolution.jdk8.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * int / long / double 以及按原始类型键排序对象的基数排序
+ *
+ * IntStream.sorted()、boxed().sorted() 都是比较排序 O(n log n);
+ * 基数排序按 8 位一个数位分配,每个数位只需一次计数 + 一次分配,与 n 成线性:
+ * - 键先减去最小值再按无符号处理: 负数无需翻转符号位,且只排 (max - min) 实际用到的数位
+ * - 顺序版 (LSD): 一次遍历同时统计所有数位的直方图,全部元素落在同一桶的数位直接跳过
+ * - 并行版 (MSD + LSD): 先按最高数位分块并行统计直方图、并行分配,
+ *   各桶互不相交,再作为独立子任务递归; 区间小于 LEAF_SIZE 后在缓存内做顺序 LSD
+ * - double 先映射为保序的 long (-0.0 &lt; 0.0,NaN 排最后,与 Arrays.sort 一致)
+ * - 按键排序对象 (sortByInt / sortByLong / sortByDouble) 是稳定的: 键相同的元素保持原有顺序
+ *
+ * 长度小于 RADIX_THRESHOLD 时直接用比较排序,并行版长度小于 PARALLEL_THRESHOLD 时退化为顺序版。
+ * 代价是一个与输入等长的缓冲数组 (按键排序对象时另需键数组)。
+ */
+public final class RadixSort {
+
+    /** 小于该长度时比较排序更快 */
+    public static final int RADIX_THRESHOLD = 1 << 12;
+    /** 小于该长度时不并行 */
+    public static final int PARALLEL_THRESHOLD = 1 << 17;
+
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    /** MSD 递归到该大小以下时改用顺序 LSD */
+    private static final int LEAF_SIZE = 1 << 16;
+    /** 并行统计直方图时每块的最小元素数 */
+    private static final int MIN_CHUNK = 1 << 14;
+    /** LSD 区间小于该值时直接比较排序 (仅用于不要求稳定的原始类型数组) */
+    private static final int INSERTION_THRESHOLD = 64;
+
+    private RadixSort() {
+    }
+
+    // ==================== int[] ====================
+
+    public static void sort(int[] a) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+            return;
+        }
+        int min = a[0];
+        int max = a[0];
+        for (int v : a) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        int digits = digits(max - min);
+        if (digits > 0) {
+            lsd(a, new int[a.length], false, 0, a.length, min, digits);
+        }
+    }
+
+    public static void parallelSort(int[] a) {
+        if (a.length < PARALLEL_THRESHOLD) {
+            sort(a);
+            return;
+        }
+        IntSummaryStatistics stats = Arrays.stream(a).parallel().summaryStatistics();
+        int digits = digits(stats.getMax() - stats.getMin());
+        if (digits > 0) {
+            new IntMsdTask(a, new int[a.length], false, 0, a.length, stats.getMin(), digits - 1).invoke();
+        }
+    }
+
+    // ==================== long[] ====================
+
+    public static void sort(long[] a) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+            return;
+        }
+        long min = a[0];
+        long max = a[0];
+        for (long v : a) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        sortKeys(a, null, min, max, false);
+    }
+
+    public static void parallelSort(long[] a) {
+        if (a.length < PARALLEL_THRESHOLD) {
+            sort(a);
+            return;
+        }
+        LongSummaryStatistics stats = Arrays.stream(a).parallel().summaryStatistics();
+        sortKeys(a, null, stats.getMin(), stats.getMax(), true);
+    }
+
+    // ==================== double[] ====================
+
+    public static void sort(double[] a) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+            return;
+        }
+        long[] keys = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            keys[i] = sortableBits(a[i]);
+        }
+        sort(keys);
+        for (int i = 0; i < a.length; i++) {
+            a[i] = fromSortableBits(keys[i]);
+        }
+    }
+
+    public static void parallelSort(double[] a) {
+        if (a.length < PARALLEL_THRESHOLD) {
+            sort(a);
+            return;
+        }
+        long[] keys = new long[a.length];
+        Arrays.parallelSetAll(keys, i -> sortableBits(a[i]));
+        parallelSort(keys);
+        IntStream.range(0, a.length).parallel().forEach(i -> a[i] = fromSortableBits(keys[i]));
+    }
+
+    // ==================== 按原始类型键排序对象 (稳定) ====================
+
+    public static <T> void sortByInt(T[] a, ToIntFunction<? super T> key) {
+        sortByLong(a, t -> key.applyAsInt(t));
+    }
+
+    public static <T> void parallelSortByInt(T[] a, ToIntFunction<? super T> key) {
+        parallelSortByLong(a, t -> key.applyAsInt(t));
+    }
+
+    public static <T> void sortByLong(T[] a, ToLongFunction<? super T> key) {
+        sortBy(a, key, false);
+    }
+
+    public static <T> void parallelSortByLong(T[] a, ToLongFunction<? super T> key) {
+        sortBy(a, key, true);
+    }
+
+    /**
+     * 键的顺序与 Double.compare 一致
+     */
+    public static <T> void sortByDouble(T[] a, ToDoubleFunction<? super T> key) {
+        sortByLong(a, t -> sortableBits(key.applyAsDouble(t)));
+    }
+
+    public static <T> void parallelSortByDouble(T[] a, ToDoubleFunction<? super T> key) {
+        parallelSortByLong(a, t -> sortableBits(key.applyAsDouble(t)));
+    }
+
+    // ==================== 流 ====================
+
+    /**
+     * 替代 IntStream.sorted(); 并行流使用并行基数排序
+     */
+    public static IntStream sorted(IntStream stream) {
+        boolean parallel = stream.isParallel();
+        int[] a = stream.toArray();
+        if (parallel) {
+            parallelSort(a);
+        } else {
+            sort(a);
+        }
+        IntStream sorted = Arrays.stream(a).onClose(stream::close);
+        return parallel ? sorted.parallel() : sorted;
+    }
+
+    public static LongStream sorted(LongStream stream) {
+        boolean parallel = stream.isParallel();
+        long[] a = stream.toArray();
+        if (parallel) {
+            parallelSort(a);
+        } else {
+            sort(a);
+        }
+        LongStream sorted = Arrays.stream(a).onClose(stream::close);
+        return parallel ? sorted.parallel() : sorted;
+    }
+
+    public static DoubleStream sorted(DoubleStream stream) {
+        boolean parallel = stream.isParallel();
+        double[] a = stream.toArray();
+        if (parallel) {
+            parallelSort(a);
+        } else {
+            sort(a);
+        }
+        DoubleStream sorted = Arrays.stream(a).onClose(stream::close);
+        return parallel ? sorted.parallel() : sorted;
+    }
+
+    /**
+     * 替代 sorted(Comparator.comparingInt(key)),稳定
+     */
+    public static <T> Stream<T> sortedByInt(Stream<T> stream, ToIntFunction<? super T> key) {
+        return sortedByLong(stream, t -> key.applyAsInt(t));
+    }
+
+    public static <T> Stream<T> sortedByLong(Stream<T> stream, ToLongFunction<? super T> key) {
+        boolean parallel = stream.isParallel();
+        @SuppressWarnings("unchecked")
+        T[] a = (T[]) stream.toArray();
+        sortBy(a, key, parallel);
+        Stream<T> sorted = Arrays.stream(a).onClose(stream::close);
+        return parallel ? sorted.parallel() : sorted;
+    }
+
+    public static <T> Stream<T> sortedByDouble(Stream<T> stream, ToDoubleFunction<? super T> key) {
+        return sortedByLong(stream, t -> sortableBits(key.applyAsDouble(t)));
+    }
+
+    // ==================== 实现 ====================
+
+    /**
+     * double 的保序映射: 负数翻转符号位以外的所有位,得到与 Double.compare 顺序一致的 long;
+     * NaN 统一为规范 NaN,排在 +∞ 之后
+     */
+    private static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static double fromSortableBits(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+    }
+
+    /**
+     * 表示无符号 range 需要的数位数
+     */
+    private static int digits(int range) {
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(range) + DIGIT_BITS - 1) / DIGIT_BITS;
+    }
+
+    private static int digits(long range) {
+        return (Long.SIZE - Long.numberOfLeadingZeros(range) + DIGIT_BITS - 1) / DIGIT_BITS;
+    }
+
+    private static <T> void sortBy(T[] a, ToLongFunction<? super T> key, boolean parallel) {
+        int n = a.length;
+        if (n < RADIX_THRESHOLD) {
+            // TimSort 同样稳定
+            Arrays.sort(a, Comparator.comparingLong(key));
+            return;
+        }
+        long[] keys = new long[n];
+        if (parallel && n >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSetAll(keys, i -> key.applyAsLong(a[i]));
+            LongSummaryStatistics stats = Arrays.stream(keys).parallel().summaryStatistics();
+            sortKeys(keys, a, stats.getMin(), stats.getMax(), true);
+        } else {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                long k = key.applyAsLong(a[i]);
+                keys[i] = k;
+                min = Math.min(min, k);
+                max = Math.max(max, k);
+            }
+            sortKeys(keys, a, min, max, false);
+        }
+    }
+
+    /**
+     * 排序 long 键,values 非 null 时随键一起移动
+     */
+    private static void sortKeys(long[] keys, Object[] values, long min, long max, boolean parallel) {
+        int digits = digits(max - min);
+        if (digits == 0) {
+            return;
+        }
+        Object[] valueBuffer = values == null ? null : new Object[values.length];
+        if (parallel && keys.length >= PARALLEL_THRESHOLD) {
+            new LongMsdTask(keys, new long[keys.length], values, valueBuffer, false,
+                0, keys.length, min, digits - 1).invoke();
+        } else {
+            lsd(keys, new long[keys.length], values, valueBuffer, false, 0, keys.length, min, digits);
+        }
+    }
+
+    /**
+     * 按数位 [0, digits) 对 [from, to) 做 LSD; inBuffer 表示数据当前在 buffer 中,结果总是落回 a
+     */
+    private static void lsd(int[] a, int[] buffer, boolean inBuffer, int from, int to, int min, int digits) {
+        int[] src = inBuffer ? buffer : a;
+        int[] dst = inBuffer ? a : buffer;
+        int n = to - from;
+        if (n < INSERTION_THRESHOLD) {
+            if (src != a) {
+                System.arraycopy(src, from, a, from, n);
+            }
+            Arrays.sort(a, from, to);
+            return;
+        }
+        int[] counts = new int[digits * RADIX];
+        for (int i = from; i < to; i++) {
+            int k = src[i] - min;
+            for (int d = 0; d < digits; d++) {
+                counts[d * RADIX + ((k >>> (d * DIGIT_BITS)) & DIGIT_MASK)]++;
+            }
+        }
+        for (int d = 0; d < digits; d++) {
+            int base = d * RADIX;
+            int shift = d * DIGIT_BITS;
+            if (counts[base + (((src[from] - min) >>> shift) & DIGIT_MASK)] == n) {
+                // 所有元素该数位相同
+                continue;
+            }
+            int offset = from;
+            for (int b = base; b < base + RADIX; b++) {
+                int c = counts[b];
+                counts[b] = offset;
+                offset += c;
+            }
+            for (int i = from; i < to; i++) {
+                int v = src[i];
+                dst[counts[base + (((v - min) >>> shift) & DIGIT_MASK)]++] = v;
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, from, a, from, n);
+        }
+    }
+
+    private static void lsd(long[] a, long[] buffer, Object[] values, Object[] valueBuffer, boolean inBuffer,
+                            int from, int to, long min, int digits) {
+        long[] src = inBuffer ? buffer : a;
+        long[] dst = inBuffer ? a : buffer;
+        Object[] vsrc = inBuffer ? valueBuffer : values;
+        Object[] vdst = inBuffer ? values : valueBuffer;
+        int n = to - from;
+        if (values == null && n < INSERTION_THRESHOLD) {
+            if (src != a) {
+                System.arraycopy(src, from, a, from, n);
+            }
+            Arrays.sort(a, from, to);
+            return;
+        }
+        int[] counts = new int[digits * RADIX];
+        for (int i = from; i < to; i++) {
+            long k = src[i] - min;
+            for (int d = 0; d < digits; d++) {
+                counts[d * RADIX + (int) ((k >>> (d * DIGIT_BITS)) & DIGIT_MASK)]++;
+            }
+        }
+        for (int d = 0; d < digits; d++) {
+            int base = d * RADIX;
+            int shift = d * DIGIT_BITS;
+            if (counts[base + (int) (((src[from] - min) >>> shift) & DIGIT_MASK)] == n) {
+                continue;
+            }
+            int offset = from;
+            for (int b = base; b < base + RADIX; b++) {
+                int c = counts[b];
+                counts[b] = offset;
+                offset += c;
+            }
+            if (vsrc == null) {
+                for (int i = from; i < to; i++) {
+                    long v = src[i];
+                    dst[counts[base + (int) (((v - min) >>> shift) & DIGIT_MASK)]++] = v;
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    long v = src[i];
+                    int p = counts[base + (int) (((v - min) >>> shift) & DIGIT_MASK)]++;
+                    dst[p] = v;
+                    vdst[p] = vsrc[i];
+                }
+                Object[] vt = vsrc;
+                vsrc = vdst;
+                vdst = vt;
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, from, a, from, n);
+            if (values != null) {
+                System.arraycopy(vsrc, from, values, from, n);
+            }
+        }
+    }
+
+    /**
+     * 按块划分 [from, to): 块数约为并行度的 4 倍,且每块不少于 MIN_CHUNK
+     */
+    private static int chunkCount(int n) {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        int parallelism = pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(1, Math.min(parallelism * 4, n / MIN_CHUNK));
+    }
+
+    /**
+     * 按 counts[chunk][bucket] 计算每块每桶的写入起点 (桶优先、块次之,保证稳定),返回各桶边界
+     */
+    private static int[] scatterOffsets(int[][] counts, int from, int to) {
+        int[] bounds = new int[RADIX + 1];
+        int offset = from;
+        for (int b = 0; b < RADIX; b++) {
+            bounds[b] = offset;
+            for (int[] chunk : counts) {
+                int c = chunk[b];
+                chunk[b] = offset;
+                offset += c;
+            }
+        }
+        bounds[RADIX] = to;
+        return bounds;
+    }
+
+    /**
+     * 对 [from, to) 按第 digit 个数位做并行 MSD 分配,各桶作为子任务继续
+     */
+    @SuppressWarnings("serial")
+    private static final class IntMsdTask extends RecursiveAction {
+        private final int[] a;
+        private final int[] buffer;
+        private final boolean inBuffer;
+        private final int from;
+        private final int to;
+        private final int min;
+        private final int digit;
+
+        IntMsdTask(int[] a, int[] buffer, boolean inBuffer, int from, int to, int min, int digit) {
+            this.a = a;
+            this.buffer = buffer;
+            this.inBuffer = inBuffer;
+            this.from = from;
+            this.to = to;
+            this.min = min;
+            this.digit = digit;
+        }
+
+        @Override
+        protected void compute() {
+            int n = to - from;
+            if (n <= LEAF_SIZE) {
+                lsd(a, buffer, inBuffer, from, to, min, digit + 1);
+                return;
+            }
+            int[] src = inBuffer ? buffer : a;
+            int[] dst = inBuffer ? a : buffer;
+            int shift = digit * DIGIT_BITS;
+            int chunks = chunkCount(n);
+            int chunkSize = (n + chunks - 1) / chunks;
+            int[][] counts = new int[chunks][RADIX];
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int[] count = counts[c];
+                int end = Math.min(to, from + (c + 1) * chunkSize);
+                for (int i = from + c * chunkSize; i < end; i++) {
+                    count[((src[i] - min) >>> shift) & DIGIT_MASK]++;
+                }
+            });
+            int[] bounds = scatterOffsets(counts, from, to);
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int[] offsets = counts[c];
+                int end = Math.min(to, from + (c + 1) * chunkSize);
+                for (int i = from + c * chunkSize; i < end; i++) {
+                    int v = src[i];
+                    dst[offsets[((v - min) >>> shift) & DIGIT_MASK]++] = v;
+                }
+            });
+            if (digit == 0) {
+                if (dst != a) {
+                    System.arraycopy(dst, from, a, from, n);
+                }
+                return;
+            }
+            List<IntMsdTask> buckets = new ArrayList<>();
+            for (int b = 0; b < RADIX; b++) {
+                if (bounds[b + 1] > bounds[b]) {
+                    buckets.add(new IntMsdTask(a, buffer, !inBuffer, bounds[b], bounds[b + 1], min, digit - 1));
+                }
+            }
+            invokeAll(buckets);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class LongMsdTask extends RecursiveAction {
+        private final long[] a;
+        private final long[] buffer;
+        private final Object[] values;
+        private final Object[] valueBuffer;
+        private final boolean inBuffer;
+        private final int from;
+        private final int to;
+        private final long min;
+        private final int digit;
+
+        LongMsdTask(long[] a, long[] buffer, Object[] values, Object[] valueBuffer, boolean inBuffer,
+                    int from, int to, long min, int digit) {
+            this.a = a;
+            this.buffer = buffer;
+            this.values = values;
+            this.valueBuffer = valueBuffer;
+            this.inBuffer = inBuffer;
+            this.from = from;
+            this.to = to;
+            this.min = min;
+            this.digit = digit;
+        }
+
+        @Override
+        protected void compute() {
+            int n = to - from;
+            if (n <= LEAF_SIZE) {
+                lsd(a, buffer, values, valueBuffer, inBuffer, from, to, min, digit + 1);
+                return;
+            }
+            long[] src = inBuffer ? buffer : a;
+            long[] dst = inBuffer ? a : buffer;
+            Object[] vsrc = inBuffer ? valueBuffer : values;
+            Object[] vdst = inBuffer ? values : valueBuffer;
+            int shift = digit * DIGIT_BITS;
+            int chunks = chunkCount(n);
+            int chunkSize = (n + chunks - 1) / chunks;
+            int[][] counts = new int[chunks][RADIX];
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int[] count = counts[c];
+                int end = Math.min(to, from + (c + 1) * chunkSize);
+                for (int i = from + c * chunkSize; i < end; i++) {
+                    count[(int) (((src[i] - min) >>> shift) & DIGIT_MASK)]++;
+                }
+            });
+            int[] bounds = scatterOffsets(counts, from, to);
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int[] offsets = counts[c];
+                int end = Math.min(to, from + (c + 1) * chunkSize);
+                for (int i = from + c * chunkSize; i < end; i++) {
+                    long v = src[i];
+                    int p = offsets[(int) (((v - min) >>> shift) & DIGIT_MASK)]++;
+                    dst[p] = v;
+                    if (vsrc != null) {
+                        vdst[p] = vsrc[i];
+                    }
+                }
+            });
+            if (digit == 0) {
+                if (dst != a) {
+                    System.arraycopy(dst, from, a, from, n);
+                    if (values != null) {
+                        System.arraycopy(vdst, from, values, from, n);
+                    }
+                }
+                return;
+            }
+            List<LongMsdTask> buckets = new ArrayList<>();
+            for (int b = 0; b < RADIX; b++) {
+                if (bounds[b + 1] > bounds[b]) {
+                    buckets.add(new LongMsdTask(a, buffer, values, valueBuffer, !inBuffer,
+                        bounds[b], bounds[b + 1], min, digit - 1));
+                }
+            }
+            invokeAll(buckets);
+        }
+    }
+}
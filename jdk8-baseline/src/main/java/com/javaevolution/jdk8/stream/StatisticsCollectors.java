@@ -0,0 +1,58 @@
+package com.javaevolution.jdk8.stream;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * 单次遍历多指标统计收集器
+ *
+ * TerminalOperations.collectDemo 中 counting / summarizingInt / groupingBy 各自遍历一次数据;
+ * 这里一次遍历就得到 count、sum、min、max、mean、variance 以及配置的分位数。
+ * 累加状态是 DoubleStatistics,合并成本 O(1) (分位数为 t-digest 合并,O(compression)),适合并行流。
+ */
+public final class StatisticsCollectors {
+
+    private StatisticsCollectors() {
+    }
+
+    /**
+     * 等价于 summarizingDouble,再加上方差与分位数
+     */
+    public static <T> Collector<T, ?, DoubleStatistics> summarizing(ToDoubleFunction<? super T> mapper,
+                                                                   double... quantiles) {
+        return Collector.of(
+            () -> new DoubleStatistics(quantiles),
+            (stats, t) -> stats.accept(mapper.applyAsDouble(t)),
+            DoubleStatistics::combine,
+            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * 按键分组的多指标统计,一次遍历完成所有分组的所有指标
+     */
+    public static <T, K> Collector<T, ?, Map<K, DoubleStatistics>> summarizingByKey(
+            Function<? super T, ? extends K> classifier,
+            ToDoubleFunction<? super T> mapper,
+            double... quantiles) {
+        return Collectors.groupingBy(classifier, summarizing(mapper, quantiles));
+    }
+
+    public static void main(String[] args) {
+        List<String> words = Arrays.asList("java", "python", "go", "java", "kotlin", "rust");
+
+        DoubleStatistics stats = words.stream()
+            .collect(summarizing(String::length, 0.5, 0.9));
+        System.out.println(stats);
+
+        Map<Character, DoubleStatistics> byInitial = words.parallelStream()
+            .collect(summarizingByKey(w -> w.charAt(0), String::length));
+        System.out.println(byInitial);
+
+        DoubleStatistics big = DoubleStatistics.of(
+            new Random(1).doubles(1_000_000).parallel(), 0.5, 0.99);
+        System.out.println(big);
+    }
+}
@@ -0,0 +1,403 @@
+package com.javaevolution.jdk8.stream;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * 有界堆 Top-K: 替代 sorted().limit(k)
+ *
+ * sorted() 是有状态的全屏障操作,要先缓冲并排序全部 n 个元素;
+ * 而只取前 k 个时,维护一个大小为 k 的堆即可:
+ * - 时间 O(n log k),内存 O(k)
+ * - 并行时每个分片各自维护堆,合并时把较小的堆倒进较大的堆
+ *
+ * 相等元素之间的先后顺序不保证与 sorted() 的稳定排序一致
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    // ==================== 对象流 ====================
+
+    /**
+     * 按 comparator 取最小的 k 个,结果升序; 等价于 sorted(comparator).limit(k)
+     */
+    public static <T> Collector<T, ?, List<T>> smallest(int k, Comparator<? super T> comparator) {
+        checkK(k);
+        return Collector.of(
+            () -> new BoundedHeap<T>(k, comparator),
+            BoundedHeap::offer,
+            BoundedHeap::merge,
+            BoundedHeap::toSortedList);
+    }
+
+    public static <T extends Comparable<? super T>> Collector<T, ?, List<T>> smallest(int k) {
+        return smallest(k, Comparator.naturalOrder());
+    }
+
+    /**
+     * 取最大的 k 个,结果降序; 等价于 sorted(comparator.reversed()).limit(k)
+     */
+    public static <T> Collector<T, ?, List<T>> largest(int k, Comparator<? super T> comparator) {
+        return smallest(k, Collections.reverseOrder(comparator));
+    }
+
+    public static <T extends Comparable<? super T>> Collector<T, ?, List<T>> largest(int k) {
+        return largest(k, Comparator.naturalOrder());
+    }
+
+    /**
+     * 算子形式: 返回 sorted(comparator).limit(k) 的等价流
+     */
+    public static <T> Stream<T> sortedLimit(Stream<T> stream, int k, Comparator<? super T> comparator) {
+        return stream.collect(smallest(k, comparator)).stream();
+    }
+
+    /**
+     * 对象堆: 保留"最小"的 k 个,堆顶是其中最大的那个,新元素只需与堆顶比较
+     */
+    static final class BoundedHeap<T> {
+        private final int k;
+        private final Comparator<? super T> comparator;
+        private final PriorityQueue<T> heap;
+
+        BoundedHeap(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), Collections.reverseOrder(comparator));
+        }
+
+        void offer(T value) {
+            if (k == 0) {
+                return;
+            }
+            if (heap.size() < k) {
+                heap.add(value);
+            } else if (comparator.compare(value, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(value);
+            }
+        }
+
+        BoundedHeap<T> merge(BoundedHeap<T> other) {
+            BoundedHeap<T> big = heap.size() >= other.heap.size() ? this : other;
+            BoundedHeap<T> small = big == this ? other : this;
+            for (T value : small.heap) {
+                big.offer(value);
+            }
+            return big;
+        }
+
+        List<T> toSortedList() {
+            List<T> result = new ArrayList<>(heap);
+            result.sort(comparator);
+            return result;
+        }
+    }
+
+    // ==================== 原始类型流 ====================
+
+    /**
+     * 等价于 stream.sorted().limit(k).toArray()
+     */
+    public static int[] smallest(IntStream stream, int k) {
+        checkK(k);
+        return stream.collect(() -> new IntHeap(k, false), IntHeap::offer, IntHeap::merge).toSortedArray();
+    }
+
+    /**
+     * 最大的 k 个,降序
+     */
+    public static int[] largest(IntStream stream, int k) {
+        checkK(k);
+        return stream.collect(() -> new IntHeap(k, true), IntHeap::offer, IntHeap::merge).toSortedArray();
+    }
+
+    public static long[] smallest(LongStream stream, int k) {
+        checkK(k);
+        return stream.collect(() -> new LongHeap(k, false), LongHeap::offer, LongHeap::merge).toSortedArray();
+    }
+
+    public static long[] largest(LongStream stream, int k) {
+        checkK(k);
+        return stream.collect(() -> new LongHeap(k, true), LongHeap::offer, LongHeap::merge).toSortedArray();
+    }
+
+    public static double[] smallest(DoubleStream stream, int k) {
+        checkK(k);
+        return stream.collect(() -> new DoubleHeap(k, false), DoubleHeap::offer, DoubleHeap::merge).toSortedArray();
+    }
+
+    public static double[] largest(DoubleStream stream, int k) {
+        checkK(k);
+        return stream.collect(() -> new DoubleHeap(k, true), DoubleHeap::offer, DoubleHeap::merge).toSortedArray();
+    }
+
+    /**
+     * 原始类型堆的初始容量: 与对象堆一样最多先分配 1024 个槽位,按需翻倍到 k;
+     * 并行流每个分片各有一个堆,k 很大 (如 Integer.MAX_VALUE 表示全部取出) 时不能一开始就分配 k 个
+     */
+    static int initialCapacity(int k) {
+        return Math.min(k, 1024);
+    }
+
+    static int grownCapacity(int size, int k) {
+        return (int) Math.min(k, Math.max(1, 2L * size));
+    }
+
+    /**
+     * int 数组堆,不装箱
+     * largest = false 时为大顶堆 (保留最小的 k 个); true 时把值取反存储,复用同一套大顶堆逻辑
+     * 取反用 ~x 而非 -x,避免 Integer.MIN_VALUE 溢出
+     */
+    static final class IntHeap {
+        private final int k;
+        private final boolean largest;
+        private int[] heap;
+        private int size;
+
+        IntHeap(int k, boolean largest) {
+            this.k = k;
+            this.largest = largest;
+            this.heap = new int[initialCapacity(k)];
+        }
+
+        void offer(int value) {
+            int v = largest ? ~value : value;
+            if (size < k) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, grownCapacity(size, k));
+                }
+                heap[size] = v;
+                siftUp(size++);
+            } else if (k > 0 && v < heap[0]) {
+                heap[0] = v;
+                siftDown(0);
+            }
+        }
+
+        void merge(IntHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.largest ? ~other.heap[i] : other.heap[i]);
+            }
+        }
+
+        int[] toSortedArray() {
+            int[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            if (largest) {
+                for (int i = 0; i < size; i++) {
+                    result[i] = ~result[i];
+                }
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            int v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] >= v) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = v;
+        }
+
+        private void siftDown(int i) {
+            int v = heap[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (v >= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = v;
+        }
+    }
+
+    static final class LongHeap {
+        private final int k;
+        private final boolean largest;
+        private long[] heap;
+        private int size;
+
+        LongHeap(int k, boolean largest) {
+            this.k = k;
+            this.largest = largest;
+            this.heap = new long[initialCapacity(k)];
+        }
+
+        void offer(long value) {
+            long v = largest ? ~value : value;
+            if (size < k) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, grownCapacity(size, k));
+                }
+                heap[size] = v;
+                siftUp(size++);
+            } else if (k > 0 && v < heap[0]) {
+                heap[0] = v;
+                siftDown(0);
+            }
+        }
+
+        void merge(LongHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.largest ? ~other.heap[i] : other.heap[i]);
+            }
+        }
+
+        long[] toSortedArray() {
+            long[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            if (largest) {
+                for (int i = 0; i < size; i++) {
+                    result[i] = ~result[i];
+                }
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            long v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] >= v) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = v;
+        }
+
+        private void siftDown(int i) {
+            long v = heap[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (v >= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = v;
+        }
+    }
+
+    /**
+     * double 堆: 比较采用 Double.compare 语义 (与 DoubleStream.sorted() 一致,NaN 最大)
+     */
+    static final class DoubleHeap {
+        private final int k;
+        private final boolean largest;
+        private double[] heap;
+        private int size;
+
+        DoubleHeap(int k, boolean largest) {
+            this.k = k;
+            this.largest = largest;
+            this.heap = new double[initialCapacity(k)];
+        }
+
+        private int compare(double a, double b) {
+            return largest ? Double.compare(b, a) : Double.compare(a, b);
+        }
+
+        void offer(double value) {
+            if (size < k) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, grownCapacity(size, k));
+                }
+                heap[size] = value;
+                siftUp(size++);
+            } else if (k > 0 && compare(value, heap[0]) < 0) {
+                heap[0] = value;
+                siftDown(0);
+            }
+        }
+
+        void merge(DoubleHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.heap[i]);
+            }
+        }
+
+        double[] toSortedArray() {
+            double[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            if (largest) {
+                for (int i = 0, j = size - 1; i < j; i++, j--) {
+                    double tmp = result[i];
+                    result[i] = result[j];
+                    result[j] = tmp;
+                }
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            double v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (compare(heap[parent], v) >= 0) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = v;
+        }
+
+        private void siftDown(int i) {
+            double v = heap[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && compare(heap[child + 1], heap[child]) > 0) {
+                    child++;
+                }
+                if (compare(v, heap[child]) >= 0) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = v;
+        }
+    }
+
+    private static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non-negative: " + k);
+        }
+    }
+
+    public static void main(String[] args) {
+        List<Integer> numbers = Arrays.asList(5, 2, 8, 2, 9, 1, 5, 3);
+
+        // sorted().limit(3) 的等价写法
+        List<Integer> top3 = numbers.stream().collect(TopK.smallest(3));
+        System.out.println("Smallest 3: " + top3); // [1, 2, 2]
+
+        List<Integer> max3 = numbers.parallelStream().collect(TopK.largest(3));
+        System.out.println("Largest 3: " + max3); // [9, 8, 5]
+
+        int[] ints = TopK.smallest(new Random(42).ints(1_000_000).parallel(), 5);
+        System.out.println("Smallest 5 ints: " + Arrays.toString(ints));
+    }
+}
@@ -0,0 +1,109 @@
+package com.javaevolution.jdk8.stream.sketch;
+
+/**
+ * Count-Min Sketch 频率估计
+ *
+ * 替代 groupingBy(..., counting()) 的点查询场景: 内存固定为 depth × width 个计数器,
+ * 与不同键的数量无关。估计值只会偏高不会偏低:
+ *   以概率 1 - δ,估计误差 ≤ ε · N  (N 为元素总数)
+ *   width = ⌈e / ε⌉,depth = ⌈ln(1 / δ)⌉
+ *
+ * 合并 = 同尺寸计数表逐格相加
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[][] table;
+    private long total;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("depth and width must be positive: " + depth + "x" + width);
+        }
+        this.depth = depth;
+        this.width = width;
+        this.table = new long[depth][width];
+    }
+
+    /**
+     * @param epsilon 误差上限占总数的比例
+     * @param delta   超出误差上限的概率
+     */
+    public static CountMinSketch withErrorBounds(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("epsilon and delta must be in (0, 1)");
+        }
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch(depth, width);
+    }
+
+    public void add(Object item) {
+        add(Hashing.hash(item), 1);
+    }
+
+    public void add(Object item, long count) {
+        add(Hashing.hash(item), count);
+    }
+
+    private void add(long hash, long count) {
+        // 双重哈希: h_i = h1 + i * h2,只需一次 64 位哈希
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < depth; i++) {
+            int combined = (h1 + i * h2) & Integer.MAX_VALUE;
+            table[i][combined % width] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(Object item) {
+        long hash = Hashing.hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int combined = (h1 + i * h2) & Integer.MAX_VALUE;
+            min = Math.min(min, table[i][combined % width]);
+        }
+        return min;
+    }
+
+    public CountMinSketch merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+        for (int i = 0; i < depth; i++) {
+            for (int j = 0; j < width; j++) {
+                table[i][j] += other.table[i][j];
+            }
+        }
+        total += other.total;
+        return this;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * 当前总数下的绝对误差上限 ε · N
+     */
+    public double errorBound() {
+        return Math.E / width * total;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public String toString() {
+        return "CountMinSketch{" + depth + "x" + width + ", total=" + total + "}";
+    }
+}
@@ -0,0 +1,24 @@
+package com.javaevolution.jdk8.stream.sketch;
+
+/**
+ * 概率数据结构共用的 64 位哈希
+ * 使用 MurmurHash3 的 fmix64 终结函数,把分布较差的 hashCode() 打散到全部 64 位
+ */
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    static long hash(Object o) {
+        if (o instanceof Long) {
+            return mix64((Long) o);
+        }
+        return mix64(o == null ? 0 : o.hashCode());
+    }
+}
@@ -0,0 +1,123 @@
+package com.javaevolution.jdk8.stream.sketch;
+
+/**
+ * HyperLogLog 基数估计 (近似 distinct count)
+ *
+ * distinct() 需要一个与不同元素数成正比的 HashSet;
+ * HLL 只用 2^p 个 1 字节寄存器,标准误差约 1.04 / sqrt(2^p):
+ *   p = 12 → 4 KB,误差约 1.6%
+ *   p = 14 → 16 KB,误差约 0.8%
+ *
+ * 合并 = 逐寄存器取最大值,因此与分片方式无关,适合并行流
+ *
+ * 注意: 对象元素基于 hashCode() (32 位) 计算,
+ * 当不同元素数接近 2^32 量级时哈希碰撞会让估计偏低; long 元素直接使用完整 64 位
+ */
+public class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be in [" + MIN_PRECISION + ", "
+                + MAX_PRECISION + "]: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * 按目标相对标准误差选择精度
+     */
+    public static HyperLogLog withRelativeError(double relativeError) {
+        if (!(relativeError > 0 && relativeError < 1)) {
+            throw new IllegalArgumentException("relativeError must be in (0, 1): " + relativeError);
+        }
+        double m = Math.pow(1.04 / relativeError, 2);
+        int p = (int) Math.ceil(Math.log(m) / Math.log(2));
+        return new HyperLogLog(Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, p)));
+    }
+
+    public void offer(Object value) {
+        offerHash(Hashing.hash(value));
+    }
+
+    public void offer(long value) {
+        offerHash(Hashing.mix64(value));
+    }
+
+    private void offerHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // 剩余位左移后补一个哨兵位,保证前导零计数有上限
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog of precision "
+                + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        // 小基数区间: 线性计数更准确
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 理论相对标准误差
+     */
+    public double relativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{p=" + precision + ", estimate=" + estimate()
+            + String.format(", error=±%.2f%%}", relativeError() * 100);
+    }
+}
@@ -0,0 +1,215 @@
+package com.javaevolution.jdk8.stream.sketch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 固定大小 k 的蓄水池抽样,支持等概率与加权 (A-Res) 两种模式
+ *
+ * 每个元素带一个随机键 u^(1/w) (u 在 (0,1) 上均匀,w 为权重,等概率时 w = 1),
+ * 样本就是键最大的 k 个元素 (Efraimidis-Spirakis A-Res)。由此:
+ * - 内存 O(k),与流的长度无关
+ * - 可合并: 元素的键与它落在哪个分片无关,两份样本的并集中取键最大的 k 个
+ *   与对整条流直接抽样同分布,因此可直接用于并行流
+ * - 样本满后用指数跳跃 (A-ExpJ) 直接算出下一次替换前要跳过多少权重,
+ *   跳过的元素不再生成随机数; 长度为 n 的流只需 O(k log(n / k)) 次随机数
+ *
+ * 键以对数形式 ln(u) / w 保存,极小权重时不会下溢为 0。
+ * 加权模式是"不放回"抽样: k = 1 时元素被选中的概率恰为 w / W,k 较大时重元素的入选概率趋于饱和
+ */
+public class ReservoirSample<T> {
+
+    /** 小于 1 的最大 double,保证 ln(r) &lt; 0 */
+    private static final double BELOW_ONE = Math.nextDown(1.0);
+
+    private final int k;
+    private final SplittableRandom random;
+    /** 以 keys 为序的小顶堆,堆顶是样本中最小的键,即替换阈值 */
+    private Object[] items;
+    private double[] keys;
+    private int size;
+    private long count;
+    private double totalWeight;
+    /** 样本已满时,下一次替换前还要跳过的权重 */
+    private double skip;
+
+    public ReservoirSample(int k) {
+        this(k, new SplittableRandom());
+    }
+
+    /**
+     * 固定种子,顺序流上的结果可复现
+     */
+    public ReservoirSample(int k, long seed) {
+        this(k, new SplittableRandom(seed));
+    }
+
+    private ReservoirSample(int k, SplittableRandom random) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.random = random;
+        // k 可能远大于实际的流长度,按需扩容
+        this.items = new Object[Math.min(k, 1024)];
+        this.keys = new double[items.length];
+    }
+
+    /**
+     * 等概率抽样
+     */
+    public void offer(T item) {
+        offer(item, 1.0);
+    }
+
+    /**
+     * 加权抽样; 权重为 0 的元素只计数,永远不会入选
+     */
+    public void offer(T item, double weight) {
+        if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("weight must be finite and >= 0: " + weight);
+        }
+        count++;
+        if (weight == 0) {
+            return;
+        }
+        totalWeight += weight;
+        if (size < k) {
+            push(item, Math.log(nextOpenUnit()) / weight);
+            if (size == k) {
+                skip = nextSkip();
+            }
+            return;
+        }
+        skip -= weight;
+        if (skip > 0) {
+            return;
+        }
+        // 跨过阈值的元素: 键服从"大于当前阈值"的条件分布,即 r 在 (t, 1) 上均匀,t = 阈值^w
+        double t = Math.exp(weight * keys[0]);
+        double r = Math.min(BELOW_ONE, t + (1 - t) * nextOpenUnit());
+        replaceTop(item, Math.log(r) / weight);
+        skip = nextSkip();
+    }
+
+    public ReservoirSample<T> merge(ReservoirSample<T> other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("cannot merge samples of different size: " + k + " vs " + other.k);
+        }
+        for (int i = 0; i < other.size; i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) other.items[i];
+            if (size < k) {
+                push(item, other.keys[i]);
+            } else if (other.keys[i] > keys[0]) {
+                replaceTop(item, other.keys[i]);
+            }
+        }
+        count += other.count;
+        totalWeight += other.totalWeight;
+        // 阈值变了,重新抽取跳跃距离; 键之间相互独立,丢弃尚未用完的跳跃不影响分布
+        if (size == k) {
+            skip = nextSkip();
+        }
+        return this;
+    }
+
+    /**
+     * 当前样本,顺序随机
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> toList() {
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add((T) items[i]);
+        }
+        return result;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * 样本中的元素数,流中元素不足 k 个时小于 k
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 已经过的元素数 (含未入选的)
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    private double nextOpenUnit() {
+        double u;
+        do {
+            u = random.nextDouble();
+        } while (u == 0);
+        return u;
+    }
+
+    /**
+     * A-ExpJ: 下一个被替换进样本的位置在累积权重 ln(r) / ln(阈值) 处
+     */
+    private double nextSkip() {
+        return Math.log(nextOpenUnit()) / keys[0];
+    }
+
+    private void push(T item, double key) {
+        if (size == items.length) {
+            grow();
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            items[i] = items[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        items[i] = item;
+        keys[i] = key;
+    }
+
+    private void replaceTop(T item, double key) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            items[i] = items[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        items[i] = item;
+        keys[i] = key;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(k, items.length * 2L);
+        items = Arrays.copyOf(items, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+    }
+
+    @Override
+    public String toString() {
+        return "ReservoirSample{k=" + k + ", size=" + size + ", count=" + count + "}";
+    }
+}
@@ -0,0 +1,141 @@
+package com.javaevolution.jdk8.stream.sketch;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+
+/**
+ * 近似统计收集器: 内存与不同键的数量无关
+ *
+ * | 精确写法                                   | 近似替代                  |
+ * |--------------------------------------------|---------------------------|
+ * | distinct().count()                          | approxDistinctCount       |
+ * | groupingBy(k, counting()).get(x)            | countMin                  |
+ * | groupingBy(k, counting()) 后取 Top-N        | heavyHitters              |
+ * | sorted() 后按下标取分位数                    | tDigest                   |
+ * | collect(toList()) 后随机抽取 k 个            | reservoirSample           |
+ * | 按权重随机抽取 k 个                          | weightedSample            |
+ *
+ * 所有状态都可合并,因此可直接用于并行流
+ */
+public final class SketchCollectors {
+
+    private SketchCollectors() {
+    }
+
+    public static <T> Collector<T, ?, HyperLogLog> hyperLogLog(double relativeError) {
+        HyperLogLog.withRelativeError(relativeError); // 在收集前校验参数
+        return Collector.of(
+            () -> HyperLogLog.withRelativeError(relativeError),
+            HyperLogLog::offer,
+            HyperLogLog::merge,
+            Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * 近似 distinct().count()
+     */
+    public static <T> Collector<T, ?, Long> approxDistinctCount(double relativeError) {
+        return Collector.of(
+            () -> HyperLogLog.withRelativeError(relativeError),
+            HyperLogLog::offer,
+            HyperLogLog::merge,
+            HyperLogLog::estimate,
+            Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 按键计数的 Count-Min Sketch,收集完后用 estimate(key) 点查询
+     */
+    public static <T, K> Collector<T, ?, CountMinSketch> countMin(Function<? super T, ? extends K> classifier,
+                                                                  double epsilon, double delta) {
+        CountMinSketch.withErrorBounds(epsilon, delta); // 在收集前校验参数
+        return Collector.of(
+            () -> CountMinSketch.withErrorBounds(epsilon, delta),
+            (sketch, t) -> sketch.add(classifier.apply(t)),
+            CountMinSketch::merge,
+            Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * 按键统计的 Space-Saving 摘要; 频率误差不超过 epsilon · N
+     */
+    public static <T, K> Collector<T, ?, SpaceSaving<K>> spaceSaving(Function<? super T, ? extends K> classifier,
+                                                                     double epsilon) {
+        SpaceSaving.withError(epsilon); // 在收集前校验参数
+        return Collector.of(
+            () -> SpaceSaving.<K>withError(epsilon),
+            (summary, t) -> summary.add(classifier.apply(t)),
+            SpaceSaving::merge,
+            Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * 频率最高的 k 个键 (近似),使用 capacity 个计数器; capacity 越大排序越准确
+     */
+    public static <T, K> Collector<T, ?, List<SpaceSaving.Counter<K>>> heavyHitters(
+            Function<? super T, ? extends K> classifier, int k, int capacity) {
+        if (capacity < k) {
+            throw new IllegalArgumentException("capacity must be >= k: " + capacity + " < " + k);
+        }
+        return Collector.of(
+            () -> new SpaceSaving<K>(capacity),
+            (summary, t) -> summary.add(classifier.apply(t)),
+            SpaceSaving::merge,
+            summary -> summary.top(k),
+            Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 等概率抽取 k 个元素 (不放回),内存 O(k); 流中不足 k 个时返回全部
+     */
+    public static <T> Collector<T, ?, List<T>> reservoirSample(int k) {
+        new ReservoirSample<T>(k); // 在收集前校验参数
+        return Collector.of(
+            () -> new ReservoirSample<T>(k),
+            ReservoirSample::offer,
+            ReservoirSample::merge,
+            ReservoirSample::toList,
+            Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 按权重抽取 k 个元素 (A-Res,不放回); 权重须有限且非负,为 0 的元素不会入选
+     */
+    public static <T> Collector<T, ?, List<T>> weightedSample(int k, ToDoubleFunction<? super T> weigher) {
+        new ReservoirSample<T>(k); // 在收集前校验参数
+        return Collector.of(
+            () -> new ReservoirSample<T>(k),
+            (sample, t) -> sample.offer(t, weigher.applyAsDouble(t)),
+            ReservoirSample::merge,
+            ReservoirSample::toList,
+            Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 返回抽样状态本身,可与其它批次 (例如前一个时间窗口) 的样本继续合并
+     */
+    public static <T> Collector<T, ?, ReservoirSample<T>> reservoir(int k, ToDoubleFunction<? super T> weigher) {
+        new ReservoirSample<T>(k); // 在收集前校验参数
+        return Collector.of(
+            () -> new ReservoirSample<T>(k),
+            (sample, t) -> sample.offer(t, weigher.applyAsDouble(t)),
+            ReservoirSample::merge,
+            Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public static <T> Collector<T, ?, TDigest> tDigest(ToDoubleFunction<? super T> mapper, double compression) {
+        new TDigest(compression); // 在收集前校验参数
+        return Collector.of(
+            () -> new TDigest(compression),
+            (digest, t) -> digest.accept(mapper.applyAsDouble(t)),
+            TDigest::merge,
+            Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public static TDigest tDigest(DoubleStream stream, double compression) {
+        return stream.collect(() -> new TDigest(compression), TDigest::accept, TDigest::merge);
+    }
+}
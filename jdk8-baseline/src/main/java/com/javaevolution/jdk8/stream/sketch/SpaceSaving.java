@@ -0,0 +1,223 @@
+package com.javaevolution.jdk8.stream.sketch;
+
+import java.util.*;
+
+/**
+ * Space-Saving 频繁项 (heavy hitters) 统计
+ *
+ * 只维护 capacity 个计数器: 已跟踪的元素计数 +1;
+ * 未跟踪的元素替换当前计数最小的计数器,并继承其计数作为误差上界。
+ * 保证:
+ * - 任何真实频率 > N / capacity 的元素一定在结果中
+ * - 每个计数满足 count - error ≤ 真实频率 ≤ count
+ *
+ * 计数器组织成按 count 排序的小顶堆 (带下标索引),每次更新 O(log capacity)。
+ * 合并采用 Agarwal 等人的可合并摘要方法: 两边计数相加 (缺失一方按其最小计数补足),
+ * 再保留最大的 capacity 个。
+ */
+public class SpaceSaving<T> {
+
+    /**
+     * 一个被跟踪的元素
+     */
+    public static final class Counter<T> {
+        private final T item;
+        private long count;
+        private long error;
+        private int heapIndex;
+
+        Counter(T item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * 估计频率 (上界)
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 最大高估量; count - error 是频率下界
+         */
+        public long getError() {
+            return error;
+        }
+
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+
+        @Override
+        public String toString() {
+            return item + "=" + count + (error > 0 ? "(±" + error + ")" : "");
+        }
+    }
+
+    private final int capacity;
+    private final Map<T, Counter<T>> index;
+    private final List<Counter<T>> heap;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.index = new HashMap<>(capacity * 2);
+        this.heap = new ArrayList<>(capacity);
+    }
+
+    /**
+     * 频率误差不超过 ε · N 时所需的计数器个数为 ⌈1 / ε⌉
+     */
+    public static <T> SpaceSaving<T> withError(double epsilon) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("epsilon must be in (0, 1): " + epsilon);
+        }
+        return new SpaceSaving<>((int) Math.ceil(1 / epsilon));
+    }
+
+    public void add(T item) {
+        add(item, 1);
+    }
+
+    public void add(T item, long count) {
+        total += count;
+        Counter<T> counter = index.get(item);
+        if (counter != null) {
+            counter.count += count;
+            siftDown(counter.heapIndex);
+            return;
+        }
+        if (heap.size() < capacity) {
+            counter = new Counter<>(item, count, 0);
+            index.put(item, counter);
+            counter.heapIndex = heap.size();
+            heap.add(counter);
+            siftUp(counter.heapIndex);
+            return;
+        }
+        // 替换最小计数器
+        Counter<T> min = heap.get(0);
+        index.remove(min.item);
+        Counter<T> replacement = new Counter<>(item, min.count + count, min.count);
+        replacement.heapIndex = 0;
+        heap.set(0, replacement);
+        index.put(item, replacement);
+        siftDown(0);
+    }
+
+    public SpaceSaving<T> merge(SpaceSaving<T> other) {
+        long minThis = heap.size() < capacity ? 0 : heap.get(0).count;
+        long minOther = other.heap.size() < other.capacity ? 0 : other.heap.get(0).count;
+
+        Map<T, Counter<T>> merged = new HashMap<>();
+        for (Counter<T> c : heap) {
+            Counter<T> o = other.index.get(c.item);
+            long count = c.count + (o != null ? o.count : minOther);
+            long error = c.error + (o != null ? o.error : minOther);
+            merged.put(c.item, new Counter<>(c.item, count, error));
+        }
+        for (Counter<T> o : other.heap) {
+            if (!merged.containsKey(o.item)) {
+                merged.put(o.item, new Counter<>(o.item, o.count + minThis, o.error + minThis));
+            }
+        }
+
+        List<Counter<T>> sorted = new ArrayList<>(merged.values());
+        sorted.sort((a, b) -> Long.compare(b.count, a.count));
+        index.clear();
+        heap.clear();
+        for (int i = 0; i < Math.min(capacity, sorted.size()); i++) {
+            Counter<T> c = sorted.get(i);
+            index.put(c.item, c);
+            c.heapIndex = heap.size();
+            heap.add(c);
+            siftUp(c.heapIndex);
+        }
+        total += other.total;
+        return this;
+    }
+
+    /**
+     * 估计频率最高的 k 个元素,按 count 降序
+     */
+    public List<Counter<T>> top(int k) {
+        List<Counter<T>> result = new ArrayList<>(heap);
+        result.sort((a, b) -> Long.compare(b.count, a.count));
+        return result.subList(0, Math.min(k, result.size()));
+    }
+
+    /**
+     * 保证真实频率不低于 minFraction · N 的元素 (按 count - error 判断,不会误报)
+     */
+    public List<Counter<T>> guaranteedAbove(double minFraction) {
+        long threshold = (long) Math.ceil(minFraction * total);
+        List<Counter<T>> result = new ArrayList<>();
+        for (Counter<T> c : heap) {
+            if (c.getGuaranteedCount() >= threshold) {
+                result.add(c);
+            }
+        }
+        result.sort((a, b) -> Long.compare(b.count, a.count));
+        return result;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void siftUp(int i) {
+        Counter<T> c = heap.get(i);
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            Counter<T> p = heap.get(parent);
+            if (p.count <= c.count) {
+                break;
+            }
+            place(p, i);
+            i = parent;
+        }
+        place(c, i);
+    }
+
+    private void siftDown(int i) {
+        Counter<T> c = heap.get(i);
+        int size = heap.size();
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap.get(child + 1).count < heap.get(child).count) {
+                child++;
+            }
+            Counter<T> smallest = heap.get(child);
+            if (c.count <= smallest.count) {
+                break;
+            }
+            place(smallest, i);
+            i = child;
+        }
+        place(c, i);
+    }
+
+    private void place(Counter<T> c, int i) {
+        heap.set(i, c);
+        c.heapIndex = i;
+    }
+
+    @Override
+    public String toString() {
+        return "SpaceSaving{capacity=" + capacity + ", total=" + total + ", top=" + top(10) + "}";
+    }
+}
@@ -0,0 +1,262 @@
+package com.javaevolution.jdk8.stream.sketch;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * t-digest 分位数估计 (Merging t-digest 变体)
+ *
+ * 精确分位数需要保留并排序所有样本; t-digest 把样本聚成若干质心 (均值 + 权重),
+ * 靠近两端 (q → 0 或 1) 的质心更小,因此 p99 / p999 这类尾部分位数尤其准确。
+ *
+ * - compression (δ) 控制质心数量上限 (约 δ / 2) 与精度,常用 100 ~ 500
+ * - 新样本先进入缓冲区,满了再排序并与已有质心一次性归并,均摊 O(log n)
+ * - 合并 = 把对方的质心作为带权样本加入缓冲区,适合并行流
+ *
+ * 尺度函数 k1(q) = δ / 2π · asin(2q - 1): 每个质心在 k 空间中跨度不超过 1
+ */
+public class TDigest implements DoubleConsumer {
+
+    private final double compression;
+
+    private double[] means;
+    private double[] weights;
+    private int centroidCount;
+
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        if (!(compression >= 10)) {
+            throw new IllegalArgumentException("compression must be >= 10: " + compression);
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        int bufferSize = 5 * (int) Math.ceil(compression) + 10;
+        this.bufferMeans = new double[bufferSize];
+        this.bufferWeights = new double[bufferSize];
+    }
+
+    public TDigest() {
+        this(100);
+    }
+
+    @Override
+    public void accept(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, double weight) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot add NaN to t-digest");
+        }
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public TDigest merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroidCount; i++) {
+            if (buffered == bufferMeans.length) {
+                compress();
+            }
+            bufferMeans[buffered] = other.means[i];
+            bufferWeights[buffered] = other.weights[i];
+            buffered++;
+        }
+        totalWeight += other.totalWeight;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    /**
+     * 把缓冲区与已有质心一起排序,再按尺度函数贪心合并
+     */
+    public void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int n = centroidCount + buffered;
+        double[] m = new double[n];
+        double[] w = new double[n];
+        System.arraycopy(means, 0, m, 0, centroidCount);
+        System.arraycopy(weights, 0, w, 0, centroidCount);
+        System.arraycopy(bufferMeans, 0, m, centroidCount, buffered);
+        System.arraycopy(bufferWeights, 0, w, centroidCount, buffered);
+        sortByMean(m, w, 0, n - 1);
+        buffered = 0;
+
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += w[i];
+        }
+
+        int last = 0;
+        double weightSoFar = 0;
+        double limit = total * qOfK(kOfQ(0) + 1);
+        for (int i = 1; i < n; i++) {
+            double proposed = w[last] + w[i];
+            if (weightSoFar + proposed <= limit) {
+                // 加权平均并入当前质心
+                m[last] += (m[i] - m[last]) * w[i] / proposed;
+                w[last] = proposed;
+            } else {
+                weightSoFar += w[last];
+                limit = total * qOfK(kOfQ(weightSoFar / total) + 1);
+                last++;
+                m[last] = m[i];
+                w[last] = w[i];
+            }
+        }
+        centroidCount = last + 1;
+        if (centroidCount > means.length) {
+            means = new double[centroidCount];
+            weights = new double[centroidCount];
+        }
+        System.arraycopy(m, 0, means, 0, centroidCount);
+        System.arraycopy(w, 0, weights, 0, centroidCount);
+    }
+
+    /**
+     * 估计 q 分位数,q ∈ [0, 1]
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("q must be in [0, 1]: " + q);
+        }
+        compress();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (centroidCount == 1) {
+            return means[0];
+        }
+        double index = q * totalWeight;
+        // 第一个质心中心左侧: 在 min 与质心均值之间插值
+        double firstHalf = weights[0] / 2;
+        if (index < firstHalf) {
+            return min + (means[0] - min) * (index / firstHalf);
+        }
+        double cumulative = firstHalf;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (index < cumulative + gap) {
+                double t = (index - cumulative) / gap;
+                return means[i] + t * (means[i + 1] - means[i]);
+            }
+            cumulative += gap;
+        }
+        // 最后一个质心中心右侧
+        double lastHalf = weights[centroidCount - 1] / 2;
+        double t = Math.min(1, (index - cumulative) / lastHalf);
+        return means[centroidCount - 1] + t * (max - means[centroidCount - 1]);
+    }
+
+    public long size() {
+        return (long) totalWeight;
+    }
+
+    public int centroidCount() {
+        compress();
+        return centroidCount;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getCompression() {
+        return compression;
+    }
+
+    private double kOfQ(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+
+    private double qOfK(double k) {
+        double kMax = compression / 4;
+        if (k >= kMax) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    /**
+     * 按均值对两个平行数组做原地快速排序
+     */
+    private static void sortByMean(double[] m, double[] w, int lo, int hi) {
+        while (lo < hi) {
+            if (hi - lo < 16) {
+                for (int i = lo + 1; i <= hi; i++) {
+                    double km = m[i];
+                    double kw = w[i];
+                    int j = i - 1;
+                    while (j >= lo && m[j] > km) {
+                        m[j + 1] = m[j];
+                        w[j + 1] = w[j];
+                        j--;
+                    }
+                    m[j + 1] = km;
+                    w[j + 1] = kw;
+                }
+                return;
+            }
+            double pivot = m[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (m[i] < pivot) {
+                    i++;
+                }
+                while (m[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double tm = m[i];
+                    m[i] = m[j];
+                    m[j] = tm;
+                    double tw = w[i];
+                    w[i] = w[j];
+                    w[j] = tw;
+                    i++;
+                    j--;
+                }
+            }
+            // 先递归较小的一半,较大的一半循环处理,限制栈深度
+            if (j - lo < hi - i) {
+                sortByMean(m, w, lo, j);
+                lo = i;
+            } else {
+                sortByMean(m, w, i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (totalWeight == 0) {
+            return "TDigest{empty}";
+        }
+        return "TDigest{n=" + size() + ", centroids=" + centroidCount()
+            + String.format(", p50=%f, p99=%f}", quantile(0.5), quantile(0.99));
+    }
+}
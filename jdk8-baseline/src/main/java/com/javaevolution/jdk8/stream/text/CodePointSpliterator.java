@@ -0,0 +1,68 @@
+package com.javaevolution.jdk8.stream.text;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * 逐码点遍历 CodeUnitSource 的区间 [index, fence)
+ * 在中点附近的码点边界二分,不产生任何中间对象
+ */
+final class CodePointSpliterator implements Spliterator.OfInt {
+
+    private final CodeUnitSource source;
+    private int index;
+    private final int fence;
+
+    CodePointSpliterator(CodeUnitSource source, int index, int fence) {
+        this.source = source;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if (index >= fence) {
+            return false;
+        }
+        int cp = source.codePointAt(index);
+        index = source.nextIndex(index);
+        action.accept(cp);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        CodeUnitSource src = source;
+        int i = index;
+        int hi = fence;
+        index = hi;
+        while (i < hi) {
+            action.accept(src.codePointAt(i));
+            i = src.nextIndex(i);
+        }
+    }
+
+    @Override
+    public OfInt trySplit() {
+        int mid = source.boundaryAtOrAfter((index + fence) >>> 1);
+        if (mid <= index || mid >= fence) {
+            return null;
+        }
+        CodePointSpliterator prefix = new CodePointSpliterator(source, index, mid);
+        index = mid;
+        return prefix;
+    }
+
+    /**
+     * 编码单元数,是码点数的上界
+     */
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -0,0 +1,40 @@
+package com.javaevolution.jdk8.stream.text;
+
+/**
+ * 按编码单元寻址的文本源 (UTF-16 的 char 或 UTF-8 的 byte)
+ *
+ * 拆分器只在"码点边界"上切分,保证代理对 / 多字节序列不会被拆到两个分片
+ */
+interface CodeUnitSource {
+
+    /**
+     * 编码单元总数
+     */
+    int length();
+
+    /**
+     * 下标 i 处是否可以作为一个码点的起点
+     */
+    boolean isBoundary(int i);
+
+    /**
+     * 从码点起点 i 解码; 非法序列返回 U+FFFD (UTF-16 的孤立代理按原值返回,与 String.codePoints 一致)
+     */
+    int codePointAt(int i);
+
+    /**
+     * 码点起点 i 之后下一个码点的起点
+     */
+    int nextIndex(int i);
+
+    /**
+     * 不早于 i 的第一个码点边界,越界时返回 length()
+     */
+    default int boundaryAtOrAfter(int i) {
+        int n = length();
+        while (i < n && !isBoundary(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,108 @@
+package com.javaevolution.jdk8.stream.text;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * 以区间 [index, fence) 内的每个码点为起点,产出由其后 n 个码点组成的 n-gram 键
+ * 末尾的 n-gram 可以越过 fence 向后读取,因此分片之间不会丢失跨界的 n-gram;
+ * 剩余码点不足 n 个的起点不产出
+ *
+ * 键有两种编码:
+ * - packed: n ≤ 3,每个码点 21 位拼进一个 long,可精确还原
+ * - hashed: 任意 n,64 位 FNV-1a 后再做一次混合
+ */
+final class NGramSpliterator implements Spliterator.OfLong {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final CodeUnitSource source;
+    private final int n;
+    private final boolean packed;
+    private int index;
+    private final int fence;
+    private long key;
+
+    NGramSpliterator(CodeUnitSource source, int n, boolean packed, int index, int fence) {
+        this.source = source;
+        this.n = n;
+        this.packed = packed;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (index >= fence) {
+            return false;
+        }
+        if (!computeKey(index)) {
+            index = fence;
+            return false;
+        }
+        index = source.nextIndex(index);
+        action.accept(key);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        int i = index;
+        int hi = fence;
+        index = hi;
+        while (i < hi && computeKey(i)) {
+            action.accept(key);
+            i = source.nextIndex(i);
+        }
+    }
+
+    @Override
+    public OfLong trySplit() {
+        int mid = source.boundaryAtOrAfter((index + fence) >>> 1);
+        if (mid <= index || mid >= fence) {
+            return null;
+        }
+        NGramSpliterator prefix = new NGramSpliterator(source, n, packed, index, mid);
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * 计算起点 start 处的 n-gram 键,存入 key; 剩余码点不足 n 个时返回 false
+     */
+    private boolean computeKey(int start) {
+        int length = source.length();
+        int i = start;
+        long h = packed ? 0 : FNV_OFFSET;
+        for (int k = 0; k < n; k++) {
+            if (i >= length) {
+                return false;
+            }
+            int cp = source.codePointAt(i);
+            i = source.nextIndex(i);
+            h = packed ? (h << 21) | cp : (h ^ cp) * FNV_PRIME;
+        }
+        key = packed ? h : mix(h);
+        return true;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
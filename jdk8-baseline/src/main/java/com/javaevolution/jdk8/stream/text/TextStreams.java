@@ -0,0 +1,161 @@
+package com.javaevolution.jdk8.stream.text;
+
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 字符 / 码点 / n-gram / 词元的原始类型流
+ *
+ * 对比 StreamAPIDemo.flatMapDemo 中的 word.split(""):
+ * - split 先走一遍正则,再为每个字符创建一个 String
+ * - 这里直接在 CharSequence 或 UTF-8 byte[] 上按下标读取,产出 IntStream / LongStream,
+ *   遍历过程中不分配对象
+ *
+ * 并行: 拆分器在码点边界 (n-gram、词元还会避开词元内部) 上二分,
+ * 对 .parallel() 的结果与顺序执行完全一致。
+ * JDK 8 的 String.chars() / codePoints() 基于迭代器,并行拆分效果很差,也可以用这里的版本替代。
+ *
+ * byte[] 来源按 UTF-8 解码,非法字节产出 U+FFFD; 下标均以编码单元计 (char 或 byte)
+ */
+public final class TextStreams {
+
+    /**
+     * packed n-gram 每个码点占用的位数
+     */
+    private static final int BITS_PER_CODE_POINT = 21;
+
+    private static final IntPredicate LETTER_OR_DIGIT = Character::isLetterOrDigit;
+
+    private TextStreams() {
+    }
+
+    // ==================== 字符与码点 ====================
+
+    /**
+     * UTF-16 编码单元流,SIZED,可按下标均匀拆分
+     */
+    public static IntStream chars(CharSequence text) {
+        Objects.requireNonNull(text);
+        return IntStream.range(0, text.length()).map(text::charAt);
+    }
+
+    public static IntStream codePoints(CharSequence text) {
+        return codePoints(new Utf16Source(text));
+    }
+
+    public static IntStream codePoints(byte[] utf8) {
+        return codePoints(utf8, 0, utf8.length);
+    }
+
+    public static IntStream codePoints(byte[] utf8, int from, int to) {
+        return codePoints(utf8Source(utf8, from, to));
+    }
+
+    // ==================== n-gram ====================
+
+    /**
+     * 连续 n 个码点组成的 n-gram,精确编码为 long (1 ≤ n ≤ 3),可用 ngramToString 还原
+     */
+    public static LongStream ngrams(CharSequence text, int n) {
+        return ngrams(new Utf16Source(text), n, true);
+    }
+
+    public static LongStream ngrams(byte[] utf8, int n) {
+        return ngrams(utf8Source(utf8, 0, utf8.length), n, true);
+    }
+
+    /**
+     * 任意长度 n-gram 的 64 位哈希,用于计数 / 去重等不需要还原文本的场景
+     */
+    public static LongStream ngramHashes(CharSequence text, int n) {
+        return ngrams(new Utf16Source(text), n, false);
+    }
+
+    public static LongStream ngramHashes(byte[] utf8, int n) {
+        return ngrams(utf8Source(utf8, 0, utf8.length), n, false);
+    }
+
+    /**
+     * 把 ngrams 产出的键还原为字符串
+     */
+    public static String ngramToString(long key, int n) {
+        checkPackedLength(n);
+        StringBuilder sb = new StringBuilder(n * 2);
+        for (int k = n - 1; k >= 0; k--) {
+            sb.appendCodePoint((int) (key >>> (k * BITS_PER_CODE_POINT)) & 0x1FFFFF);
+        }
+        return sb.toString();
+    }
+
+    // ==================== 词元 ====================
+
+    /**
+     * 字母数字组成的词元位置,编码为 start &lt;&lt; 32 | end; 用 spanStart / spanEnd 解码
+     */
+    public static LongStream tokenSpans(CharSequence text) {
+        return tokenSpans(text, LETTER_OR_DIGIT);
+    }
+
+    public static LongStream tokenSpans(CharSequence text, IntPredicate isTokenChar) {
+        return tokenSpans(new Utf16Source(text), isTokenChar);
+    }
+
+    /**
+     * UTF-8 词元位置,下标为字节偏移 (相对 from)
+     */
+    public static LongStream tokenSpans(byte[] utf8, int from, int to, IntPredicate isTokenChar) {
+        return tokenSpans(utf8Source(utf8, from, to), isTokenChar);
+    }
+
+    /**
+     * 词元字符串流; 每个词元会创建一个 String,只需位置或计数时优先用 tokenSpans
+     */
+    public static Stream<String> tokens(CharSequence text) {
+        return tokenSpans(text).mapToObj(span -> text.subSequence(spanStart(span), spanEnd(span)).toString());
+    }
+
+    public static int spanStart(long span) {
+        return (int) (span >>> 32);
+    }
+
+    public static int spanEnd(long span) {
+        return (int) span;
+    }
+
+    // ==================== 内部 ====================
+
+    private static IntStream codePoints(CodeUnitSource source) {
+        return StreamSupport.intStream(new CodePointSpliterator(source, 0, source.length()), false);
+    }
+
+    private static LongStream ngrams(CodeUnitSource source, int n, boolean packed) {
+        if (packed) {
+            checkPackedLength(n);
+        } else if (n < 1) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        return StreamSupport.longStream(new NGramSpliterator(source, n, packed, 0, source.length()), false);
+    }
+
+    private static LongStream tokenSpans(CodeUnitSource source, IntPredicate isTokenChar) {
+        Objects.requireNonNull(isTokenChar);
+        return StreamSupport.longStream(new TokenSpanSpliterator(source, isTokenChar, 0, source.length()), false);
+    }
+
+    private static CodeUnitSource utf8Source(byte[] utf8, int from, int to) {
+        if (from < 0 || to > utf8.length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + utf8.length);
+        }
+        return new Utf8Source(utf8, from, to);
+    }
+
+    private static void checkPackedLength(int n) {
+        if (n < 1 || n > 3) {
+            throw new IllegalArgumentException("packed n-grams support 1 <= n <= 3, use ngramHashes: " + n);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.javaevolution.jdk8.stream.text;
+
+import java.util.Spliterator;
+import java.util.function.IntPredicate;
+import java.util.function.LongConsumer;
+
+/**
+ * 产出区间 [index, fence) 内起始的词元 (token) 位置: 满足 isTokenChar 的最长连续码点串
+ * 每个词元编码为 start &lt;&lt; 32 | end (编码单元下标,左闭右开),不创建 String
+ *
+ * 拆分时把中点向后推到第一个非词元码点,词元永远不会被切成两半
+ */
+final class TokenSpanSpliterator implements Spliterator.OfLong {
+
+    private final CodeUnitSource source;
+    private final IntPredicate isTokenChar;
+    private int index;
+    private final int fence;
+
+    TokenSpanSpliterator(CodeUnitSource source, IntPredicate isTokenChar, int index, int fence) {
+        this.source = source;
+        this.isTokenChar = isTokenChar;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        int i = index;
+        while (i < fence && !isTokenChar.test(source.codePointAt(i))) {
+            i = source.nextIndex(i);
+        }
+        if (i >= fence) {
+            index = fence;
+            return false;
+        }
+        int start = i;
+        int length = source.length();
+        while (i < length && isTokenChar.test(source.codePointAt(i))) {
+            i = source.nextIndex(i);
+        }
+        index = i;
+        action.accept(((long) start << 32) | i);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        while (tryAdvance(action)) {
+            // 每次调用产出一个词元
+        }
+    }
+
+    @Override
+    public OfLong trySplit() {
+        int mid = source.boundaryAtOrAfter((index + fence) >>> 1);
+        while (mid < fence && isTokenChar.test(source.codePointAt(mid))) {
+            mid = source.nextIndex(mid);
+        }
+        if (mid <= index || mid >= fence) {
+            return null;
+        }
+        TokenSpanSpliterator prefix = new TokenSpanSpliterator(source, isTokenChar, index, mid);
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -0,0 +1,47 @@
+package com.javaevolution.jdk8.stream.text;
+
+/**
+ * CharSequence (UTF-16) 文本源
+ */
+final class Utf16Source implements CodeUnitSource {
+
+    private final CharSequence text;
+    private final int length;
+
+    Utf16Source(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public boolean isBoundary(int i) {
+        return i == 0 || i >= length
+            || !(Character.isLowSurrogate(text.charAt(i)) && Character.isHighSurrogate(text.charAt(i - 1)));
+    }
+
+    @Override
+    public int codePointAt(int i) {
+        char high = text.charAt(i);
+        if (Character.isHighSurrogate(high) && i + 1 < length) {
+            char low = text.charAt(i + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return high;
+    }
+
+    @Override
+    public int nextIndex(int i) {
+        if (Character.isHighSurrogate(text.charAt(i)) && i + 1 < length
+            && Character.isLowSurrogate(text.charAt(i + 1))) {
+            return i + 2;
+        }
+        return i + 1;
+    }
+}
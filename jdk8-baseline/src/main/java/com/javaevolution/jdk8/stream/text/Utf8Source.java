@@ -0,0 +1,100 @@
+package com.javaevolution.jdk8.stream.text;
+
+/**
+ * UTF-8 字节数组文本源,直接在字节上解码,不先构造 String
+ *
+ * 非法序列 (截断、多余的续字节、过长编码、代理区、超出 U+10FFFF) 每个字节产出一个 U+FFFD
+ */
+final class Utf8Source implements CodeUnitSource {
+
+    private static final int REPLACEMENT = 0xFFFD;
+
+    private final byte[] bytes;
+    private final int from;
+    private final int to;
+
+    Utf8Source(byte[] bytes, int from, int to) {
+        this.bytes = bytes;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public int length() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isBoundary(int i) {
+        // 续字节形如 10xxxxxx,其余字节都可以作为起点
+        return i == 0 || i >= length() || (bytes[from + i] & 0xC0) != 0x80;
+    }
+
+    @Override
+    public int codePointAt(int i) {
+        int b0 = bytes[from + i] & 0xFF;
+        if (b0 < 0x80) {
+            return b0;
+        }
+        int len = sequenceLength(i);
+        if (len == 0) {
+            return REPLACEMENT;
+        }
+        int p = from + i;
+        switch (len) {
+            case 2:
+                return ((b0 & 0x1F) << 6) | (bytes[p + 1] & 0x3F);
+            case 3:
+                return ((b0 & 0x0F) << 12) | ((bytes[p + 1] & 0x3F) << 6) | (bytes[p + 2] & 0x3F);
+            default:
+                return ((b0 & 0x07) << 18) | ((bytes[p + 1] & 0x3F) << 12)
+                    | ((bytes[p + 2] & 0x3F) << 6) | (bytes[p + 3] & 0x3F);
+        }
+    }
+
+    @Override
+    public int nextIndex(int i) {
+        int len = sequenceLength(i);
+        return i + (len == 0 ? 1 : len);
+    }
+
+    /**
+     * 起点 i 处合法序列的字节数,非法时返回 0
+     */
+    private int sequenceLength(int i) {
+        int p = from + i;
+        int b0 = bytes[p] & 0xFF;
+        int len;
+        int min;
+        if (b0 < 0x80) {
+            return 1;
+        } else if (b0 >= 0xC2 && b0 <= 0xDF) {
+            len = 2;
+            min = 0x80;
+        } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+            len = 3;
+            min = 0x800;
+        } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+            len = 4;
+            min = 0x10000;
+        } else {
+            return 0;
+        }
+        if (p + len > to) {
+            return 0;
+        }
+        int cp = b0 & (0xFF >>> (len + 1));
+        for (int k = 1; k < len; k++) {
+            int b = bytes[p + k] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                return 0;
+            }
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        if (cp < min || cp > Character.MAX_CODE_POINT
+            || (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+            return 0;
+        }
+        return len;
+    }
+}